@@ -0,0 +1,118 @@
+package com.kejin.android.gesture.benchmark;
+
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureRecognizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 回放合成的 drag / pinch / rotate / fling 序列，每个 op 为一个触摸事件
+ * 配合 gc profiler, gc.alloc.rate.norm 即为每个事件分配的字节数
+ */
+@State(Scope.Thread)
+public class GestureRecognizerBenchmark {
+    private static final int MOVES = 254;
+    private static final int EVENTS = MOVES + 2;
+    private static final int MULTI_EVENTS = MOVES + 4;
+
+    private TouchStream drag;
+    private TouchStream fling;
+    private TouchStream pinch;
+    private TouchStream rotate;
+
+    private final CountingCallback callback = new CountingCallback();
+    private GestureRecognizer recognizer;
+
+    @Setup
+    public void setup() {
+        drag = TouchStream.drag(MOVES);
+        fling = TouchStream.fling(MOVES);
+        pinch = TouchStream.pinch(MOVES);
+        rotate = TouchStream.rotate(MOVES);
+        recognizer = new GestureRecognizer(callback, callback);
+        recognizer.setDragThreshold(24);
+        recognizer.setClickRangeThreshold(60);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void drag(Blackhole bh) {
+        drag.replay(recognizer);
+        bh.consume(callback.sum);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void fling(Blackhole bh) {
+        fling.replay(recognizer);
+        bh.consume(callback.sum);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MULTI_EVENTS)
+    public void pinch(Blackhole bh) {
+        pinch.replay(recognizer);
+        bh.consume(callback.sum);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MULTI_EVENTS)
+    public void rotate(Blackhole bh) {
+        rotate.replay(recognizer);
+        bh.consume(callback.sum);
+    }
+
+    /**
+     * 把回调的参数累加起来，避免被 JIT 优化掉
+     */
+    static final class CountingCallback implements GestureCallback, GestureRecognizer.Host {
+        double sum = 0;
+
+        @Override
+        public void onDrag(float x, float y, float dx, float dy,
+                           float sumDx, float sumDy, boolean singlePointer) {
+            sum += dx + dy;
+        }
+
+        @Override
+        public boolean onDragEnd(float sumDx, float sumDy,
+                                 int velocityX, int velocityY, boolean singlePointer) {
+            sum += velocityX + velocityY;
+            return false;
+        }
+
+        @Override
+        public void onScale(float cx, float cy, float deltaScale, boolean singlePointer) {
+            sum += deltaScale;
+        }
+
+        @Override
+        public void onRotate(float cx, float cy, float deltaDegrees, boolean singlePointer) {
+            sum += deltaDegrees;
+        }
+
+        @Override
+        public long now() {
+            return 0;
+        }
+
+        @Override
+        public void postAt(Runnable action, long timeMillis) {}
+
+        @Override
+        public void removeCallbacks(Runnable action) {}
+
+        @Override
+        public void startFling(int velocityX, int velocityY, boolean singlePointer) {
+            sum += velocityX - velocityY;
+        }
+
+        @Override
+        public void cancelFling() {}
+    }
+}
@@ -0,0 +1,69 @@
+package com.kejin.android.gesture.benchmark;
+
+import com.kejin.android.gesture.core.GestureTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ViewGestureAttacher 每个拖动/缩放事件对变换状态做的计算: 变换 + 修正边界 + 获取显示区域
+ * 每个 op 为一个事件
+ */
+@State(Scope.Thread)
+public class GestureTransformBenchmark {
+    private static final int STEPS = 256;
+    private static final int VIEW_WIDTH = 1080, VIEW_HEIGHT = 1920;
+
+    private final GestureTransform transform = new GestureTransform();
+    private final float[] values = new float[9];
+
+    @Setup
+    public void setup() {
+        // 40000 x 30000 的大图，FIT_CENTER
+        double scale = (double) VIEW_WIDTH / 40000;
+        transform.setContentSize(40000, 30000);
+        transform.setBase(scale, scale, 0, (VIEW_HEIGHT - 30000 * scale) / 2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public void drag(Blackhole bh) {
+        transform.reset();
+        transform.postScale(50, VIEW_WIDTH / 2f, VIEW_HEIGHT / 2f);
+        for (int i = 0; i < STEPS; i++) {
+            transform.postTranslate(-5, -3);
+            transform.fixBoundary(VIEW_WIDTH, VIEW_HEIGHT, GestureTransform.ALIGN_CENTER);
+            transform.mapContentRect();
+            bh.consume(transform.getLeft());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public void scale(Blackhole bh) {
+        transform.reset();
+        for (int i = 0; i < STEPS; i++) {
+            transform.postScale(1.01, 400 + i, 900 - i);
+            transform.fixBoundary(VIEW_WIDTH, VIEW_HEIGHT, GestureTransform.ALIGN_CENTER);
+            transform.mapContentRect();
+            bh.consume(transform.getScale());
+        }
+    }
+
+    /**
+     * 生成分发用的矩阵数据
+     */
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public void dispatch(Blackhole bh) {
+        for (int i = 0; i < STEPS; i++) {
+            transform.postTranslate(1, 1);
+            transform.getValues(values);
+            bh.consume(values[2]);
+        }
+    }
+}
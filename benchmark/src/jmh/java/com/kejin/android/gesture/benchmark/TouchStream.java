@@ -0,0 +1,140 @@
+package com.kejin.android.gesture.benchmark;
+
+import com.kejin.android.gesture.core.GestureRecognizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预先生成好的触摸序列，回放时不会产生任何分配
+ */
+public final class TouchStream {
+    private static final long FRAME_MS = 8; // 120Hz
+
+    final int size;
+    final int[] actions;
+    final int[] actionIndexes;
+    final long[] eventTimes;
+    final int[] pointerCounts;
+    final int[][] pointerIds;
+    final float[][] xs;
+    final float[][] ys;
+
+    private TouchStream(List<float[]> events) {
+        size = events.size();
+        actions = new int[size];
+        actionIndexes = new int[size];
+        eventTimes = new long[size];
+        pointerCounts = new int[size];
+        pointerIds = new int[size][];
+        xs = new float[size][];
+        ys = new float[size][];
+        for (int i = 0; i < size; i++) {
+            // [action, actionIndex, time, count, x0, y0, x1, y1 ...]
+            float[] e = events.get(i);
+            actions[i] = (int) e[0];
+            actionIndexes[i] = (int) e[1];
+            eventTimes[i] = (long) e[2];
+            int count = (int) e[3];
+            pointerCounts[i] = count;
+            pointerIds[i] = new int[count];
+            xs[i] = new float[count];
+            ys[i] = new float[count];
+            for (int p = 0; p < count; p++) {
+                pointerIds[i][p] = p;
+                xs[i][p] = e[4 + p * 2];
+                ys[i][p] = e[5 + p * 2];
+            }
+        }
+    }
+
+    public void replay(GestureRecognizer recognizer) {
+        for (int i = 0; i < size; i++) {
+            recognizer.onTouchEvent(actions[i], actionIndexes[i], eventTimes[i],
+                    pointerCounts[i], pointerIds[i], xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * 单指匀速拖动，最后停住再抬起，不会触发 fling
+     */
+    public static TouchStream drag(int moves) {
+        List<float[]> events = new ArrayList<>();
+        long t = 0;
+        float x = 100, y = 100;
+        events.add(single(GestureRecognizer.ACTION_DOWN, t, x, y));
+        for (int i = 0; i < moves; i++) {
+            t += FRAME_MS;
+            x += 4;
+            y += 2;
+            events.add(single(GestureRecognizer.ACTION_MOVE, t, x, y));
+        }
+        t += 100;
+        events.add(single(GestureRecognizer.ACTION_UP, t, x, y));
+        return new TouchStream(events);
+    }
+
+    /**
+     * 单指快速拖动后立即抬起，会计算速度并触发 fling
+     */
+    public static TouchStream fling(int moves) {
+        List<float[]> events = new ArrayList<>();
+        long t = 0;
+        float x = 100, y = 100;
+        events.add(single(GestureRecognizer.ACTION_DOWN, t, x, y));
+        for (int i = 0; i < moves; i++) {
+            t += FRAME_MS;
+            x += 30;
+            y -= 12;
+            events.add(single(GestureRecognizer.ACTION_MOVE, t, x, y));
+        }
+        events.add(single(GestureRecognizer.ACTION_UP, t + 2, x, y));
+        return new TouchStream(events);
+    }
+
+    /**
+     * 双指以中心点对称张开
+     */
+    public static TouchStream pinch(int moves) {
+        return twoPointer(moves, 4, 0);
+    }
+
+    /**
+     * 双指绕中心点旋转
+     */
+    public static TouchStream rotate(int moves) {
+        return twoPointer(moves, 0, 0.02f);
+    }
+
+    private static TouchStream twoPointer(int moves, float spreadStep, float angleStep) {
+        List<float[]> events = new ArrayList<>();
+        long t = 0;
+        float cx = 540, cy = 960;
+        float radius = 100, angle = 0;
+        float x0 = cx - radius, y0 = cy, x1 = cx + radius, y1 = cy;
+        events.add(single(GestureRecognizer.ACTION_DOWN, t, x0, y0));
+        t += FRAME_MS;
+        events.add(new float[]{GestureRecognizer.ACTION_POINTER_DOWN, 1, t, 2, x0, y0, x1, y1});
+        for (int i = 0; i < moves; i++) {
+            t += FRAME_MS;
+            radius += spreadStep;
+            angle += angleStep;
+            float dx = (float) (radius * Math.cos(angle));
+            float dy = (float) (radius * Math.sin(angle));
+            x0 = cx - dx;
+            y0 = cy - dy;
+            x1 = cx + dx;
+            y1 = cy + dy;
+            events.add(new float[]{GestureRecognizer.ACTION_MOVE, 0, t, 2, x0, y0, x1, y1});
+        }
+        t += FRAME_MS;
+        events.add(new float[]{GestureRecognizer.ACTION_POINTER_UP, 1, t, 2, x0, y0, x1, y1});
+        t += FRAME_MS;
+        events.add(single(GestureRecognizer.ACTION_UP, t, x0, y0));
+        return new TouchStream(events);
+    }
+
+    private static float[] single(int action, long time, float x, float y) {
+        return new float[]{action, 0, time, 1, x, y};
+    }
+}
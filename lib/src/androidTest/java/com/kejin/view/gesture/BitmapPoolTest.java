@@ -0,0 +1,78 @@
+package com.kejin.view.gesture;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.kejin.android.gesture.image.BitmapPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class BitmapPoolTest {
+    private static final int TILE_BYTES = 512 * 512 * 4;
+
+    @Test
+    public void reusesBitmapOfSameBucket() {
+        BitmapPool pool = new BitmapPool(TILE_BYTES * 4);
+        Bitmap bitmap = Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        Bitmap reused = pool.get(500, 400, Bitmap.Config.ARGB_8888);
+        assertSame(bitmap, reused);
+        assertEquals(500, reused.getWidth());
+        assertEquals(400, reused.getHeight());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0, pool.getCurrentSize());
+
+        assertNull(pool.get(512, 512, Bitmap.Config.ARGB_8888));
+        assertEquals(1, pool.getMissCount());
+    }
+
+    @Test
+    public void doesNotReuseMuchLargerBitmap() {
+        BitmapPool pool = new BitmapPool(TILE_BYTES * 4);
+        pool.put(Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888));
+
+        assertNull(pool.get(100, 100, Bitmap.Config.ARGB_8888));
+        assertNull(pool.get(512, 512, Bitmap.Config.RGB_565));
+        assertNotNull(pool.get(400, 400, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void evictsOldestWhenOverBudget() {
+        BitmapPool pool = new BitmapPool(TILE_BYTES * 2);
+        Bitmap first = Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888);
+        pool.put(first);
+        pool.put(Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888));
+        pool.put(Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888));
+
+        assertEquals(1, pool.getEvictionCount());
+        assertEquals(TILE_BYTES * 2, pool.getCurrentSize());
+        assertTrue(first.isRecycled());
+    }
+
+    @Test
+    public void discardedBitmapIsNotReused() {
+        BitmapPool pool = new BitmapPool(TILE_BYTES * 4);
+        Bitmap bitmap = Bitmap.createBitmap(512, 512, Bitmap.Config.ARGB_8888);
+        pool.put(bitmap);
+
+        Bitmap reused = pool.get(512, 512, Bitmap.Config.ARGB_8888);
+        pool.discard(reused);
+
+        assertTrue(bitmap.isRecycled());
+        assertEquals(0, pool.getCurrentSize());
+        assertEquals(0, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(1, pool.getReuseFailureCount());
+        assertNull(pool.get(512, 512, Bitmap.Config.ARGB_8888));
+    }
+}
@@ -0,0 +1,91 @@
+package com.kejin.view.gesture;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 开启 frameAlignedNotify 后每帧只分发一次矩阵变化，detach 时分发还没分发的变化
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameAlignedNotifyTest {
+    private View view;
+    private ViewGestureAttacher attacher;
+    private int notifyCount = 0;
+
+    @Test
+    public void notifiesOncePerFrame() throws InterruptedException {
+        try (ActivityScenario<TestHostActivity> scenario =
+                     ActivityScenario.launch(TestHostActivity.class)) {
+            scenario.onActivity(this::attach);
+            awaitDraw();
+            scenario.onActivity(activity -> {
+                assertTrue(attacher.isFrameAlignedNotify());
+                notifyCount = 0;
+                attacher.scaleTo(2, false, false);
+                attacher.scaleTo(3, false, false);
+                attacher.postTranslate(-50, -50, true, false);
+                // 还没有绘制，只做了标记
+                assertEquals(0, notifyCount);
+            });
+            awaitDraw();
+            scenario.onActivity(activity -> assertEquals(1, notifyCount));
+        }
+    }
+
+    @Test
+    public void pendingNotifyIsFlushedOnDetach() throws InterruptedException {
+        try (ActivityScenario<TestHostActivity> scenario =
+                     ActivityScenario.launch(TestHostActivity.class)) {
+            scenario.onActivity(this::attach);
+            awaitDraw();
+            scenario.onActivity(activity -> {
+                notifyCount = 0;
+                attacher.scaleTo(2, false, false);
+                assertEquals(0, notifyCount);
+                ((ViewGroup) view.getParent()).removeView(view);
+                assertEquals(1, notifyCount);
+            });
+        }
+    }
+
+    private void attach(Activity activity) {
+        view = new View(activity);
+        activity.setContentView(view);
+        attacher = new ViewGestureAttacher(view, 4000, 3000);
+        attacher.setMatrixListener(matrix -> notifyCount++);
+        attacher.setFrameAlignedNotify(true);
+    }
+
+    /**
+     * 等待下一次绘制，OnPreDrawListener 在这之前已经分发过
+     */
+    private void awaitDraw() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ViewTreeObserver.OnDrawListener listener = latch::countDown;
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            view.getViewTreeObserver().addOnDrawListener(listener);
+            view.invalidate();
+        });
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        instrumentation.runOnMainSync(() -> view.getViewTreeObserver().removeOnDrawListener(listener));
+    }
+}
@@ -0,0 +1,138 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.GestureFrameLayout;
+import com.kejin.android.gesture.view.ILayerPromotionListener;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * GestureFrameLayout 的画布变换模式和硬件层切换
+ */
+@RunWith(AndroidJUnit4.class)
+public class GestureFrameLayoutTest {
+    private GestureFrameLayout layout;
+    private View child;
+    private View layeredChild;
+    private int promotedViews = 0;
+    private int promotedLayerType = -1;
+    private int releasedViews = 0;
+    private int releasedFrames = 0;
+
+    @Test
+    public void childIsHitInContentCoordinates() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            float[] hit = new float[2];
+            View child = new View(context) {
+                @Override
+                public boolean onTouchEvent(MotionEvent event) {
+                    hit[0] = event.getX();
+                    hit[1] = event.getY();
+                    return true;
+                }
+            };
+            GestureFrameLayout layout = new GestureFrameLayout(context);
+            layout.addControlView(child);
+            layout.startControl(1000, 1000);
+            layout.setCanvasTransformEnable(true);
+            layout.measure(View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY));
+            layout.layout(0, 0, 1000, 1000);
+            layout.getGestureAttacher().scaleTo(2, 0, 0, false, false);
+
+            MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 600, 800, 0);
+            assertTrue(layout.dispatchTouchEvent(down));
+            // 以 (0, 0) 放大 2 倍，(600, 800) 显示的是子 view 的 (300, 400)
+            assertEquals(300, hit[0], 0.01f);
+            assertEquals(400, hit[1], 0.01f);
+            // 传入的事件属于上层，不会被修改
+            assertEquals(600, down.getX(), 0);
+            assertEquals(800, down.getY(), 0);
+            down.recycle();
+        });
+    }
+
+    @Test
+    public void layersArePromotedWhileAnimating() throws InterruptedException {
+        CountDownLatch released = new CountDownLatch(1);
+        try (ActivityScenario<TestHostActivity> scenario =
+                     ActivityScenario.launch(TestHostActivity.class)) {
+            scenario.onActivity(activity -> {
+                layout = new GestureFrameLayout(activity);
+                child = new View(activity);
+                // 原来已经有 layer 的 view 不会修改
+                layeredChild = new View(activity);
+                layeredChild.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+                activity.setContentView(layout);
+                layout.addControlView(child);
+                layout.addControlView(layeredChild);
+                layout.startControl(1000, 1000);
+                layout.setLayerPromotionEnable(true);
+                layout.setLayerPromotionListener(new ILayerPromotionListener() {
+                    @Override
+                    public void onLayerPromoted(@NonNull GestureFrameLayout l, int viewCount) {
+                        promotedViews = viewCount;
+                        promotedLayerType = child.getLayerType();
+                    }
+
+                    @Override
+                    public void onLayerReleased(@NonNull GestureFrameLayout l, int viewCount,
+                                                int frames, long durationMillis) {
+                        releasedViews = viewCount;
+                        releasedFrames = frames;
+                        released.countDown();
+                    }
+                });
+            });
+            awaitDraw();
+            scenario.onActivity(activity -> {
+                assertTrue(layout.isHardwareAccelerated());
+                assertFalse(layout.isLayerPromoted());
+                layout.getGestureAttacher().scaleTo(2, true, true);
+            });
+            // 动画结束之后释放
+            assertTrue(released.await(3, TimeUnit.SECONDS));
+            scenario.onActivity(activity -> {
+                assertEquals(1, promotedViews);
+                assertEquals(View.LAYER_TYPE_HARDWARE, promotedLayerType);
+                assertEquals(1, releasedViews);
+                assertTrue(releasedFrames > 0);
+                assertFalse(layout.isLayerPromoted());
+                assertEquals(View.LAYER_TYPE_NONE, child.getLayerType());
+                assertEquals(View.LAYER_TYPE_SOFTWARE, layeredChild.getLayerType());
+            });
+        }
+    }
+
+    private void awaitDraw() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ViewTreeObserver.OnDrawListener listener = latch::countDown;
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            layout.getViewTreeObserver().addOnDrawListener(listener);
+            layout.invalidate();
+        });
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        instrumentation.runOnMainSync(() -> layout.getViewTreeObserver().removeOnDrawListener(listener));
+    }
+}
@@ -0,0 +1,126 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.GestureMetrics;
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 每次手势的工作量统计
+ */
+@RunWith(AndroidJUnit4.class)
+public class GestureMetricsTest {
+
+    @Test
+    public void dragIsCounted() {
+        List<GestureMetrics> reports = new ArrayList<>();
+        runOnMain(context -> {
+            View view = newView(context);
+            ViewGestureAttacher attacher = newAttacher(view, reports);
+            // 第一个 MOVE 超过 touch slop 只开始拖动，第二个 MOVE 和 UP 各回调一次 onDrag
+            touch(attacher, view, MotionEvent.ACTION_DOWN, 0, 540);
+            touch(attacher, view, MotionEvent.ACTION_MOVE, 100, 640);
+            touch(attacher, view, MotionEvent.ACTION_MOVE, 200, 740);
+            touch(attacher, view, MotionEvent.ACTION_UP, 1000, 740);
+        });
+
+        assertEquals(1, reports.size());
+        GestureMetrics metrics = reports.get(0);
+        assertEquals(0, metrics.startTime);
+        assertEquals(1000, metrics.endTime);
+        assertEquals(4, metrics.touchEvents);
+        // onDrag 两次，onDragEnd 一次
+        assertEquals(3, metrics.callbacks);
+        assertEquals(2, metrics.matrixNotifications);
+        assertEquals(2, metrics.matrixDispatches);
+        // 图片宽度和 view 一致，向右拖动 100 被修正回来，UP 时的位移为 0
+        assertEquals(1, metrics.boundaryCorrections);
+        assertEquals(0, metrics.animatorStarts);
+        assertEquals(0, metrics.flingFrames);
+        assertFalse(metrics.flung);
+    }
+
+    @Test
+    public void countersResetForEachGesture() {
+        List<GestureMetrics> reports = new ArrayList<>();
+        runOnMain(context -> {
+            View view = newView(context);
+            ViewGestureAttacher attacher = newAttacher(view, reports);
+            touch(attacher, view, MotionEvent.ACTION_DOWN, 0, 540);
+            touch(attacher, view, MotionEvent.ACTION_MOVE, 100, 640);
+            touch(attacher, view, MotionEvent.ACTION_MOVE, 200, 740);
+            touch(attacher, view, MotionEvent.ACTION_UP, 1000, 740);
+
+            touch(attacher, view, MotionEvent.ACTION_DOWN, 2000, 540);
+            attacher.scaleTo(2, true, true);
+            touch(attacher, view, MotionEvent.ACTION_UP, 2050, 540);
+        });
+
+        assertEquals(2, reports.size());
+        GestureMetrics metrics = reports.get(1);
+        assertEquals(2000, metrics.startTime);
+        assertEquals(2050, metrics.endTime);
+        assertEquals(2, metrics.touchEvents);
+        assertEquals(1, metrics.animatorStarts);
+        assertEquals(0, metrics.boundaryCorrections);
+    }
+
+    private interface MainAction {
+        void run(Context context);
+    }
+
+    private static void runOnMain(MainAction action) {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> action.run(instrumentation.getTargetContext()));
+    }
+
+    private static View newView(Context context) {
+        View view = new View(context);
+        view.layout(0, 0, 1080, 1920);
+        return view;
+    }
+
+    /**
+     * 统计对象会被复用，回调时复制一份
+     */
+    private static ViewGestureAttacher newAttacher(View view, List<GestureMetrics> reports) {
+        ViewGestureAttacher attacher = new ViewGestureAttacher(view, 4000, 3000);
+        attacher.update();
+        attacher.setMetricsListener((a, metrics) -> {
+            GestureMetrics copy = new GestureMetrics();
+            copy.startTime = metrics.startTime;
+            copy.endTime = metrics.endTime;
+            copy.touchEvents = metrics.touchEvents;
+            copy.callbacks = metrics.callbacks;
+            copy.matrixNotifications = metrics.matrixNotifications;
+            copy.matrixDispatches = metrics.matrixDispatches;
+            copy.boundaryCorrections = metrics.boundaryCorrections;
+            copy.animatorStarts = metrics.animatorStarts;
+            copy.flingFrames = metrics.flingFrames;
+            copy.flung = metrics.flung;
+            reports.add(copy);
+        });
+        return attacher;
+    }
+
+    private static void touch(ViewGestureAttacher attacher, View view, int action, long time, float x) {
+        MotionEvent event = MotionEvent.obtain(0, time, action, x, 960, 0);
+        attacher.onTouch(view, event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,88 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewParent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.IGestureListener;
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 合并在一个 ACTION_MOVE 中的历史采样
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoricalSamplesTest {
+
+    @Test
+    public void historicalSamplesAreRecognized() {
+        float[] drags = dragWithBatchedMove(true);
+        // 3 个历史采样和当前采样各回调一次
+        assertEquals(4, drags[0], 0);
+        assertEquals(10, drags[1], 0.01f);
+        assertEquals(40, drags[2], 0.01f);
+    }
+
+    @Test
+    public void historicalSamplesOnlyFeedVelocityWhenDisabled() {
+        float[] drags = dragWithBatchedMove(false);
+        assertEquals(1, drags[0], 0);
+        assertEquals(40, drags[1], 0.01f);
+        assertEquals(40, drags[2], 0.01f);
+    }
+
+    /**
+     * @return 合并的 ACTION_MOVE 产生的 onDrag 次数，最后一次的 dx，总位移
+     */
+    private static float[] dragWithBatchedMove(boolean historicalEnable) {
+        float[] result = new float[3];
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            View view = new View(context);
+            view.layout(0, 0, 1080, 1920);
+            ViewGestureAttacher attacher = new ViewGestureAttacher(view, 4000, 3000);
+            attacher.update();
+            attacher.setHistoricalSamplesEnable(historicalEnable);
+            attacher.setGestureListener(new IGestureListener() {
+                @Override
+                public boolean onDrag(@NonNull ViewGestureAttacher attacher, @Nullable ViewParent parent,
+                                      float dx, float dy, float sumDx, float sumDy) {
+                    result[0]++;
+                    result[1] = dx;
+                    result[2] = sumDx;
+                    return false;
+                }
+            });
+
+            MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 540, 960, 0);
+            attacher.onTouch(view, down);
+            down.recycle();
+            // 超过 touch slop，只回调 onDragStart
+            MotionEvent move = MotionEvent.obtain(0, 16, MotionEvent.ACTION_MOVE, 640, 960, 0);
+            attacher.onTouch(view, move);
+            move.recycle();
+            assertEquals(0, result[0], 0);
+
+            MotionEvent batched = MotionEvent.obtain(0, 20, MotionEvent.ACTION_MOVE, 650, 960, 0);
+            batched.addBatch(24, 660, 960, 1, 1, 0);
+            batched.addBatch(28, 670, 960, 1, 1, 0);
+            batched.addBatch(32, 680, 960, 1, 1, 0);
+            assertEquals(3, batched.getHistorySize());
+            attacher.onTouch(view, batched);
+            batched.recycle();
+        });
+        return result;
+    }
+}
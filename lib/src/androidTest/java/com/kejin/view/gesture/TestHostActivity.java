@@ -0,0 +1,9 @@
+package com.kejin.view.gesture;
+
+import android.app.Activity;
+
+/**
+ * 需要 attach 到 window 的测试使用的空白页面
+ */
+public class TestHostActivity extends Activity {
+}
@@ -0,0 +1,138 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Debug;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 从 onTouch 到 onMatrixChanged 的稳定阶段不能有任何对象分配
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewGestureAttacherAllocationTest {
+    private static final int MOVES = 60;
+
+    @Test
+    public void dragDoesNotAllocate() {
+        assertNoAllocation(3, buildDrag());
+    }
+
+    @Test
+    public void pinchDoesNotAllocate() {
+        assertNoAllocation(1, buildPinch());
+    }
+
+    @SuppressWarnings("deprecation")
+    private void assertNoAllocation(float initScale, List<MotionEvent> events) {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            int[] notifyCount = new int[1];
+
+            // 先用另一个 attacher 完整跑一遍预热，UP 之后的回弹动画不会影响被测的 attacher
+            View warmupView = new View(context);
+            ViewGestureAttacher warmup = newAttacher(warmupView, initScale, notifyCount);
+            for (MotionEvent event : events) {
+                warmup.onTouch(warmupView, event);
+            }
+
+            View view = new View(context);
+            ViewGestureAttacher attacher = newAttacher(view, initScale, notifyCount);
+            // 最后一个是 UP，会启动回弹动画和 fling，不属于稳定阶段
+            int steadyCount = events.size() - 1;
+
+            int notifyBefore = notifyCount[0];
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            for (int i = 0; i < steadyCount; i++) {
+                attacher.onTouch(view, events.get(i));
+            }
+            Debug.stopAllocCounting();
+            int allocCount = Debug.getThreadAllocCount();
+            attacher.onTouch(view, events.get(steadyCount));
+
+            for (MotionEvent event : events) {
+                event.recycle();
+            }
+            assertTrue(notifyCount[0] > notifyBefore);
+            assertEquals("allocations during replayed gesture", 0, allocCount);
+        });
+    }
+
+    private static ViewGestureAttacher newAttacher(View view, float initScale, int[] notifyCount) {
+        view.layout(0, 0, 1080, 1920);
+        ViewGestureAttacher attacher = new ViewGestureAttacher(view, 4000, 3000);
+        attacher.setMatrixListener(matrix -> notifyCount[0]++);
+        attacher.update();
+        attacher.scaleTo(initScale, false, false);
+        return attacher;
+    }
+
+    private static List<MotionEvent> buildDrag() {
+        List<MotionEvent> events = new ArrayList<>();
+        long t = 0;
+        float x = 540, y = 960;
+        events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_DOWN, x, y, 0));
+        for (int i = 0; i < MOVES; i++) {
+            t += 8;
+            x -= 5;
+            y -= 3;
+            events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_MOVE, x, y, 0));
+        }
+        events.add(MotionEvent.obtain(0, t + 100, MotionEvent.ACTION_UP, x, y, 0));
+        return events;
+    }
+
+    private static List<MotionEvent> buildPinch() {
+        List<MotionEvent> events = new ArrayList<>();
+        MotionEvent.PointerProperties[] props = new MotionEvent.PointerProperties[2];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[2];
+        for (int i = 0; i < 2; i++) {
+            props[i] = new MotionEvent.PointerProperties();
+            props[i].id = i;
+            props[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+        }
+        long t = 0;
+        float radius = 100;
+        setPinch(coords, radius);
+        events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_DOWN, 1, props, coords,
+                0, 0, 1, 1, 0, 0, 0, 0));
+        events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_POINTER_DOWN | (1 << 8), 2,
+                props, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+        for (int i = 0; i < MOVES; i++) {
+            t += 8;
+            radius += 6;
+            setPinch(coords, radius);
+            events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_MOVE, 2, props, coords,
+                    0, 0, 1, 1, 0, 0, 0, 0));
+        }
+        events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_POINTER_UP | (1 << 8), 2,
+                props, coords, 0, 0, 1, 1, 0, 0, 0, 0));
+        events.add(MotionEvent.obtain(0, t, MotionEvent.ACTION_UP, 1, props, coords,
+                0, 0, 1, 1, 0, 0, 0, 0));
+        return events;
+    }
+
+    private static void setPinch(MotionEvent.PointerCoords[] coords, float radius) {
+        coords[0].x = 540 - radius;
+        coords[0].y = 960;
+        coords[1].x = 540 + radius;
+        coords[1].y = 960;
+    }
+}
@@ -0,0 +1,92 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Debug;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+import com.kejin.android.gesture.view.ViewGestureAttacherPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回收的 attacher 绑定到新的 view 时复用，不能有任何对象分配
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewGestureAttacherPoolTest {
+
+    @Test
+    public void recycledAttacherIsRebound() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            ViewGestureAttacherPool pool = new ViewGestureAttacherPool(2);
+
+            View first = newView(context);
+            ViewGestureAttacher attacher = pool.obtain(first, 4000, 3000);
+            attacher.scaleTo(3, false, false);
+            pool.recycle(attacher);
+            assertEquals(1, pool.getSize());
+
+            View second = newView(context);
+            ViewGestureAttacher reused = pool.obtain(second, 1000, 2000);
+            assertSame(attacher, reused);
+            assertEquals(0, pool.getSize());
+            assertTrue(reused.isSameImageSize(1000, 2000));
+            assertEquals(1, reused.getScale(), 1e-4f);
+            assertEquals(1, pool.getHitCount());
+            assertEquals(1, pool.getMissCount());
+
+            // 之前的 view 不再把触摸事件交给 attacher
+            MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 540, 960, 0);
+            assertFalse(first.dispatchTouchEvent(down));
+            assertTrue(second.dispatchTouchEvent(down));
+            down.recycle();
+        });
+    }
+
+    @Test
+    public void rebindDoesNotAllocate() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            ViewGestureAttacherPool pool = new ViewGestureAttacherPool(1);
+            int[] notifyCount = new int[1];
+            View first = newView(context);
+            View second = newView(context);
+
+            // 预热，两个 view 都注册过一次 listener
+            ViewGestureAttacher attacher = pool.obtain(first, 4000, 3000);
+            attacher.rebind(second, 3000, 4000);
+            attacher.rebind(first, 4000, 3000);
+
+            attacher.setMatrixListener(matrix -> notifyCount[0]++);
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            attacher.rebind(second, 3000, 4000);
+            attacher.rebind(second, 2000, 2000);
+            Debug.stopAllocCounting();
+            int allocCount = Debug.getThreadAllocCount();
+
+            assertEquals(2, notifyCount[0]);
+            assertEquals("allocations during rebind", 0, allocCount);
+        });
+    }
+
+    private static View newView(Context context) {
+        View view = new View(context);
+        view.layout(0, 0, 1080, 1920);
+        return view;
+    }
+}
@@ -0,0 +1,123 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.RectF;
+import android.os.Debug;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+import com.kejin.android.gesture.view.ViewportLinkGroup;
+import com.kejin.android.gesture.view.ViewportSnapshot;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 联动的 attacher 跟随驱动方，每次变化每个成员只分发一次，不会传回驱动方
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewportLinkGroupTest {
+
+    @Test
+    public void membersFollowDriverWithoutFeedback() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            int[] sizes = {4000, 3000, 2000, 1500, 1000, 750};
+            ViewGestureAttacher[] attachers = new ViewGestureAttacher[3];
+            int[] notifyCounts = new int[3];
+            ViewportLinkGroup group = new ViewportLinkGroup();
+            for (int i = 0; i < attachers.length; i++) {
+                View view = new View(context);
+                view.layout(0, 0, 1080, 1920);
+                attachers[i] = new ViewGestureAttacher(view, sizes[i * 2], sizes[i * 2 + 1]);
+                int index = i;
+                attachers[i].setMatrixListener(matrix -> notifyCounts[index]++);
+                attachers[i].update();
+                group.add(attachers[i]);
+            }
+
+            // 预热
+            attachers[0].scaleTo(2, 300, 400, true, false);
+            attachers[0].scaleTo(3, 300, 400, true, false);
+            for (int i = 0; i < notifyCounts.length; i++) {
+                notifyCounts[i] = 0;
+            }
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            attachers[0].scaleTo(4, 500, 700, true, false);
+            Debug.stopAllocCounting();
+            int allocCount = Debug.getThreadAllocCount();
+
+            assertEquals(0, allocCount);
+            for (int count : notifyCounts) {
+                assertEquals(1, count);
+            }
+
+            ViewportSnapshot driver = new ViewportSnapshot();
+            ViewportSnapshot follower = new ViewportSnapshot();
+            attachers[0].saveViewport(driver);
+            for (int i = 1; i < attachers.length; i++) {
+                attachers[i].saveViewport(follower);
+                assertEquals(driver.getScale(), follower.getScale(), 1e-9);
+                // 宽高比不同的成员按自己的边界修正，不露出空白
+                RectF rect = attachers[i].getDisplayRect();
+                assertTrue(rect.left <= 0.01f && rect.top <= 0.01f);
+                assertTrue(rect.right >= 1079.99f && rect.bottom >= 1919.99f);
+            }
+            // 宽高比相同的成员显示同一个位置
+            attachers[2].saveViewport(follower);
+            assertEquals(driver.getFocusX() / driver.getImageWidth(),
+                    follower.getFocusX() / follower.getImageWidth(), 1e-6);
+            assertEquals(driver.getFocusY() / driver.getImageHeight(),
+                    follower.getFocusY() / follower.getImageHeight(), 1e-6);
+
+            // 换一个驱动方，之前的驱动方跟随
+            attachers[2].scaleTo(2, false, false);
+            assertEquals(2, attachers[0].getScale(), 1e-4f);
+            assertEquals(2, notifyCounts[0]);
+
+            group.remove(attachers[1]);
+            attachers[0].scaleTo(1, false, false);
+            assertEquals(2, attachers[1].getScale(), 1e-4f);
+            assertEquals(1, attachers[2].getScale(), 1e-4f);
+        });
+    }
+
+    @Test
+    public void membershipKeepsFrameAlignedAndSurvivesRebind() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            Context context = instrumentation.getTargetContext();
+            View view = new View(context);
+            view.layout(0, 0, 1080, 1920);
+            ViewGestureAttacher attacher = new ViewGestureAttacher(view, 4000, 3000);
+            ViewportLinkGroup group = new ViewportLinkGroup();
+            assertFalse(attacher.isFrameAlignedNotify());
+
+            group.add(attacher);
+            assertTrue(attacher.isFrameAlignedNotify());
+            attacher.setFrameAlignedNotify(false);
+            assertTrue(attacher.isFrameAlignedNotify());
+
+            View other = new View(context);
+            other.layout(0, 0, 1080, 1920);
+            attacher.rebind(other, 3000, 4000);
+            assertSame(group, attacher.getLinkGroup());
+            assertEquals(1, group.size());
+
+            group.remove(attacher);
+            assertFalse(attacher.isFrameAlignedNotify());
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package com.kejin.view.gesture;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.RectF;
+import android.os.Debug;
+import android.os.Parcel;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.kejin.android.gesture.view.ViewGestureAttacher;
+import com.kejin.android.gesture.view.ViewGestureAttacherPool;
+import com.kejin.android.gesture.view.ViewportCache;
+import com.kejin.android.gesture.view.ViewportSnapshot;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 显示区域的保存和恢复
+ */
+@RunWith(AndroidJUnit4.class)
+public class ViewportSnapshotTest {
+
+    @Test
+    public void restoreInSameViewIsExact() {
+        runOnMain(context -> {
+            int[] notifyCount = new int[1];
+            View view = newView(context, 1080, 1920);
+            ViewGestureAttacher attacher = newAttacher(view, notifyCount);
+            attacher.scaleTo(3, 200, 300, true, false);
+            RectF expected = new RectF(attacher.getDisplayRect());
+
+            ViewportSnapshot snapshot = new ViewportSnapshot();
+            attacher.saveViewport(snapshot);
+            assertTrue(snapshot.isValid());
+
+            ViewGestureAttacher restored = newAttacher(newView(context, 1080, 1920), notifyCount);
+            restored.setMatrixListener(null);
+            // 预热一次，之后恢复不能有分配
+            restored.restoreViewport(snapshot);
+            restored.update();
+
+            int[] restoreNotify = new int[1];
+            restored.setMatrixListener(matrix -> restoreNotify[0]++);
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            attacher.saveViewport(snapshot);
+            restored.restoreViewport(snapshot);
+            Debug.stopAllocCounting();
+            int allocCount = Debug.getThreadAllocCount();
+
+            assertEquals(1, restoreNotify[0]);
+            assertEquals(0, allocCount);
+            assertRectEquals(expected, restored.getDisplayRect());
+        });
+    }
+
+    @Test
+    public void restoreFromPoolComputesOnce() {
+        runOnMain(context -> {
+            ViewGestureAttacher attacher = newAttacher(newView(context, 1080, 1920), new int[1]);
+            attacher.scaleTo(3, 200, 300, true, false);
+            RectF expected = new RectF(attacher.getDisplayRect());
+            ViewportSnapshot snapshot = new ViewportSnapshot();
+            attacher.saveViewport(snapshot);
+
+            ViewGestureAttacherPool pool = new ViewGestureAttacherPool(1);
+            pool.recycle(attacher);
+            int[] notifyCount = new int[1];
+            ViewGestureAttacher reused = pool.obtain(newView(context, 1080, 1920), 4000, 3000);
+            reused.setMatrixListener(matrix -> notifyCount[0]++);
+            assertTrue(reused.restoreViewport(snapshot));
+
+            assertEquals(1, notifyCount[0]);
+            assertRectEquals(expected, reused.getDisplayRect());
+        });
+    }
+
+    @Test
+    public void restoreInResizedViewKeepsCenter() {
+        runOnMain(context -> {
+            View view = newView(context, 1080, 1920);
+            ViewGestureAttacher attacher = newAttacher(view, new int[1]);
+            attacher.scaleTo(4, 600, 1000, true, false);
+            ViewportSnapshot snapshot = new ViewportSnapshot();
+            attacher.saveViewport(snapshot);
+
+            ViewGestureAttacher restored = newAttacher(newView(context, 1920, 1080), new int[1]);
+            restored.restoreViewport(snapshot);
+
+            assertEquals(attacher.getScale(), restored.getScale(), 1e-4f);
+            ViewportSnapshot after = new ViewportSnapshot();
+            restored.saveViewport(after);
+            assertEquals(snapshot.getFocusX(), after.getFocusX(), 0.5);
+            assertEquals(snapshot.getFocusY(), after.getFocusY(), 0.5);
+        });
+    }
+
+    @Test
+    public void mismatchedImageIsIgnored() {
+        runOnMain(context -> {
+            ViewGestureAttacher attacher = newAttacher(newView(context, 1080, 1920), new int[1]);
+            attacher.scaleTo(3, false, false);
+            ViewportSnapshot snapshot = new ViewportSnapshot();
+            attacher.saveViewport(snapshot);
+
+            View other = newView(context, 1080, 1920);
+            ViewGestureAttacher restored = new ViewGestureAttacher(other, 2000, 2000);
+            restored.restoreViewport(snapshot);
+            restored.update();
+            assertEquals(1, restored.getScale(), 1e-4f);
+        });
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsed() {
+        ViewportCache cache = new ViewportCache(2);
+        ViewportSnapshot snapshot = new ViewportSnapshot();
+        assertFalse(snapshot.isValid());
+        runOnMain(context -> {
+            ViewGestureAttacher attacher = newAttacher(newView(context, 1080, 1920), new int[1]);
+            attacher.saveViewport(snapshot);
+        });
+        cache.put("a", snapshot);
+        cache.put("b", snapshot);
+        assertNotNull(cache.get("a"));
+        cache.put("c", snapshot);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cacheSurvivesParcel() {
+        ViewportCache cache = new ViewportCache(4);
+        ViewportSnapshot snapshot = new ViewportSnapshot();
+        runOnMain(context -> {
+            ViewGestureAttacher attacher = newAttacher(newView(context, 1080, 1920), new int[1]);
+            attacher.scaleTo(2.5f, 100, 100, true, false);
+            attacher.saveViewport(snapshot);
+        });
+        cache.put("page7", snapshot);
+
+        Parcel parcel = Parcel.obtain();
+        cache.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        ViewportCache restored = ViewportCache.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+
+        ViewportSnapshot read = restored.get("page7");
+        assertNotNull(read);
+        assertEquals(4, restored.getMaxSize());
+        assertEquals(snapshot.getScale(), read.getScale(), 0);
+        assertEquals(snapshot.getTransX(), read.getTransX(), 0);
+        assertEquals(snapshot.getFocusY(), read.getFocusY(), 0);
+        assertEquals(snapshot.getImageWidth(), read.getImageWidth());
+    }
+
+    private interface MainAction {
+        void run(Context context);
+    }
+
+    private static void runOnMain(MainAction action) {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> action.run(instrumentation.getTargetContext()));
+    }
+
+    private static View newView(Context context, int width, int height) {
+        View view = new View(context);
+        view.layout(0, 0, width, height);
+        return view;
+    }
+
+    private static ViewGestureAttacher newAttacher(View view, int[] notifyCount) {
+        ViewGestureAttacher attacher = new ViewGestureAttacher(view, 4000, 3000);
+        attacher.setMatrixListener(matrix -> notifyCount[0]++);
+        attacher.update();
+        return attacher;
+    }
+
+    private static void assertRectEquals(RectF expected, RectF actual) {
+        assertEquals(expected.left, actual.left, 0.01f);
+        assertEquals(expected.top, actual.top, 0.01f);
+        assertEquals(expected.right, actual.right, 0.01f);
+        assertEquals(expected.bottom, actual.bottom, 0.01f);
+    }
+}
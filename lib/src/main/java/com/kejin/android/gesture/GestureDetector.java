@@ -1,124 +1,180 @@
 package com.kejin.android.gesture;
 
 import android.content.Context;
-import android.graphics.PointF;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.Scroller;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.kejin.android.gesture.core.FlingPhysics;
+import com.kejin.android.gesture.core.FrameSource;
+import com.kejin.android.gesture.core.GestureAnimator;
+import com.kejin.android.gesture.core.GestureClock;
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.TouchResampler;
+
 /**
  * 支持双指缩放，双指旋转，单/双指移动，Fling
  * 支持点击，双击，长按
  * 支持slide检测
  * 支持单指缩放，旋转
+ * 识别逻辑在 {@link GestureRecognizer} 中，这里只负责把 MotionEvent 转换为原始采样
  */
 public class GestureDetector {
+    /**
+     * 预测时间的上限
+     */
+    public static final float MAX_PREDICTION_MILLIS = 16;
+
     private final Context context;
-    private final Handler handler;
+    private final GestureClock clock;
 
     private final GestureListener listener;
+    private final GestureRecognizer recognizer;
 
-    private final PointF lastPoint = new PointF();
-    private final PointF downPoint = new PointF();
-    private long downTouchPts = -1; // 按下的时间
-    private boolean allPointValidClick = false;
-    private float clickRangeThreshold;
-    private float pendingClickX = 0, pendingClickY = 0;
-    private Runnable pendingClick = null;
-    private boolean doubleClickEnable = false;
-
-    private final PointF dragFirstPointer = new PointF();
-    private final PointF dragSecondPointer = new PointF();
-    private float sumDragX = 0, sumDragY = 0;
-    private float dragThreshold;
-    private boolean startDragFlag = false;
-    private VelocityTracker velocityTracker = null;
-    private FlingRunnable flingRunnable = null;
-
-    private float scaleThreshold;
-    private boolean startScaleFlag = false;
-    private final PointF scaleFirstPointer = new PointF();
-    private final PointF scaleSecondPointer = new PointF();
-
-    private float rotateThreshold;
-    private boolean startRotateFlag = false;
-    private final PointF rotateFirstPointer = new PointF();
-    private final PointF rotateSecondPointer = new PointF();
+    private final int[] pointerIds = new int[GestureRecognizer.MAX_POINTERS];
+    private final float[] pointerXs = new float[GestureRecognizer.MAX_POINTERS];
+    private final float[] pointerYs = new float[GestureRecognizer.MAX_POINTERS];
 
-    /**
-     * slide动作检测，和 drag 还有单指 单指旋转缩放时冲突的
-     */
-    private boolean slideDetectEnable = false;
-    private int slideThreshold;
+    private boolean historicalSamplesEnable = false;
 
-    private TouchPointer curTouchPointer = null;
-    private boolean isTouchMoving = false;
+    // ACTION_MOVE 的重采样，开启后在每帧开始时把位置重采样到帧时间再交给 recognizer
+    private boolean resampleEnable = false;
+    private long predictionNanos = 0;
+    private final TouchResampler resampler = new TouchResampler();
+    private final float[] resampledXs = new float[GestureRecognizer.MAX_POINTERS];
+    private final float[] resampledYs = new float[GestureRecognizer.MAX_POINTERS];
+    private boolean resamplePending = false;
+    private boolean frameScheduled = false;
+    private final Choreographer.FrameCallback resampleCallback = this::doResampleFrame;
 
-    private View gestureView = null;
+    // fling 和 attacher 的平移，缩放动画共用一个帧回调
+    private final GestureAnimator animator;
 
     public GestureDetector(@NonNull Context context, @NonNull GestureListener listener) {
+        this(context, listener, null);
+    }
+
+    /**
+     * @param clock 时间源和延时任务调度，为 null 时使用主线程的 Handler 和 SystemClock.uptimeMillis
+     */
+    public GestureDetector(@NonNull Context context, @NonNull GestureListener listener,
+                           @Nullable GestureClock clock) {
         this.context = context;
-        this.handler = new Handler(Looper.getMainLooper());
+        this.clock = clock != null ? clock : new HandlerClock();
         this.listener = listener;
+        this.animator = new GestureAnimator(new ChoreographerFrameSource(), listener);
+        this.recognizer = new GestureRecognizer(listener, new AndroidHost());
         ViewConfiguration vc = ViewConfiguration.get(context);
-        this.dragThreshold = vc.getScaledTouchSlop();
+        this.recognizer.setDragThreshold(vc.getScaledTouchSlop());
+
+        this.recognizer.setClickRangeThreshold(dp2px(20));
+        this.recognizer.setSlideThreshold(dp2px(50));
+        this.recognizer.setScaleThreshold(0.1f);
+        this.recognizer.setRotateThreshold(3);
+    }
 
-        this.clickRangeThreshold = dp2px(20);
-        this.slideThreshold = dp2px(50);
-        this.scaleThreshold = 0.1f;
-        this.rotateThreshold = 3;
+    @NonNull
+    public GestureRecognizer getRecognizer() {
+        return recognizer;
+    }
+
+    /**
+     * 用来调整 fling 的摩擦系数，停止速度和到达边界时的回弹距离
+     */
+    @NonNull
+    public FlingPhysics getFlingPhysics() {
+        return animator.getFlingPhysics();
+    }
+
+    /**
+     * fling 使用的动画引擎，ViewGestureAttacher 的平移和缩放动画也在这上面执行
+     */
+    @NonNull
+    public GestureAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * 替换动画的帧来源，为 null 时使用 Choreographer
+     */
+    public void setFrameSource(@Nullable FrameSource source) {
+        animator.setFrameSource(source != null ? source : new ChoreographerFrameSource());
     }
 
     public void setDoubleClickEnable(boolean enable) {
-        doubleClickEnable = enable;
+        recognizer.setDoubleClickEnable(enable);
     }
 
     /**
      * 如果手指触摸区域超出一定范围就不认为是一次正常的点击
      */
     public void setClickRangeThreshold(int threshold) {
-        clickRangeThreshold = threshold;
+        recognizer.setClickRangeThreshold(threshold);
     }
 
     public void setDragThreshold(int threshold) {
-        dragThreshold = threshold;
+        recognizer.setDragThreshold(threshold);
     }
 
     public void setScaleThreshold(float threshold) {
-        scaleThreshold = threshold;
+        recognizer.setScaleThreshold(threshold);
     }
 
     public void setRotateThreshold(float threshold) {
-        rotateThreshold = threshold;
+        recognizer.setRotateThreshold(threshold);
     }
 
     /**
      * 单手拖动和检测slide 是冲突的
      */
     public void setSlideDetectEnable(boolean enable) {
-        slideDetectEnable = enable;
+        recognizer.setSlideDetectEnable(enable);
     }
 
     public void setSlideThreshold(int threshold) {
-        slideThreshold = threshold;
+        recognizer.setSlideThreshold(threshold);
     }
 
     /**
-     * 单指缩放，旋转，需要给定一个旋转的中心点
+     * 高采样率的屏幕会把多个采样合并到一个 ACTION_MOVE 中
+     * 开启后每个历史采样都会参与拖动，缩放，旋转的计算，回调的次数也会相应增加
+     * 关闭时历史采样只参与速度计算
      */
-    private boolean singlePointerScaleRotateEnable = false;
-    private float singlePointerScaleRotateCenterX = 0;
-    private float singlePointerScaleRotateCenterY = 0;
+    public void setHistoricalSamplesEnable(boolean enable) {
+        historicalSamplesEnable = enable;
+    }
+
+    /**
+     * 开启后 ACTION_MOVE 不再立即处理，而是在每帧开始时把位置重采样到帧时间 (加上预测时间) 再处理，
+     * 每帧最多处理一次移动，每帧的位移更均匀，90/120Hz 的屏幕上拖动更跟手
+     * 速度计算仍然使用原始采样，DOWN / UP / POINTER_DOWN / POINTER_UP 之前会先处理最近的原始位置
+     */
+    public void setTouchResampleEnable(boolean enable) {
+        if (resampleEnable == enable) {
+            return;
+        }
+        // 关闭时还没处理的采样在已经安排的下一帧，或者下一个事件之前处理
+        resampleEnable = enable;
+    }
+
+    /**
+     * 重采样时按最近的速度向前预测的时间，外推的时间不超过最近两个采样的间隔，转向时不外推
+     * @param millis 0 - {@link #MAX_PREDICTION_MILLIS}
+     */
+    public void setTouchPrediction(float millis) {
+        millis = Math.max(0, Math.min(millis, MAX_PREDICTION_MILLIS));
+        predictionNanos = (long) (millis * 1_000_000L);
+    }
 
     public void disableSinglePointerScaleRotate() {
-        singlePointerScaleRotateEnable = false;
+        recognizer.disableSinglePointerScaleRotate();
     }
 
     /**
@@ -127,30 +183,34 @@ public class GestureDetector {
      * @param cy 锚点y
      */
     public void enableSinglePointerScaleRotate(float cx, float cy) {
-        singlePointerScaleRotateEnable = true;
-        this.singlePointerScaleRotateCenterX = cx;
-        this.singlePointerScaleRotateCenterY = cy;
+        recognizer.enableSinglePointerScaleRotate(cx, cy);
+    }
+
+    /**
+     * 停止 fling 和重采样，丢弃当前的触摸状态，不产生任何回调，所有设置保持不变
+     * 复用到新的 view 之前调用
+     */
+    public void reset() {
+        animator.reset();
+        cancelResampleFrame();
+        resamplePending = false;
+        resampler.reset();
+        recognizer.reset();
     }
 
     public boolean isDragging() {
-        return singlePointerDragStartFlag || startDragFlag;
+        return recognizer.isDragging();
     }
 
     public boolean isScaling() {
-        return startScaleFlag;
+        return recognizer.isScaling();
     }
 
     public boolean isRotating() {
-        return startRotateFlag;
+        return recognizer.isRotating();
     }
 
     public void onTouchEvent(@Nullable View view, @NonNull MotionEvent event) {
-        gestureView = view;
-
-        if (velocityTracker == null) {
-            velocityTracker = VelocityTracker.obtain();
-        }
-        velocityTracker.addMovement(event);
 
         listener.onTouchEventBefore(event);
 //        ILOG.utilsInfo("GestureDetector event: " + event);
@@ -158,496 +218,213 @@ public class GestureDetector {
         if (action == MotionEvent.ACTION_DOWN) {
             listener.onTouchBeg(event);
         }
-        switch (action) {
-            case MotionEvent.ACTION_POINTER_DOWN:
-                if (flingRunnable != null) {
-                    flingRunnable.cancelFling();
-                    flingRunnable = null;
-                }
-                if (event.getPointerCount() > 1 && curTouchPointer != TouchPointer.MULTI_POINTER) {
-                    TouchPointer lastTouchMode = curTouchPointer;
-                    // 切换为多指操作
-                    curTouchPointer = TouchPointer.MULTI_POINTER;
-                    if (lastTouchMode == TouchPointer.SINGLE_POINTER && isTouchMoving) {
-                        // 单指模式, 立即结束
-                        callSinglePointerMove(MotionEvent.ACTION_UP, lastPoint.x, lastPoint.y);
-                    }
-
-                    isTouchMoving = false;
-                    startDragFlag = false;
-                    startScaleFlag = false;
-                }
-                break;
-
-            case MotionEvent.ACTION_DOWN:
-                velocityTracker.clear();
-                sumDragX = 0;
-                sumDragY = 0;
-                if (flingRunnable != null) {
-                    flingRunnable.cancelFling();
-                    flingRunnable = null;
-                }
-                if (event.getPointerCount() == 1) {
-                    float x = event.getX(), y = event.getY();
-                    curTouchPointer = TouchPointer.SINGLE_POINTER;
-                    lastPoint.set(x, y);
-                    downPoint.set(x, y);
-                    downTouchPts = System.currentTimeMillis();
-                    allPointValidClick = true;
-
-                    isTouchMoving = false;
-                    if (!singlePointerScaleRotateEnable) {
-                        onSingleTouchMove(x, y);
-                    }
-                }
-                break;
-
-            case MotionEvent.ACTION_MOVE:
-                if (curTouchPointer == TouchPointer.SINGLE_POINTER) {
-                    if (singlePointerScaleRotateEnable) {
-                        onSinglePointerRotateScale(event);
-                        break;
-                    }
-                    float x = event.getX(), y = event.getY();
-                    onSingleTouchMove(x, y);
-
-                    lastPoint.set(x, y);
-                    allPointValidClick = allPointValidClick &&
-                            PointF.length(x - downPoint.x, y - downPoint.y) < clickRangeThreshold;
-                } else if (curTouchPointer == TouchPointer.MULTI_POINTER) {
-                    onMultiTouchMode(event);
-                }
-                break;
-
-            case MotionEvent.ACTION_POINTER_UP:
-                if (curTouchPointer == TouchPointer.MULTI_POINTER) {
-                    isTouchMoving = false; // 重新计算
-                }
-                break;
-
-            case MotionEvent.ACTION_CANCEL:
-            case MotionEvent.ACTION_UP:
-                if (curTouchPointer == TouchPointer.SINGLE_POINTER) {
-                    float x = event.getX(), y = event.getY();
-                    if (allPointValidClick && !startDragFlag &&
-                            !startRotateFlag && !startScaleFlag && !singlePointerDragStartFlag) {
-                        long times = System.currentTimeMillis() - downTouchPts;
-                        if (times < 200) {
-                            if (doubleClickEnable) {
-                                if (pendingClick != null) {
-                                    handler.removeCallbacks(pendingClick);
-                                    pendingClick = null;
-                                    listener.onDoubleClick(x, y);
-                                } else {
-                                    pendingClickX = x;
-                                    pendingClickY = y;
-                                    pendingClick = () -> {
-                                        if (pendingClick != null) {
-                                            listener.onClick(pendingClickX, pendingClickY);
-                                        }
-                                        pendingClick = null;
-                                    };
-                                    handler.postDelayed(pendingClick, 300);
-                                }
-                            } else {
-                                listener.onClick(x, y);
-                            }
-                        } else if (times >= 500) {
-                            listener.onLongClick(x, y);
-                        }
-                    }
-
-                    if (!singlePointerScaleRotateEnable) {
-                        if (!isTouchMoving) {
-                            callSinglePointerMove(MotionEvent.ACTION_DOWN, x, y);
-                        }
-                        callSinglePointerMove(MotionEvent.ACTION_UP, x, y);
-                    }
-                }
-
-                if (startDragFlag || singlePointerDragStartFlag) {
-                    onDragEnd(singlePointerDragStartFlag);
-                }
-                boolean singlePointer = curTouchPointer != TouchPointer.MULTI_POINTER;
-                if (startScaleFlag) {
-                    listener.onScaleEnd(lastScaleCenterX, lastScaleCenterY, singlePointer);
-                }
-                if (startRotateFlag) {
-                    listener.onRotateEnd(singlePointer);
-                }
-
-                isTouchMoving = false;
-                startDragFlag = false;
-                startScaleFlag = false;
-                startRotateFlag = false;
-                singlePointerDragStartFlag = false;
-                sumDragX = 0;
-                sumDragY = 0;
-                lastPoint.set(0, 0);
-                curTouchPointer = null;
-                velocityTracker.clear();
-                break;
-        }
-
-        listener.onTouchEventAfter(event);
-    }
-
-    private void onDragging(float x, float y, float dx, float dy, boolean singlePointerDrag) {
-        sumDragX += dx;
-        sumDragY += dy;
-        listener.onDrag(x, y, dx, dy, sumDragX, sumDragY, singlePointerDrag);
-    }
-
-    private void onDragEnd(boolean singlePointerDrag) {
-        int vX = 0, vY = 0;
-        if (velocityTracker != null) {
-            velocityTracker.computeCurrentVelocity(1000);
-
-            vX = (int) velocityTracker.getXVelocity();
-            vY = (int) velocityTracker.getYVelocity();
-        }
 
-        if (flingRunnable != null) {
-            flingRunnable.cancelFling();
-            flingRunnable = null;
+        int pointerCount = Math.min(event.getPointerCount(), GestureRecognizer.MAX_POINTERS);
+        for (int i = 0; i < pointerCount; i++) {
+            pointerIds[i] = event.getPointerId(i);
         }
-
-        if (listener.onDragEnd(sumDragX, sumDragY, vX, vY, singlePointerDrag)) {
+        if (resampleEnable && action == MotionEvent.ACTION_MOVE) {
+            addResampleSamples(event, pointerCount);
+            listener.onTouchEventAfter(event);
             return;
         }
-
-        if (vX == 0 && vY == 0) {
-            return;
+        flushResample();
+        if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_UP ||
+                action == MotionEvent.ACTION_CANCEL) {
+            cancelResampleFrame();
+            resampler.reset();
+        } else if (action == MotionEvent.ACTION_POINTER_DOWN || action == MotionEvent.ACTION_POINTER_UP) {
+            resampler.removePointer(event.getPointerId(event.getActionIndex()));
         }
-
-        flingRunnable = new FlingRunnable(context, singlePointerDrag);
-        flingRunnable.startFling(vX, vY);
-    }
-
-    private void onSingleTouchMove(float x, float y) {
-//        if (!cachedPoints.isEmpty()) {
-//            for (PointF point : cachedPoints) {
-//                if (!isTouchMoving) {
-//                    callSinglePointerMove(MotionEvent.ACTION_DOWN, point.x, point.y);
-//                    isTouchMoving = true;
-//                } else {
-//                    callSinglePointerMove(MotionEvent.ACTION_MOVE, point.x, point.y);
-//                }
-//            }
-//            cachedPoints.clear();
-//        }
-
-        if (!isTouchMoving) {
-            callSinglePointerMove(MotionEvent.ACTION_DOWN, x, y);
-            isTouchMoving = true;
-        } else {
-            callSinglePointerMove(MotionEvent.ACTION_MOVE, x, y);
-        }
-    }
-
-    private final PointF singleLastDragPoint = new PointF();
-    private boolean singlePointerDragStartFlag = false;
-    private long singlePointerDownTouchPts = 0;
-
-    private void callSinglePointerMove(int action, float x, float y) {
-        if (!slideDetectEnable) {
-            float dx, dy;
-            switch (action) {
-                case MotionEvent.ACTION_DOWN:
-                    singleLastDragPoint.set(x, y);
-                    singlePointerDragStartFlag = false;
-                    break;
-
-                case MotionEvent.ACTION_MOVE:
-                    dx = x - singleLastDragPoint.x;
-                    dy = y - singleLastDragPoint.y;
-                    if (singlePointerDragStartFlag) {
-                        onDragging(x, y, dx, dy, true);
-                        singleLastDragPoint.set(x, y);
-                    }
-                    if (!singlePointerDragStartFlag && Math.sqrt(dx * dx + dy * dy) > dragThreshold) {
-                        singlePointerDragStartFlag = true;
-                        singleLastDragPoint.set(x, y);
-                        listener.onDragStart(x, y, x, y, true);
-                    }
-                    break;
-
-                case MotionEvent.ACTION_UP:
-                    dx = x - singleLastDragPoint.x;
-                    dy = y - singleLastDragPoint.y;
-                    if (singlePointerDragStartFlag) {
-                        onDragging(x, y, dx, dy, true);
-                        singleLastDragPoint.set(x, y);
-                    }
-                    break;
+        int historySize = action == MotionEvent.ACTION_MOVE ? event.getHistorySize() : 0;
+        for (int h = 0; h < historySize; h++) {
+            for (int i = 0; i < pointerCount; i++) {
+                pointerXs[i] = event.getHistoricalX(i, h);
+                pointerYs[i] = event.getHistoricalY(i, h);
             }
-        } else {
-            switch (action) {
-                case MotionEvent.ACTION_DOWN:
-                    singleLastDragPoint.set(x, y);
-                    singlePointerDownTouchPts = System.currentTimeMillis();
-                    break;
-
-                case MotionEvent.ACTION_UP:
-                    float dx = x - singleLastDragPoint.x;
-                    float dy = y - singleLastDragPoint.y;
-                    float dis = (float) Math.sqrt(dx * dx + dy * dy);
-                    long spendTime = System.currentTimeMillis() - singlePointerDownTouchPts;
-                    if (spendTime < 500 && dis > slideThreshold) {
-                        float degree = (float) (Math.asin(dy/dis) * 180/Math.PI);
-                        if (Math.abs(degree) < 30) {
-                            if (dx < 0) {
-                                // slide left
-                                listener.onSlide(true, false, false, false);
-                            } else {
-                                // slide right
-                                listener.onSlide(false, false, true, false);
-                            }
-                        } else if (Math.abs(degree) > 60) {
-                            if (dy < 0) {
-                                // slide up
-                                listener.onSlide(false, true, false, false);
-                            } else {
-                                // slide down
-                                listener.onSlide(false, false, false, true);
-                            }
-                        }
-                    }
-                    break;
+            long eventTime = event.getHistoricalEventTime(h);
+            if (historicalSamplesEnable) {
+                recognizer.onTouchEvent(action, 0, eventTime,
+                        pointerCount, pointerIds, pointerXs, pointerYs);
+            } else {
+                recognizer.addMovement(eventTime, pointerCount, pointerIds, pointerXs, pointerYs);
             }
         }
-    }
+        for (int i = 0; i < pointerCount; i++) {
+            pointerXs[i] = event.getX(i);
+            pointerYs[i] = event.getY(i);
+        }
+        recognizer.onTouchEvent(action, event.getActionIndex(), event.getEventTime(),
+                pointerCount, pointerIds, pointerXs, pointerYs);
 
-    private float lastScaleCenterX = 0, lastScaleCenterY = 0;
-    private void onSinglePointerRotateScale(@NonNull MotionEvent event) {
-        float x0 = event.getX(), y0 = event.getY();
-        float x1 = singlePointerScaleRotateCenterX;
-        float y1 = singlePointerScaleRotateCenterY;
-
-        if (isTouchMoving) {
-            ///////////// scale
-            float curDx = x0 - x1;
-            float curDy = y0 - y1;
-            float distance = (float) Math.sqrt(curDx * curDx + curDy * curDy);
-            float lastDx = scaleFirstPointer.x - scaleSecondPointer.x;
-            float lastDy = scaleFirstPointer.y - scaleSecondPointer.y;
-            float lastDistance = (float) Math.sqrt(lastDx * lastDx + lastDy * lastDy);
-
-            float scale = distance / lastDistance;
-
-            if (startScaleFlag) {
-                //避免图片每次缩放尺寸过大
-                if (scale > 1.05f) {
-                    scale = 1.05f;
-                }
-                lastScaleCenterX = (x0 + x1) / 2f;
-                lastScaleCenterY = (y0 + y1) / 2f;
-                listener.onScale(lastScaleCenterX, lastScaleCenterY, scale, true);
-            } else if (Math.abs(1 - distance / lastDistance) > scaleThreshold) {
-                startScaleFlag = true;
-                listener.onScaleStart(true);
-            }
+        listener.onTouchEventAfter(event);
+    }
 
-            //////////// rotate
-            float degrees = calculateDegrees(x1 - x0, y1 - y0,
-                    rotateSecondPointer.x - rotateFirstPointer.x,
-                    rotateSecondPointer.y - rotateFirstPointer.y);
-            if (startRotateFlag) {
-                listener.onRotate((x0 + x1) / 2f, (y0 + y1) / 2f, degrees, true);
-            } else if (Math.abs(degrees) > rotateThreshold) {
-                startRotateFlag = true;
-                listener.onRotateStart(true);
+    /**
+     * 原始采样只加入 resampler 和速度计算，等下一帧再处理
+     */
+    private void addResampleSamples(@NonNull MotionEvent event, int pointerCount) {
+        int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            for (int i = 0; i < pointerCount; i++) {
+                pointerXs[i] = event.getHistoricalX(i, h);
+                pointerYs[i] = event.getHistoricalY(i, h);
             }
-
-        } else {
-            scaleFirstPointer.set(x0, y0);
-            scaleSecondPointer.set(x1, y1);
-            startScaleFlag = false;
-            rotateFirstPointer.set(x0, y0);
-            rotateSecondPointer.set(x1, y1);
-            startRotateFlag = false;
+            long eventTime = event.getHistoricalEventTime(h);
+            resampler.addSample(eventTime * 1_000_000L, pointerCount, pointerIds, pointerXs, pointerYs);
+            recognizer.addMovement(eventTime, pointerCount, pointerIds, pointerXs, pointerYs);
         }
-
-        isTouchMoving = true;
-
-        if (startScaleFlag) {
-            scaleFirstPointer.set(x0, y0);
-            scaleSecondPointer.set(x1, y1);
+        for (int i = 0; i < pointerCount; i++) {
+            pointerXs[i] = event.getX(i);
+            pointerYs[i] = event.getY(i);
         }
-
-        if (startRotateFlag) {
-            rotateFirstPointer.set(x0, y0);
-            rotateSecondPointer.set(x1, y1);
+        long eventTime = event.getEventTime();
+        resampler.addSample(eventTime * 1_000_000L, pointerCount, pointerIds, pointerXs, pointerYs);
+        recognizer.addMovement(eventTime, pointerCount, pointerIds, pointerXs, pointerYs);
+
+        resamplePending = true;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(resampleCallback);
         }
     }
 
-    private void onMultiTouchMode(@NonNull MotionEvent event) {
-        if (event.getPointerCount() < 2) {
-            isTouchMoving = false;
+    /**
+     * MotionEvent 的事件时间和帧时间都基于 CLOCK_MONOTONIC，可以直接比较
+     */
+    private void doResampleFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (!resamplePending || resampler.isEmpty()) {
             return;
         }
+        resamplePending = false;
+        resampler.resample(frameTimeNanos + predictionNanos, resampledXs, resampledYs);
+        recognizer.onResampledMove(frameTimeNanos / 1_000_000L,
+                resampler.getPointerCount(), resampler.getPointerIds(),
+                resampledXs, resampledYs);
+        listener.onResampledFrame(frameTimeNanos);
+    }
 
-        float x0 = event.getX(0), y0 = event.getY(0);
-        float x1 = event.getX(1), y1 = event.getY(1);
-
-        if (isTouchMoving) {
-            float dx0 = x0 - dragFirstPointer.x;
-            float dy0 = y0 - dragFirstPointer.y;
-            float dx1 = x1 - dragSecondPointer.x;
-            float dy1 = y1 - dragSecondPointer.y;
-
-            if (startDragFlag) {
-                float dx = (dx0 + dx1) / 2;
-                float dy = (dy0 + dy1) / 2;
+    /**
+     * 立即处理还没处理的最近的原始位置
+     * @return 是否有处理
+     */
+    private boolean flushResample() {
+        if (!resamplePending || resampler.isEmpty()) {
+            return false;
+        }
+        resamplePending = false;
+        resampler.getLatest(resampledXs, resampledYs);
+        recognizer.onResampledMove(resampler.getLatestTime() / 1_000_000L,
+                resampler.getPointerCount(), resampler.getPointerIds(),
+                resampledXs, resampledYs);
+        return true;
+    }
 
-                onDragging((x0+x1)/2, (y0+y1)/2, dx, dy, false);
-            } else if (PointF.length(dx0, dy0) > dragThreshold && PointF.length(dx1, dy1) > dragThreshold) {
-                startDragFlag = true;
-                listener.onDragStart(x0, y0, x1, y1, false);
-            }
+    private void cancelResampleFrame() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(resampleCallback);
+        }
+    }
 
-            ///////////// scale
-
-            float curDx = x0 - x1;
-            float curDy = y0 - y1;
-            float distance = (float) Math.sqrt(curDx * curDx + curDy * curDy);
-            float lastDx = scaleFirstPointer.x - scaleSecondPointer.x;
-            float lastDy = scaleFirstPointer.y - scaleSecondPointer.y;
-            float lastDistance = (float) Math.sqrt(lastDx * lastDx + lastDy * lastDy);
-
-            float scale = distance / lastDistance;
-            if (startScaleFlag) {
-                lastScaleCenterX = (x0 + x1) / 2f;
-                lastScaleCenterY = (y0 + y1) / 2f;
-                listener.onScale(lastScaleCenterX, lastScaleCenterY, scale, false);
-            } else if (Math.abs(1 - distance / lastDistance) > scaleThreshold) {
-                startScaleFlag = true;
-                listener.onScaleStart(false);
-            }
+    public float calculateDegrees(float v1x, float v1y, float v2x, float v2y) {
+        return GestureRecognizer.calculateDegrees(v1x, v1y, v2x, v2y);
+    }
 
-            //////////// rotate
+    private int dp2px(int dp) {
+        float density = context.getResources().getConfiguration().densityDpi / 160.0f;
+        density = Math.max(1, density);
+        return (int) (dp * (density < 0.1f ? 3 : density) + 0.5f);
+    }
 
-            float degrees = calculateDegrees(x1 - x0, y1 - y0,
-                    rotateSecondPointer.x - rotateFirstPointer.x, rotateSecondPointer.y - rotateFirstPointer.y);
-            if (startRotateFlag) {
-                listener.onRotate((x0 + x1) / 2f, (y0 + y1) / 2f, degrees, false);
-            } else if (Math.abs(degrees) > rotateThreshold) {
-                startRotateFlag = true;
-                listener.onRotateStart(false);
+    /**
+     * uptimeMillis 和 MotionEvent.getEventTime() 是同一个时间基准
+     */
+    private static class HandlerClock implements GestureClock {
+        // 所有 detector 共用一个主线程 Handler，按 Runnable 移除不会互相影响
+        private static Handler sHandler = null;
+        private final Handler handler;
+
+        HandlerClock() {
+            if (sHandler == null) {
+                sHandler = new Handler(Looper.getMainLooper());
             }
-
-        } else {
-            dragFirstPointer.set(x0, y0);
-            dragSecondPointer.set(x1, y1);
-            startDragFlag = false;
-            scaleFirstPointer.set(x0, y0);
-            scaleSecondPointer.set(x1, y1);
-            startScaleFlag = false;
-            rotateFirstPointer.set(x0, y0);
-            rotateSecondPointer.set(x1, y1);
-            startRotateFlag = false;
+            handler = sHandler;
         }
 
-        isTouchMoving = true;
-        if (startDragFlag) {
-            dragFirstPointer.set(x0, y0);
-            dragSecondPointer.set(x1, y1);
+        @Override
+        public long now() {
+            return SystemClock.uptimeMillis();
         }
 
-        if (startScaleFlag) {
-            scaleFirstPointer.set(x0, y0);
-            scaleSecondPointer.set(x1, y1);
+        @Override
+        public void postAt(Runnable action, long timeMillis) {
+            handler.postAtTime(action, timeMillis);
         }
 
-        if (startRotateFlag) {
-            rotateFirstPointer.set(x0, y0);
-            rotateSecondPointer.set(x1, y1);
+        @Override
+        public void removeCallbacks(Runnable action) {
+            handler.removeCallbacks(action);
         }
     }
 
-    public float calculateDegrees(float v1x, float v1y, float v2x, float v2y) {
-        try {
-            float lastDegrees = (float) Math.atan2(v2y, v2x);
-            float currentDegrees = (float) Math.atan2(v1y, v1x);
-            return (float) Math.toDegrees(currentDegrees - lastDegrees);
-        } catch (Throwable e) {
-            e.printStackTrace();
+    private class AndroidHost implements GestureRecognizer.Host {
+        @Override
+        public long now() {
+            return clock.now();
         }
-        return 0;
-    }
 
-    private int dp2px(int dp) {
-        float density = context.getResources().getConfiguration().densityDpi / 160.0f;
-        density = Math.max(1, density);
-        return (int) (dp * (density < 0.1f ? 3 : density) + 0.5f);
-    }
+        @Override
+        public void postAt(Runnable action, long timeMillis) {
+            clock.postAt(action, timeMillis);
+        }
 
-    private class FlingRunnable implements Runnable {
-        private final Scroller scroller;
-        private int currentX, currentY;
-        private final boolean singlePointer;
+        @Override
+        public void removeCallbacks(Runnable action) {
+            clock.removeCallbacks(action);
+        }
 
-        public FlingRunnable(@NonNull Context context, boolean singlePointer) {
-            scroller = new Scroller(context); // OverScroller 的效果有点奇怪，滑动的方向有一点偏差
-            this.singlePointer = singlePointer;
+        @Override
+        public void startFling(int velocityX, int velocityY, boolean singlePointer) {
+            animator.startFling(velocityX, velocityY, singlePointer);
         }
 
+        @Override
         public void cancelFling() {
-            boolean isRunning = !scroller.isFinished();
-            scroller.forceFinished(true);
-            handler.removeCallbacks(this);
-            if (isRunning) {
-                listener.onFlingEnd(singlePointer);
-            }
+            animator.cancelFling();
         }
+    }
 
-        public boolean isFinished() {
-            return scroller.isFinished();
-        }
+    /**
+     * 帧时间和 System.nanoTime 是同一个时钟，每个实例只服务一个 callback
+     */
+    private static class ChoreographerFrameSource implements FrameSource, Choreographer.FrameCallback {
+        private Callback callback = null;
 
-        public void startFling(int velocityX, int velocityY) {
-            currentX = 0;
-            currentY = 0;
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
 
-            int unit = 100000;
-            scroller.fling(0, 0, velocityX, velocityY, -unit, unit, -unit, unit);
-            handler.post(this);
+        @Override
+        public void postFrameCallback(Callback callback) {
+            this.callback = callback;
+            Choreographer.getInstance().postFrameCallback(this);
         }
 
         @Override
-        public void run() {
-            if (scroller.computeScrollOffset()) {
-                int newX = scroller.getCurrX();
-                int newY = scroller.getCurrY();
-
-                float dx = newX - currentX;
-                float dy = newY - currentY;
-
-//                ILOG.utilsInfo("fling: dx: " + dx + ", dy: " + dy);
-                if (dx != 0 || dy != 0) {
-                    if (listener.onFling(dx, dy, singlePointer)) {
-                        scroller.forceFinished(true);
-                        return;
-                    }
-                }
-
-                currentX = newX;
-                currentY = newY;
-                // Post On animation
-                if (gestureView != null) {
-                    gestureView.postOnAnimation(this);
-                } else {
-                    // 这种方式的动画，不够丝滑
-                    handler.postDelayed(this, 16);
-                }
-            } else {
-                listener.onFlingEnd(singlePointer);
+        public void removeFrameCallback(Callback callback) {
+            if (this.callback == callback) {
+                Choreographer.getInstance().removeFrameCallback(this);
             }
         }
-    }
 
-    enum TouchPointer {
-        SINGLE_POINTER,
-        MULTI_POINTER
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
     }
 }
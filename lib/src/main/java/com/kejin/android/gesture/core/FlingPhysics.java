@@ -0,0 +1,363 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * fling 和回弹的物理模型，位置是时间的解析函数，不做逐帧积分
+ * 不管帧间隔是否均匀，某个时间点的位置都是确定的，不会因为掉帧而少走或者多走
+ * <ul>
+ *     <li>fling: 指数衰减，v(t) = v0 * e^(-kt)，速度低于 minVelocity 时停止</li>
+ *     <li>spring: 临界阻尼弹簧，x(t) = (x0 + (v0 + wx0) t) * e^(-wt)，回到 0 的过程中不会越过 0 超过一次</li>
+ * </ul>
+ * fling 可以设置每个方向的范围，到达边界的时间是解析求出的，之后这个方向停在边界上，
+ * 或者以到达时的速度做一次临界阻尼的回弹，两个方向都停止时整个 fling 结束
+ * 所有时间单位都是纳秒，由调用方传入，可以用假时钟测试；一个实例可以反复使用，不分配对象
+ */
+public class FlingPhysics {
+    public static final float DEFAULT_FRICTION = 1;
+    /**
+     * 和 androidx FlingAnimation 的摩擦系数一致
+     */
+    private static final float FRICTION_SCALE = 4.2f;
+    /**
+     * 低于这个速度 (px/s) 时停止
+     */
+    public static final float DEFAULT_MIN_VELOCITY = 50;
+    /**
+     * 弹簧的刚度，w = sqrt(stiffness)，大约 0.4 秒回到原位
+     */
+    public static final float DEFAULT_SPRING_STIFFNESS = 200;
+    /**
+     * 回弹时距离小于这个值 (px) 并且速度足够小时停止
+     */
+    private static final float SPRING_REST_DISTANCE = 0.5f;
+
+    private static final int MODE_IDLE = 0;
+    private static final int MODE_FLING = 1;
+    private static final int MODE_SPRING = 2;
+
+    private float friction = DEFAULT_FRICTION;
+    private float minVelocity = DEFAULT_MIN_VELOCITY;
+    private float springStiffness = DEFAULT_SPRING_STIFFNESS;
+    private float maxOverscroll = 0;
+
+    private int mode = MODE_IDLE;
+    private long startTime = 0;
+
+    // fling: 初速度大小，衰减系数，不考虑边界时的时长 (秒)
+    private double speed = 0;
+    private double decay = 0;
+    private double duration = 0;
+    private final Axis axisX = new Axis();
+    private final Axis axisY = new Axis();
+
+    // spring: 初始偏移和速度
+    private double springX0 = 0, springY0 = 0;
+    private double springVx0 = 0, springVy0 = 0;
+    private double omega = 0;
+
+    private double x = 0, y = 0;
+    private double lastX = 0, lastY = 0;
+    private double velocityX = 0, velocityY = 0;
+
+    /**
+     * fling 时一个方向的状态
+     */
+    private static final class Axis {
+        double dir;
+        double min = Double.NEGATIVE_INFINITY, max = Double.POSITIVE_INFINITY;
+        // 到达边界的时间 (秒)，不会到达时为无穷大
+        double hitTime;
+        double hitPos;
+        double hitVelocity;
+        double omega;
+        // 这个方向停止的时间 (秒)
+        double endTime;
+        double pos;
+        double velocity;
+    }
+
+    /**
+     * 摩擦系数，越大停得越快
+     */
+    public void setFriction(float friction) {
+        this.friction = Math.max(friction, 0.01f);
+    }
+
+    public void setMinVelocity(float velocity) {
+        this.minVelocity = Math.max(velocity, 1);
+    }
+
+    public void setSpringStiffness(float stiffness) {
+        this.springStiffness = Math.max(stiffness, 1);
+    }
+
+    /**
+     * fling 到达边界时回弹的最大距离，0 表示到达边界立即停止
+     */
+    public void setMaxOverscroll(float distance) {
+        this.maxOverscroll = Math.max(distance, 0);
+    }
+
+    /**
+     * 之后的 fling 每个方向可以移动的范围，相对于 fling 开始的位置，需要包含 0
+     */
+    public void setBounds(float minX, float maxX, float minY, float maxY) {
+        axisX.min = Math.min(minX, 0);
+        axisX.max = Math.max(maxX, 0);
+        axisY.min = Math.min(minY, 0);
+        axisY.max = Math.max(maxY, 0);
+    }
+
+    public void clearBounds() {
+        axisX.min = axisY.min = Double.NEGATIVE_INFINITY;
+        axisX.max = axisY.max = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 开始 fling，位置从 0 开始
+     * @param vx px/s
+     * @param vy px/s
+     */
+    public void fling(long startTimeNanos, float vx, float vy) {
+        reset(startTimeNanos);
+        speed = Math.sqrt((double) vx * vx + (double) vy * vy);
+        if (speed <= minVelocity) {
+            mode = MODE_IDLE;
+            return;
+        }
+        mode = MODE_FLING;
+        decay = friction * FRICTION_SCALE;
+        duration = Math.log(speed / minVelocity) / decay;
+        setupAxis(axisX, vx / speed);
+        setupAxis(axisY, vy / speed);
+        if (axisX.endTime <= 0 && axisY.endTime <= 0) {
+            mode = MODE_IDLE; // 两个方向都已经在边界上
+            return;
+        }
+        velocityX = axisX.dir == 0 || axisX.endTime <= 0 ? 0 : vx;
+        velocityY = axisY.dir == 0 || axisY.endTime <= 0 ? 0 : vy;
+    }
+
+    /**
+     * 解析求出到达边界的时间，s(t) = speed / k * (1 - e^(-kt))
+     */
+    private void setupAxis(Axis axis, double dir) {
+        axis.dir = dir;
+        axis.hitTime = Double.POSITIVE_INFINITY;
+        axis.pos = 0;
+        axis.velocity = 0;
+        if (dir == 0) {
+            axis.endTime = 0;
+            return;
+        }
+        axis.endTime = duration;
+        double bound = dir > 0 ? axis.max : axis.min;
+        if (Double.isInfinite(bound)) {
+            return;
+        }
+        double distance = bound / dir; // 沿运动方向到达边界的路程
+        double remain = 1 - distance * decay / speed;
+        if (remain <= minVelocity / speed) {
+            return; // 停下来之前到不了边界
+        }
+        axis.hitTime = -Math.log(remain) / decay;
+        axis.hitPos = bound;
+        axis.hitVelocity = dir * speed * remain;
+        if (maxOverscroll <= 0 || axis.hitTime == 0) {
+            axis.endTime = axis.hitTime;
+            return;
+        }
+        // 峰值 v / (w * e) 不超过 maxOverscroll
+        axis.omega = Math.max(Math.sqrt(springStiffness),
+                Math.abs(axis.hitVelocity) / (Math.E * maxOverscroll));
+        axis.endTime = axis.hitTime + bounceDuration(Math.abs(axis.hitVelocity), axis.omega);
+    }
+
+    /**
+     * 回弹 v * t * e^(-wt) 回到 SPRING_REST_DISTANCE 以内的时间，牛顿迭代
+     */
+    private static double bounceDuration(double v, double w) {
+        double t = 2 / w;
+        for (int i = 0; i < 8; i++) {
+            double e = Math.exp(-w * t);
+            double f = v * t * e - SPRING_REST_DISTANCE;
+            double df = v * e * (1 - w * t);
+            if (df >= 0) {
+                break;
+            }
+            t -= f / df;
+        }
+        return Math.max(t, 1 / w);
+    }
+
+    /**
+     * 开始回弹，位置从 0 开始，最终停在 (-offsetX, -offsetY)，即偏移回到 0
+     * @param offsetX 当前偏离静止位置的距离
+     * @param offsetY 当前偏离静止位置的距离
+     * @param vx 当前速度 px/s
+     * @param vy 当前速度 px/s
+     */
+    public void spring(long startTimeNanos, float offsetX, float offsetY, float vx, float vy) {
+        reset(startTimeNanos);
+        mode = MODE_SPRING;
+        springX0 = offsetX;
+        springY0 = offsetY;
+        springVx0 = vx;
+        springVy0 = vy;
+        omega = Math.sqrt(springStiffness);
+        velocityX = vx;
+        velocityY = vy;
+    }
+
+    private void reset(long startTimeNanos) {
+        startTime = startTimeNanos;
+        x = y = 0;
+        lastX = lastY = 0;
+        velocityX = velocityY = 0;
+    }
+
+    /**
+     * 计算到给定时间的位置
+     * @return 之后是否还在运动，最后一次返回 false 时位置已经是终点
+     */
+    public boolean update(long timeNanos) {
+        lastX = x;
+        lastY = y;
+        if (mode == MODE_IDLE) {
+            return false;
+        }
+        double t = Math.max(0, timeNanos - startTime) / 1e9;
+        if (mode == MODE_FLING) {
+            updateAxis(axisX, t);
+            updateAxis(axisY, t);
+            x = axisX.pos;
+            y = axisY.pos;
+            velocityX = axisX.velocity;
+            velocityY = axisY.velocity;
+            if (t >= axisX.endTime && t >= axisY.endTime) {
+                mode = MODE_IDLE;
+            }
+        } else {
+            double e = Math.exp(-omega * t);
+            double bx = springVx0 + omega * springX0;
+            double by = springVy0 + omega * springY0;
+            double offsetX = (springX0 + bx * t) * e;
+            double offsetY = (springY0 + by * t) * e;
+            velocityX = (bx - omega * (springX0 + bx * t)) * e;
+            velocityY = (by - omega * (springY0 + by * t)) * e;
+            if (Math.abs(offsetX) < SPRING_REST_DISTANCE && Math.abs(offsetY) < SPRING_REST_DISTANCE &&
+                    Math.abs(velocityX) < minVelocity && Math.abs(velocityY) < minVelocity) {
+                offsetX = offsetY = 0;
+                velocityX = velocityY = 0;
+                mode = MODE_IDLE;
+            }
+            x = offsetX - springX0;
+            y = offsetY - springY0;
+        }
+        return mode != MODE_IDLE;
+    }
+
+    private void updateAxis(Axis axis, double t) {
+        if (axis.dir == 0) {
+            return;
+        }
+        if (t >= axis.endTime) {
+            // 停止: 自然停止的终点，或者边界
+            axis.pos = axis.hitTime <= axis.endTime ? axis.hitPos : axis.dir * finalDistance();
+            axis.velocity = 0;
+        } else if (t < axis.hitTime) {
+            double e = Math.exp(-decay * t);
+            axis.pos = axis.dir * speed / decay * (1 - e);
+            axis.velocity = axis.dir * speed * e;
+        } else {
+            // 越过边界之后的回弹: hitPos + v * tau * e^(-w * tau)
+            double tau = t - axis.hitTime;
+            double e = Math.exp(-axis.omega * tau);
+            axis.pos = axis.hitPos + axis.hitVelocity * tau * e;
+            axis.velocity = axis.hitVelocity * (1 - axis.omega * tau) * e;
+        }
+    }
+
+    /**
+     * 立即停止，位置保持在最后一次 update 的位置
+     */
+    public void cancel() {
+        mode = MODE_IDLE;
+        velocityX = velocityY = 0;
+    }
+
+    public boolean isFinished() {
+        return mode == MODE_IDLE;
+    }
+
+    public boolean isSpring() {
+        return mode == MODE_SPRING;
+    }
+
+    /**
+     * 从开始到现在的位移
+     */
+    public float getX() {
+        return (float) x;
+    }
+
+    public float getY() {
+        return (float) y;
+    }
+
+    /**
+     * 最近一次 update 的位移，所有 delta 的和就是总位移
+     */
+    public float getDeltaX() {
+        return (float) (x - lastX);
+    }
+
+    public float getDeltaY() {
+        return (float) (y - lastY);
+    }
+
+    public float getVelocityX() {
+        return (float) velocityX;
+    }
+
+    public float getVelocityY() {
+        return (float) velocityY;
+    }
+
+    /**
+     * 终点，相对于开始的位置，已经按范围截断
+     */
+    public float getFinalX() {
+        if (mode == MODE_FLING) {
+            return (float) axisFinal(axisX);
+        }
+        return mode == MODE_SPRING ? (float) -springX0 : (float) x;
+    }
+
+    public float getFinalY() {
+        if (mode == MODE_FLING) {
+            return (float) axisFinal(axisY);
+        }
+        return mode == MODE_SPRING ? (float) -springY0 : (float) y;
+    }
+
+    /**
+     * 时长 ms，到达边界时会提前停止
+     */
+    public int getDuration() {
+        if (mode != MODE_FLING) {
+            return 0;
+        }
+        return (int) Math.round(Math.max(axisX.endTime, axisY.endTime) * 1000);
+    }
+
+    private double axisFinal(Axis axis) {
+        if (axis.dir == 0) {
+            return 0;
+        }
+        return axis.hitTime <= axis.endTime ? axis.hitPos : axis.dir * finalDistance();
+    }
+
+    private double finalDistance() {
+        return (speed - minVelocity) / decay;
+    }
+}
@@ -0,0 +1,23 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 动画的帧时钟，Android 上是 Choreographer，测试和回放时可以用 {@link VirtualFrameSource} 手动驱动
+ * 帧时间和 {@link #nanoTime()} 是同一个基准，单位纳秒
+ */
+public interface FrameSource {
+    interface Callback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    /**
+     * 当前时间 ns，和帧时间可以直接相减
+     */
+    long nanoTime();
+
+    /**
+     * 下一帧回调一次
+     */
+    void postFrameCallback(Callback callback);
+
+    void removeFrameCallback(Callback callback);
+}
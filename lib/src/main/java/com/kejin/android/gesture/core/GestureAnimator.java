@@ -0,0 +1,363 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 平移，缩放，fling 共用的动画引擎，每个 detector / attacher 一个，只注册一个帧回调
+ * 每帧先推进所有进行中的通道，全部作用到 {@link GestureTransform} 之后只回调一次 {@link Target}，
+ * 由 Target 统一修正边界并分发一次矩阵变化；fling 的每帧位移仍然通过 GestureCallback.onFling 回调
+ * 进度按帧时间计算，和刷新率无关，帧间隔不均匀时也不会少走或者多走；
+ * 动画开始的第一帧按估计的帧间隔推进，不会空出一帧，估计值来自连续帧的间隔，会自动适应 60/90/120Hz
+ * 所有时间单位都是纳秒，帧来源可以替换，测试时用 {@link VirtualFrameSource} 驱动；运行时不分配对象
+ */
+public class GestureAnimator implements FrameSource.Callback {
+    public static final int CHANNEL_TRANSLATE = 1;
+    public static final int CHANNEL_SCALE = 1 << 1;
+    public static final int CHANNEL_FLING = 1 << 2;
+
+    private static final long DEFAULT_FRAME_INTERVAL = 16_666_667L;
+    private static final long MIN_FRAME_INTERVAL = 4_000_000L;
+    private static final long MAX_FRAME_INTERVAL = 50_000_000L;
+
+    public interface Target {
+        /**
+         * 一帧里所有通道的变化都已经作用到 transform 之后调用一次
+         * @param channels 这一帧有变化的通道 CHANNEL_*
+         * @param fixBound 平移或者缩放通道要求修正边界
+         */
+        void onAnimationFrame(long frameTimeNanos, int channels, boolean fixBound);
+    }
+
+    private FrameSource frameSource;
+    private final GestureCallback listener;
+    private GestureTransform transform = null;
+    private Target target = null;
+
+    private boolean frameScheduled = false;
+    private long lastFrameTime = -1;
+    private long frameInterval = DEFAULT_FRAME_INTERVAL;
+
+    private boolean transRunning = false;
+    private boolean transFixBound = false;
+    private long transStart = -1, transDuration = 0;
+    private double transDx = 0, transDy = 0;
+    private double transLastP = 0;
+
+    private boolean scaleRunning = false;
+    private boolean scaleFixBound = false;
+    private long scaleStart = -1, scaleDuration = 0;
+    private double scaleFrom = 1, scaleTo = 1;
+    private double scaleFocalX = 0, scaleFocalY = 0;
+
+    private final FlingPhysics flingPhysics = new FlingPhysics();
+    private final float[] flingBounds = new float[4];
+    private boolean flingRunning = false;
+    private boolean flingSinglePointer = false;
+
+    /**
+     * @param listener fling 的回调
+     */
+    public GestureAnimator(FrameSource frameSource, GestureCallback listener) {
+        this.frameSource = frameSource;
+        this.listener = listener;
+    }
+
+    /**
+     * 更换帧来源，还在等待的帧转到新的来源上
+     */
+    public void setFrameSource(FrameSource source) {
+        if (source == frameSource) {
+            return;
+        }
+        boolean scheduled = frameScheduled;
+        unscheduleFrame();
+        frameSource = source;
+        lastFrameTime = -1;
+        if (scheduled) {
+            scheduleFrame();
+        }
+    }
+
+    public FrameSource getFrameSource() {
+        return frameSource;
+    }
+
+    /**
+     * 平移和缩放通道作用的变换，没有设置时平移和缩放动画不会执行
+     */
+    public void setTransform(GestureTransform transform) {
+        this.transform = transform;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    public FlingPhysics getFlingPhysics() {
+        return flingPhysics;
+    }
+
+    /**
+     * 连续帧间隔的估计值
+     */
+    public long getFrameIntervalNanos() {
+        return frameInterval;
+    }
+
+    public boolean isRunning(int channels) {
+        return ((channels & CHANNEL_TRANSLATE) != 0 && transRunning) ||
+                ((channels & CHANNEL_SCALE) != 0 && scaleRunning) ||
+                ((channels & CHANNEL_FLING) != 0 && flingRunning);
+    }
+
+    public boolean isRunning() {
+        return transRunning || scaleRunning || flingRunning;
+    }
+
+    /**
+     * 平移动画，已经有平移动画时替换
+     */
+    public void animateTranslate(double dx, double dy, long durationMillis, boolean fixBound) {
+        if (transform == null) {
+            return;
+        }
+        transDx = dx;
+        transDy = dy;
+        transLastP = 0;
+        transFixBound = fixBound;
+        transDuration = Math.max(durationMillis, 1) * 1_000_000L;
+        transStart = -1;
+        transRunning = true;
+        scheduleFrame();
+    }
+
+    /**
+     * 缩放动画，已经有缩放动画时替换
+     * @param focalX 缩放中心，为 Float.MAX_VALUE 时以显示区域的中心缩放
+     */
+    public void animateScale(double from, double to, double focalX, double focalY,
+                             long durationMillis, boolean fixBound) {
+        if (transform == null) {
+            return;
+        }
+        scaleFrom = from;
+        scaleTo = to;
+        scaleFocalX = focalX;
+        scaleFocalY = focalY;
+        scaleFixBound = fixBound;
+        scaleDuration = Math.max(durationMillis, 1) * 1_000_000L;
+        scaleStart = -1;
+        scaleRunning = true;
+        scheduleFrame();
+    }
+
+    /**
+     * 开始 fling，已经有 fling 时先结束
+     * 范围通过 GestureCallback.getFlingBounds 获取；速度低于最小速度或者两个方向都已经在边界上时不会开始，
+     * 也不会回调 onFlingStart / onFlingEnd
+     */
+    public void startFling(int velocityX, int velocityY, boolean singlePointer) {
+        cancelFling();
+        if (listener.getFlingBounds(flingBounds)) {
+            flingPhysics.setBounds(flingBounds[0], flingBounds[1], flingBounds[2], flingBounds[3]);
+        } else {
+            flingPhysics.clearBounds();
+        }
+        flingPhysics.fling(frameSource.nanoTime(), velocityX, velocityY);
+        if (flingPhysics.isFinished()) {
+            return;
+        }
+        flingSinglePointer = singlePointer;
+        flingRunning = true;
+        listener.onFlingStart(flingPhysics.getFinalX(), flingPhysics.getFinalY(),
+                flingPhysics.getDuration(), singlePointer);
+        scheduleFrame();
+    }
+
+    /**
+     * 结束 fling，正在 fling 时回调 onFlingEnd
+     */
+    public void cancelFling() {
+        flingPhysics.cancel();
+        if (flingRunning) {
+            flingRunning = false;
+            unscheduleIfIdle();
+            listener.onFlingEnd(flingSinglePointer);
+        }
+    }
+
+    /**
+     * 停止平移和缩放通道，不回调
+     */
+    public void cancel(int channels) {
+        if ((channels & CHANNEL_TRANSLATE) != 0) {
+            transRunning = false;
+        }
+        if ((channels & CHANNEL_SCALE) != 0) {
+            scaleRunning = false;
+        }
+        if ((channels & CHANNEL_FLING) != 0) {
+            cancelFling();
+        }
+        unscheduleIfIdle();
+    }
+
+    /**
+     * 停止所有通道，不产生任何回调
+     */
+    public void reset() {
+        transRunning = false;
+        scaleRunning = false;
+        flingRunning = false;
+        flingPhysics.cancel();
+        unscheduleFrame();
+        lastFrameTime = -1;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (lastFrameTime >= 0) {
+            updateFrameInterval(frameTimeNanos - lastFrameTime);
+        }
+
+        int channels = 0;
+        boolean fixBound = false;
+        boolean flingEnded = false;
+        if (flingRunning) {
+            boolean moving = flingPhysics.update(frameTimeNanos);
+            float dx = flingPhysics.getDeltaX();
+            float dy = flingPhysics.getDeltaY();
+            if (dx != 0 || dy != 0) {
+                channels |= CHANNEL_FLING;
+                if (listener.onFling(dx, dy, flingSinglePointer)) {
+                    // 由回调方停止，不回调 onFlingEnd
+                    flingPhysics.cancel();
+                    flingRunning = false;
+                    moving = true;
+                }
+            }
+            if (flingRunning && !moving) {
+                flingRunning = false;
+                flingEnded = true;
+            }
+        }
+
+        if (transRunning) {
+            if (transStart < 0) {
+                transStart = frameTimeNanos - frameInterval;
+            }
+            double p = fastOutSlowIn(progress(frameTimeNanos, transStart, transDuration));
+            double dp = p - transLastP;
+            transLastP = p;
+            transform.postTranslate(transDx * dp, transDy * dp);
+            channels |= CHANNEL_TRANSLATE;
+            fixBound |= transFixBound;
+            if (frameTimeNanos - transStart >= transDuration) {
+                transRunning = false;
+            }
+        }
+
+        if (scaleRunning) {
+            if (scaleStart < 0) {
+                scaleStart = frameTimeNanos - frameInterval;
+            }
+            double p = fastOutSlowIn(progress(frameTimeNanos, scaleStart, scaleDuration));
+            double scale = scaleFrom + (scaleTo - scaleFrom) * p;
+            double factor = scale / transform.getScale();
+            if (scaleFocalX == Float.MAX_VALUE || scaleFocalY == Float.MAX_VALUE) {
+                transform.mapContentRect();
+                transform.postScale(factor,
+                        (transform.getLeft() + transform.getRight()) / 2,
+                        (transform.getTop() + transform.getBottom()) / 2);
+            } else {
+                transform.postScale(factor, scaleFocalX, scaleFocalY);
+            }
+            channels |= CHANNEL_SCALE;
+            fixBound |= scaleFixBound;
+            if (frameTimeNanos - scaleStart >= scaleDuration) {
+                scaleRunning = false;
+            }
+        }
+
+        if (channels != 0 && target != null) {
+            target.onAnimationFrame(frameTimeNanos, channels, fixBound);
+        }
+        if (flingEnded) {
+            listener.onFlingEnd(flingSinglePointer);
+        }
+
+        if (isRunning()) {
+            lastFrameTime = frameTimeNanos;
+            scheduleFrame();
+        } else {
+            lastFrameTime = -1;
+        }
+    }
+
+    private void updateFrameInterval(long interval) {
+        if (interval < MIN_FRAME_INTERVAL || interval > MAX_FRAME_INTERVAL) {
+            return; // 掉帧或者异常的间隔不参与估计
+        }
+        frameInterval = (frameInterval * 3 + interval) / 4;
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            frameSource.postFrameCallback(this);
+        }
+    }
+
+    private void unscheduleFrame() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            frameSource.removeFrameCallback(this);
+        }
+    }
+
+    private void unscheduleIfIdle() {
+        if (!isRunning()) {
+            unscheduleFrame();
+            lastFrameTime = -1;
+        }
+    }
+
+    private static double progress(long time, long start, long duration) {
+        return Math.max(0, Math.min(1, (double) (time - start) / duration));
+    }
+
+    /**
+     * cubic-bezier(0.4, 0, 0.2, 1)，和 FastOutSlowInInterpolator 的曲线一致
+     */
+    static double fastOutSlowIn(double x) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        // 先求出 x 对应的参数 t，再计算 y
+        double t = x;
+        for (int i = 0; i < 8; i++) {
+            double err = bezier(t, 0.4, 0.2) - x;
+            if (Math.abs(err) < 1e-7) {
+                break;
+            }
+            double d = bezierDerivative(t, 0.4, 0.2);
+            if (Math.abs(d) < 1e-6) {
+                break;
+            }
+            t = Math.max(0, Math.min(1, t - err / d));
+        }
+        return bezier(t, 0, 1);
+    }
+
+    private static double bezier(double t, double p1, double p2) {
+        double u = 1 - t;
+        return 3 * u * u * t * p1 + 3 * u * t * t * p2 + t * t * t;
+    }
+
+    private static double bezierDerivative(double t, double p1, double p2) {
+        double u = 1 - t;
+        return 3 * u * u * p1 + 6 * u * t * (p2 - p1) + 3 * t * t * (1 - p2);
+    }
+}
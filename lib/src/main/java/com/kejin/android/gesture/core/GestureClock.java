@@ -0,0 +1,21 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 手势识别使用的时间源和延时任务调度
+ * 时间和事件时间是同一个基准，单位毫秒，Android 上是 SystemClock.uptimeMillis，
+ * 和 MotionEvent.getEventTime() 一致，点击，双击，长按的判断都只依赖事件时间，
+ * 主线程卡顿或者事件批量到达时不会误判；测试和性能测试可以用 {@link VirtualGestureClock} 替换
+ */
+public interface GestureClock {
+    /**
+     * 当前时间 ms
+     */
+    long now();
+
+    /**
+     * 在指定时间执行，时间已经过去时尽快执行
+     */
+    void postAt(Runnable action, long timeMillis);
+
+    void removeCallbacks(Runnable action);
+}
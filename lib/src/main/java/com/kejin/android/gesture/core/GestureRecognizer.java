@@ -0,0 +1,783 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 手势识别的核心逻辑，不依赖任何 Android 类
+ * 输入原始的触摸采样 (pointer id, x, y, eventTime, action)，输出 {@link GestureCallback} 回调
+ * {@link com.kejin.android.gesture.GestureDetector} 只是把 MotionEvent 转换后交给它处理
+ */
+public class GestureRecognizer {
+    // 和 MotionEvent.ACTION_* 的值保持一致，适配层可以直接透传 getActionMasked()
+    public static final int ACTION_DOWN = 0;
+    public static final int ACTION_UP = 1;
+    public static final int ACTION_MOVE = 2;
+    public static final int ACTION_CANCEL = 3;
+    public static final int ACTION_POINTER_DOWN = 5;
+    public static final int ACTION_POINTER_UP = 6;
+
+    /**
+     * 一次事件最多处理的 pointer 数量
+     */
+    public static final int MAX_POINTERS = 16;
+
+    /**
+     * 点击在抬起之后多久没有第二次点击就确认为单击
+     */
+    public static final long DOUBLE_CLICK_TIMEOUT = 300;
+    /**
+     * 按下到抬起小于这个时间为点击
+     */
+    public static final long CLICK_TIMEOUT = 200;
+    /**
+     * 按下到抬起大于这个时间为长按
+     */
+    public static final long LONG_CLICK_TIMEOUT = 500;
+
+    /**
+     * 延时任务和 fling 的执行都依赖宿主环境，时间和事件时间是同一个基准
+     */
+    public interface Host extends GestureClock {
+        void startFling(int velocityX, int velocityY, boolean singlePointer);
+
+        void cancelFling();
+    }
+
+    private final GestureCallback listener;
+    private final Host host;
+    private final VelocityEstimator velocityEstimator = new VelocityEstimator();
+    private int activePointerId = -1;
+
+    private float lastPointX = 0, lastPointY = 0;
+    private float downPointX = 0, downPointY = 0;
+    private long downTouchPts = -1; // 按下的事件时间
+    private long currentEventTime = 0;
+    private boolean allPointValidClick = false;
+    private float clickRangeThreshold = 60;
+    private float pendingClickX = 0, pendingClickY = 0;
+    private long pendingClickTime = 0;
+    private boolean pendingClickFlag = false;
+    private final Runnable pendingClick = this::performPendingClick;
+    private boolean doubleClickEnable = false;
+
+    private float sumDragX = 0, sumDragY = 0;
+    private float dragThreshold = 24;
+    private boolean startDragFlag = false;
+
+    private float scaleThreshold = 0.1f;
+    private boolean startScaleFlag = false;
+    private float scaleFirstX = 0, scaleFirstY = 0;
+    private float scaleSecondX = 0, scaleSecondY = 0;
+
+    private float rotateThreshold = 3;
+    private boolean startRotateFlag = false;
+    private float rotateFirstX = 0, rotateFirstY = 0;
+    private float rotateSecondX = 0, rotateSecondY = 0;
+
+    /**
+     * 多指操作时按 pointer id 记录每个 pointer 的参考位置，pointer 增减时重新以当前位置为参考，重心不会跳变
+     * 拖动，缩放，旋转各自的参考位置只在开始之后才每次更新，开始之前累计到超过阈值
+     */
+    private int multiCount = 0;
+    private final int[] multiIds = new int[MAX_POINTERS];
+    private final float[] dragRefXs = new float[MAX_POINTERS];
+    private final float[] dragRefYs = new float[MAX_POINTERS];
+    private final float[] scaleRefXs = new float[MAX_POINTERS];
+    private final float[] scaleRefYs = new float[MAX_POINTERS];
+    private final float[] rotateRefXs = new float[MAX_POINTERS];
+    private final float[] rotateRefYs = new float[MAX_POINTERS];
+    // 当前事件的 pointer 在参考数组中的位置
+    private final int[] multiSlots = new int[MAX_POINTERS];
+
+    /**
+     * slide动作检测，和 drag 还有单指 单指旋转缩放时冲突的
+     */
+    private boolean slideDetectEnable = false;
+    private float slideThreshold = 150;
+
+    private TouchPointer curTouchPointer = null;
+    private boolean isTouchMoving = false;
+
+    private final int[] singlePointerId = new int[1];
+    private final float[] singlePointerX = new float[1];
+    private final float[] singlePointerY = new float[1];
+
+    public GestureRecognizer(GestureCallback listener, Host host) {
+        this.listener = listener;
+        this.host = host;
+    }
+
+    /**
+     * 按事件时间判断是否是双击，上一次点击已经超时但还没回调时 (例如事件延迟到达) 先回调上一次的单击
+     */
+    private void onClickUp(float x, float y, long eventTime) {
+        if (pendingClickFlag) {
+            host.removeCallbacks(pendingClick);
+            if (eventTime - pendingClickTime <= DOUBLE_CLICK_TIMEOUT) {
+                pendingClickFlag = false;
+                listener.onDoubleClick(x, y);
+                return;
+            }
+            performPendingClick();
+        }
+        pendingClickX = x;
+        pendingClickY = y;
+        pendingClickTime = eventTime;
+        pendingClickFlag = true;
+        host.postAt(pendingClick, eventTime + DOUBLE_CLICK_TIMEOUT);
+    }
+
+    private void performPendingClick() {
+        if (pendingClickFlag) {
+            pendingClickFlag = false;
+            listener.onClick(pendingClickX, pendingClickY);
+        }
+    }
+
+    public void setDoubleClickEnable(boolean enable) {
+        doubleClickEnable = enable;
+    }
+
+    /**
+     * 如果手指触摸区域超出一定范围就不认为是一次正常的点击
+     */
+    public void setClickRangeThreshold(float threshold) {
+        clickRangeThreshold = threshold;
+    }
+
+    public void setDragThreshold(float threshold) {
+        dragThreshold = threshold;
+    }
+
+    public void setScaleThreshold(float threshold) {
+        scaleThreshold = threshold;
+    }
+
+    public void setRotateThreshold(float threshold) {
+        rotateThreshold = threshold;
+    }
+
+    /**
+     * 单手拖动和检测slide 是冲突的
+     */
+    public void setSlideDetectEnable(boolean enable) {
+        slideDetectEnable = enable;
+    }
+
+    public void setSlideThreshold(float threshold) {
+        slideThreshold = threshold;
+    }
+
+    /**
+     * 单指缩放，旋转，需要给定一个旋转的中心点
+     */
+    private boolean singlePointerScaleRotateEnable = false;
+    private float singlePointerScaleRotateCenterX = 0;
+    private float singlePointerScaleRotateCenterY = 0;
+
+    public void disableSinglePointerScaleRotate() {
+        singlePointerScaleRotateEnable = false;
+    }
+
+    /**
+     * 开启单指操作模式，设置一个锚点
+     * @param cx 锚点x
+     * @param cy 锚点y
+     */
+    public void enableSinglePointerScaleRotate(float cx, float cy) {
+        singlePointerScaleRotateEnable = true;
+        this.singlePointerScaleRotateCenterX = cx;
+        this.singlePointerScaleRotateCenterY = cy;
+    }
+
+    /**
+     * 丢弃当前的触摸状态和还没回调的单击，不产生任何回调，用于复用之前重置
+     * 阈值等设置保持不变
+     */
+    public void reset() {
+        if (pendingClickFlag) {
+            pendingClickFlag = false;
+            host.removeCallbacks(pendingClick);
+        }
+        isTouchMoving = false;
+        startDragFlag = false;
+        startScaleFlag = false;
+        startRotateFlag = false;
+        singlePointerDragStartFlag = false;
+        sumDragX = 0;
+        sumDragY = 0;
+        lastPointX = 0;
+        lastPointY = 0;
+        multiCount = 0;
+        curTouchPointer = null;
+        velocityEstimator.clear();
+        activePointerId = -1;
+    }
+
+    public boolean isDragging() {
+        return singlePointerDragStartFlag || startDragFlag;
+    }
+
+    public boolean isScaling() {
+        return startScaleFlag;
+    }
+
+    public boolean isRotating() {
+        return startRotateFlag;
+    }
+
+    /**
+     * 单指的简化输入
+     */
+    public void onTouchEvent(int action, int pointerId, float x, float y, long eventTime) {
+        singlePointerId[0] = pointerId;
+        singlePointerX[0] = x;
+        singlePointerY[0] = y;
+        onTouchEvent(action, 0, eventTime, 1, singlePointerId, singlePointerX, singlePointerY);
+    }
+
+    /**
+     * @param action ACTION_* 之一
+     * @param actionIndex ACTION_POINTER_DOWN / ACTION_POINTER_UP 对应的 pointer 下标
+     * @param eventTime 事件时间，单位毫秒
+     * @param pointerCount pointer 数量
+     * @param pointerIds 每个 pointer 的 id
+     * @param xs 每个 pointer 的 x
+     * @param ys 每个 pointer 的 y
+     */
+    public void onTouchEvent(int action, int actionIndex, long eventTime, int pointerCount,
+                             int[] pointerIds, float[] xs, float[] ys) {
+        trackVelocity(action, actionIndex, eventTime, pointerCount, pointerIds, xs, ys);
+        dispatchAction(action, eventTime, pointerCount, pointerIds, xs, ys);
+    }
+
+    /**
+     * 重采样得到的位置，只参与拖动，缩放，旋转的识别，不参与速度计算，原始采样需要另外通过 addMovement 添加
+     * @see TouchResampler
+     */
+    public void onResampledMove(long eventTime, int pointerCount,
+                                int[] pointerIds, float[] xs, float[] ys) {
+        dispatchAction(ACTION_MOVE, eventTime, pointerCount, pointerIds, xs, ys);
+    }
+
+    private void dispatchAction(int action, long eventTime, int pointerCount,
+                                int[] pointerIds, float[] xs, float[] ys) {
+        currentEventTime = eventTime;
+        switch (action) {
+            case ACTION_POINTER_DOWN:
+                host.cancelFling();
+                if (pointerCount > 1 && curTouchPointer != TouchPointer.MULTI_POINTER) {
+                    TouchPointer lastTouchMode = curTouchPointer;
+                    // 切换为多指操作
+                    curTouchPointer = TouchPointer.MULTI_POINTER;
+                    if (lastTouchMode == TouchPointer.SINGLE_POINTER && isTouchMoving) {
+                        // 单指模式, 立即结束
+                        callSinglePointerMove(ACTION_UP, lastPointX, lastPointY);
+                    }
+
+                    isTouchMoving = false;
+                    startDragFlag = false;
+                    startScaleFlag = false;
+                    startRotateFlag = false;
+                } else if (curTouchPointer == TouchPointer.MULTI_POINTER) {
+                    isTouchMoving = false; // 新的 pointer，重新取参考位置
+                }
+                break;
+
+            case ACTION_DOWN:
+                sumDragX = 0;
+                sumDragY = 0;
+                host.cancelFling();
+                if (pointerCount == 1) {
+                    float x = xs[0], y = ys[0];
+                    curTouchPointer = TouchPointer.SINGLE_POINTER;
+                    lastPointX = x;
+                    lastPointY = y;
+                    downPointX = x;
+                    downPointY = y;
+                    downTouchPts = eventTime;
+                    allPointValidClick = true;
+
+                    isTouchMoving = false;
+                    if (!singlePointerScaleRotateEnable) {
+                        onSingleTouchMove(x, y);
+                    }
+                }
+                break;
+
+            case ACTION_MOVE:
+                if (curTouchPointer == TouchPointer.SINGLE_POINTER) {
+                    if (singlePointerScaleRotateEnable) {
+                        onSinglePointerRotateScale(xs[0], ys[0]);
+                        break;
+                    }
+                    float x = xs[0], y = ys[0];
+                    onSingleTouchMove(x, y);
+
+                    lastPointX = x;
+                    lastPointY = y;
+                    allPointValidClick = allPointValidClick &&
+                            length(x - downPointX, y - downPointY) < clickRangeThreshold;
+                } else if (curTouchPointer == TouchPointer.MULTI_POINTER) {
+                    onMultiTouchMode(pointerCount, pointerIds, xs, ys);
+                }
+                break;
+
+            case ACTION_POINTER_UP:
+                if (curTouchPointer == TouchPointer.MULTI_POINTER) {
+                    isTouchMoving = false; // 剩下的 pointer 重新取参考位置
+                }
+                break;
+
+            case ACTION_CANCEL:
+            case ACTION_UP:
+                if (curTouchPointer == TouchPointer.SINGLE_POINTER) {
+                    float x = xs[0], y = ys[0];
+                    if (allPointValidClick && !startDragFlag &&
+                            !startRotateFlag && !startScaleFlag && !singlePointerDragStartFlag) {
+                        long times = eventTime - downTouchPts;
+                        if (times < CLICK_TIMEOUT) {
+                            if (doubleClickEnable) {
+                                onClickUp(x, y, eventTime);
+                            } else {
+                                listener.onClick(x, y);
+                            }
+                        } else if (times >= LONG_CLICK_TIMEOUT) {
+                            listener.onLongClick(x, y);
+                        }
+                    }
+
+                    if (!singlePointerScaleRotateEnable) {
+                        if (!isTouchMoving) {
+                            callSinglePointerMove(ACTION_DOWN, x, y);
+                        }
+                        callSinglePointerMove(ACTION_UP, x, y);
+                    }
+                }
+
+                if (startDragFlag || singlePointerDragStartFlag) {
+                    onDragEnd(singlePointerDragStartFlag, eventTime);
+                }
+                boolean singlePointer = curTouchPointer != TouchPointer.MULTI_POINTER;
+                if (startScaleFlag) {
+                    listener.onScaleEnd(lastScaleCenterX, lastScaleCenterY, singlePointer);
+                }
+                if (startRotateFlag) {
+                    listener.onRotateEnd(singlePointer);
+                }
+
+                isTouchMoving = false;
+                startDragFlag = false;
+                startScaleFlag = false;
+                startRotateFlag = false;
+                singlePointerDragStartFlag = false;
+                sumDragX = 0;
+                sumDragY = 0;
+                lastPointX = 0;
+                lastPointY = 0;
+                curTouchPointer = null;
+                velocityEstimator.clear();
+                activePointerId = -1;
+                break;
+        }
+    }
+
+    /**
+     * 只用于速度计算的采样，不参与手势识别，例如 MotionEvent 中的历史采样
+     */
+    public void addMovement(long eventTime, int pointerCount,
+                            int[] pointerIds, float[] xs, float[] ys) {
+        for (int i = 0; i < pointerCount; i++) {
+            velocityEstimator.addMovement(pointerIds[i], xs[i], ys[i], eventTime);
+        }
+    }
+
+    private void trackVelocity(int action, int actionIndex, long eventTime, int pointerCount,
+                               int[] pointerIds, float[] xs, float[] ys) {
+        if (action == ACTION_DOWN) {
+            velocityEstimator.clear();
+            activePointerId = pointerCount > 0 ? pointerIds[0] : -1;
+        }
+        if (action == ACTION_UP || action == ACTION_CANCEL) {
+            return;
+        }
+        if (action == ACTION_POINTER_UP) {
+            int upId = pointerIds[actionIndex];
+            velocityEstimator.clearPointer(upId);
+            if (upId == activePointerId) {
+                // 和 VelocityTracker 一样，换成剩下的第一个 pointer
+                activePointerId = -1;
+                for (int i = 0; i < pointerCount; i++) {
+                    if (i != actionIndex) {
+                        activePointerId = pointerIds[i];
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+        addMovement(eventTime, pointerCount, pointerIds, xs, ys);
+    }
+
+    private void onDragging(float x, float y, float dx, float dy, boolean singlePointerDrag) {
+        sumDragX += dx;
+        sumDragY += dy;
+        listener.onDrag(x, y, dx, dy, sumDragX, sumDragY, singlePointerDrag);
+    }
+
+    private void onDragEnd(boolean singlePointerDrag, long eventTime) {
+        velocityEstimator.computeVelocity(activePointerId, 1000, eventTime);
+        int vX = (int) velocityEstimator.getXVelocity();
+        int vY = (int) velocityEstimator.getYVelocity();
+
+        host.cancelFling();
+
+        if (listener.onDragEnd(sumDragX, sumDragY, vX, vY, singlePointerDrag)) {
+            return;
+        }
+
+        if (vX == 0 && vY == 0) {
+            return;
+        }
+
+        host.startFling(vX, vY, singlePointerDrag);
+    }
+
+    private void onSingleTouchMove(float x, float y) {
+        if (!isTouchMoving) {
+            callSinglePointerMove(ACTION_DOWN, x, y);
+            isTouchMoving = true;
+        } else {
+            callSinglePointerMove(ACTION_MOVE, x, y);
+        }
+    }
+
+    private float singleLastDragX = 0, singleLastDragY = 0;
+    private boolean singlePointerDragStartFlag = false;
+    private long singlePointerDownTouchPts = 0;
+
+    private void callSinglePointerMove(int action, float x, float y) {
+        if (!slideDetectEnable) {
+            float dx, dy;
+            switch (action) {
+                case ACTION_DOWN:
+                    singleLastDragX = x;
+                    singleLastDragY = y;
+                    singlePointerDragStartFlag = false;
+                    break;
+
+                case ACTION_MOVE:
+                    dx = x - singleLastDragX;
+                    dy = y - singleLastDragY;
+                    if (singlePointerDragStartFlag) {
+                        onDragging(x, y, dx, dy, true);
+                        singleLastDragX = x;
+                        singleLastDragY = y;
+                    }
+                    if (!singlePointerDragStartFlag && Math.sqrt(dx * dx + dy * dy) > dragThreshold) {
+                        singlePointerDragStartFlag = true;
+                        singleLastDragX = x;
+                        singleLastDragY = y;
+                        listener.onDragStart(x, y, x, y, true);
+                    }
+                    break;
+
+                case ACTION_UP:
+                    dx = x - singleLastDragX;
+                    dy = y - singleLastDragY;
+                    if (singlePointerDragStartFlag) {
+                        onDragging(x, y, dx, dy, true);
+                        singleLastDragX = x;
+                        singleLastDragY = y;
+                    }
+                    break;
+            }
+        } else {
+            switch (action) {
+                case ACTION_DOWN:
+                    singleLastDragX = x;
+                    singleLastDragY = y;
+                    singlePointerDownTouchPts = currentEventTime;
+                    break;
+
+                case ACTION_UP:
+                    float dx = x - singleLastDragX;
+                    float dy = y - singleLastDragY;
+                    float dis = (float) Math.sqrt(dx * dx + dy * dy);
+                    long spendTime = currentEventTime - singlePointerDownTouchPts;
+                    if (spendTime < 500 && dis > slideThreshold) {
+                        float degree = (float) (Math.asin(dy/dis) * 180/Math.PI);
+                        if (Math.abs(degree) < 30) {
+                            if (dx < 0) {
+                                // slide left
+                                listener.onSlide(true, false, false, false);
+                            } else {
+                                // slide right
+                                listener.onSlide(false, false, true, false);
+                            }
+                        } else if (Math.abs(degree) > 60) {
+                            if (dy < 0) {
+                                // slide up
+                                listener.onSlide(false, true, false, false);
+                            } else {
+                                // slide down
+                                listener.onSlide(false, false, false, true);
+                            }
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    private float lastScaleCenterX = 0, lastScaleCenterY = 0;
+    private void onSinglePointerRotateScale(float x0, float y0) {
+        float x1 = singlePointerScaleRotateCenterX;
+        float y1 = singlePointerScaleRotateCenterY;
+
+        if (isTouchMoving) {
+            ///////////// scale
+            float curDx = x0 - x1;
+            float curDy = y0 - y1;
+            float distance = (float) Math.sqrt(curDx * curDx + curDy * curDy);
+            float lastDx = scaleFirstX - scaleSecondX;
+            float lastDy = scaleFirstY - scaleSecondY;
+            float lastDistance = (float) Math.sqrt(lastDx * lastDx + lastDy * lastDy);
+
+            float scale = distance / lastDistance;
+
+            if (startScaleFlag) {
+                //避免图片每次缩放尺寸过大
+                if (scale > 1.05f) {
+                    scale = 1.05f;
+                }
+                lastScaleCenterX = (x0 + x1) / 2f;
+                lastScaleCenterY = (y0 + y1) / 2f;
+                listener.onScale(lastScaleCenterX, lastScaleCenterY, scale, true);
+            } else if (Math.abs(1 - distance / lastDistance) > scaleThreshold) {
+                startScaleFlag = true;
+                listener.onScaleStart(true);
+            }
+
+            //////////// rotate
+            float degrees = calculateDegrees(x1 - x0, y1 - y0,
+                    rotateSecondX - rotateFirstX,
+                    rotateSecondY - rotateFirstY);
+            if (startRotateFlag) {
+                listener.onRotate((x0 + x1) / 2f, (y0 + y1) / 2f, degrees, true);
+            } else if (Math.abs(degrees) > rotateThreshold) {
+                startRotateFlag = true;
+                listener.onRotateStart(true);
+            }
+
+        } else {
+            scaleFirstX = x0;
+            scaleFirstY = y0;
+            scaleSecondX = x1;
+            scaleSecondY = y1;
+            startScaleFlag = false;
+            rotateFirstX = x0;
+            rotateFirstY = y0;
+            rotateSecondX = x1;
+            rotateSecondY = y1;
+            startRotateFlag = false;
+        }
+
+        isTouchMoving = true;
+
+        if (startScaleFlag) {
+            scaleFirstX = x0;
+            scaleFirstY = y0;
+            scaleSecondX = x1;
+            scaleSecondY = y1;
+        }
+
+        if (startRotateFlag) {
+            rotateFirstX = x0;
+            rotateFirstY = y0;
+            rotateSecondX = x1;
+            rotateSecondY = y1;
+        }
+    }
+
+    /**
+     * 拖动取所有 pointer 位移的平均值，即重心的位移，所有 pointer 都超过阈值才开始
+     * 缩放取所有 pointer 到重心的平均距离的比值，旋转取所有 pointer 绕重心转过的平均角度
+     * 两个 pointer 时和只看两点连线的结果一致
+     */
+    private void onMultiTouchMode(int pointerCount, int[] pointerIds, float[] xs, float[] ys) {
+        if (pointerCount < 2) {
+            isTouchMoving = false;
+            return;
+        }
+        pointerCount = Math.min(pointerCount, MAX_POINTERS);
+
+        if (!isTouchMoving || !matchMultiSlots(pointerCount, pointerIds)) {
+            resetMultiRefs(pointerCount, pointerIds, xs, ys);
+            isTouchMoving = true;
+            return;
+        }
+
+        float cx = 0, cy = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            cx += xs[i];
+            cy += ys[i];
+        }
+        cx /= pointerCount;
+        cy /= pointerCount;
+
+        ///////////// drag
+
+        float dx = 0, dy = 0;
+        boolean allOverThreshold = true;
+        for (int i = 0; i < pointerCount; i++) {
+            int slot = multiSlots[i];
+            float pdx = xs[i] - dragRefXs[slot];
+            float pdy = ys[i] - dragRefYs[slot];
+            dx += pdx;
+            dy += pdy;
+            allOverThreshold = allOverThreshold && length(pdx, pdy) > dragThreshold;
+        }
+        if (startDragFlag) {
+            onDragging(cx, cy, dx / pointerCount, dy / pointerCount, false);
+        } else if (allOverThreshold) {
+            startDragFlag = true;
+            listener.onDragStart(xs[0], ys[0], xs[1], ys[1], false);
+        }
+
+        ///////////// scale
+
+        float refCx = 0, refCy = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            refCx += scaleRefXs[multiSlots[i]];
+            refCy += scaleRefYs[multiSlots[i]];
+        }
+        refCx /= pointerCount;
+        refCy /= pointerCount;
+        float spread = 0, lastSpread = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            int slot = multiSlots[i];
+            spread += length(xs[i] - cx, ys[i] - cy);
+            lastSpread += length(scaleRefXs[slot] - refCx, scaleRefYs[slot] - refCy);
+        }
+        if (lastSpread > 0) {
+            float scale = spread / lastSpread;
+            if (startScaleFlag) {
+                lastScaleCenterX = cx;
+                lastScaleCenterY = cy;
+                listener.onScale(cx, cy, scale, false);
+            } else if (Math.abs(1 - scale) > scaleThreshold) {
+                startScaleFlag = true;
+                listener.onScaleStart(false);
+            }
+        }
+
+        //////////// rotate
+
+        refCx = 0;
+        refCy = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            refCx += rotateRefXs[multiSlots[i]];
+            refCy += rotateRefYs[multiSlots[i]];
+        }
+        refCx /= pointerCount;
+        refCy /= pointerCount;
+        float degrees = 0;
+        int angleCount = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            int slot = multiSlots[i];
+            float vx = xs[i] - cx, vy = ys[i] - cy;
+            float lastVx = rotateRefXs[slot] - refCx, lastVy = rotateRefYs[slot] - refCy;
+            if ((vx == 0 && vy == 0) || (lastVx == 0 && lastVy == 0)) {
+                continue; // 在重心上的 pointer 没有角度
+            }
+            degrees += wrapDegrees(calculateDegrees(vx, vy, lastVx, lastVy));
+            angleCount++;
+        }
+        if (angleCount > 0) {
+            degrees /= angleCount;
+            if (startRotateFlag) {
+                listener.onRotate(cx, cy, degrees, false);
+            } else if (Math.abs(degrees) > rotateThreshold) {
+                startRotateFlag = true;
+                listener.onRotateStart(false);
+            }
+        }
+
+        for (int i = 0; i < pointerCount; i++) {
+            int slot = multiSlots[i];
+            if (startDragFlag) {
+                dragRefXs[slot] = xs[i];
+                dragRefYs[slot] = ys[i];
+            }
+            if (startScaleFlag) {
+                scaleRefXs[slot] = xs[i];
+                scaleRefYs[slot] = ys[i];
+            }
+            if (startRotateFlag) {
+                rotateRefXs[slot] = xs[i];
+                rotateRefYs[slot] = ys[i];
+            }
+        }
+    }
+
+    /**
+     * 当前事件的 pointer 和参考位置的 pointer 完全一致时，按 id 找到每个 pointer 的参考位置
+     */
+    private boolean matchMultiSlots(int pointerCount, int[] pointerIds) {
+        if (pointerCount != multiCount) {
+            return false;
+        }
+        for (int i = 0; i < pointerCount; i++) {
+            int id = pointerIds[i];
+            int slot = -1;
+            for (int j = 0; j < multiCount; j++) {
+                if (multiIds[j] == id) {
+                    slot = j;
+                    break;
+                }
+            }
+            if (slot < 0) {
+                return false;
+            }
+            multiSlots[i] = slot;
+        }
+        return true;
+    }
+
+    private void resetMultiRefs(int pointerCount, int[] pointerIds, float[] xs, float[] ys) {
+        multiCount = pointerCount;
+        for (int i = 0; i < pointerCount; i++) {
+            multiIds[i] = pointerIds[i];
+            multiSlots[i] = i;
+            dragRefXs[i] = scaleRefXs[i] = rotateRefXs[i] = xs[i];
+            dragRefYs[i] = scaleRefYs[i] = rotateRefYs[i] = ys[i];
+        }
+    }
+
+    /**
+     * 转换到 (-180, 180]
+     */
+    private static float wrapDegrees(float degrees) {
+        while (degrees > 180) {
+            degrees -= 360;
+        }
+        while (degrees <= -180) {
+            degrees += 360;
+        }
+        return degrees;
+    }
+
+    public static float calculateDegrees(float v1x, float v1y, float v2x, float v2y) {
+        float lastDegrees = (float) Math.atan2(v2y, v2x);
+        float currentDegrees = (float) Math.atan2(v1y, v1x);
+        return (float) Math.toDegrees(currentDegrees - lastDegrees);
+    }
+
+    private static float length(float x, float y) {
+        return (float) Math.sqrt(x * x + y * y);
+    }
+
+    enum TouchPointer {
+        SINGLE_POINTER,
+        MULTI_POINTER
+    }
+}
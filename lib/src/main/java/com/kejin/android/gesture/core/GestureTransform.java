@@ -0,0 +1,310 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * ViewGestureAttacher 的变换状态，全部用 double 保存，不依赖 android.graphics.Matrix
+ * 最终的变换为 supp * base:
+ * base 为 ScaleType 决定的初始变换 (非等比缩放 + 平移)
+ * supp 为手势产生的变换 (等比缩放 + 旋转 + 平移)
+ * 显示区域直接用公式计算，只有在需要分发的时候才生成 Matrix
+ */
+public class GestureTransform {
+    /**
+     * 内容小于 view 时的对齐方式
+     */
+    public static final int ALIGN_START = 0;
+    public static final int ALIGN_CENTER = 1;
+    public static final int ALIGN_END = 2;
+
+    private double baseScaleX = 1, baseScaleY = 1;
+    private double baseTransX = 0, baseTransY = 0;
+
+    private double scale = 1;
+    private double rotation = 0; // 角度
+    private double cos = 1, sin = 0;
+    private double transX = 0, transY = 0;
+
+    private double contentWidth = 0, contentHeight = 0;
+
+    private double left, top, right, bottom;
+    private double boundaryDeltaX = 0, boundaryDeltaY = 0;
+    private double mappedX = 0, mappedY = 0;
+
+    public void setContentSize(double width, double height) {
+        contentWidth = width;
+        contentHeight = height;
+    }
+
+    public void setBase(double scaleX, double scaleY, double transX, double transY) {
+        baseScaleX = scaleX;
+        baseScaleY = scaleY;
+        baseTransX = transX;
+        baseTransY = transY;
+    }
+
+    /**
+     * 重置手势产生的变换
+     */
+    public void reset() {
+        scale = 1;
+        setRotationInternal(0);
+        transX = 0;
+        transY = 0;
+    }
+
+    public void set(double scale, double rotation, double transX, double transY) {
+        this.scale = scale;
+        setRotationInternal(rotation);
+        this.transX = transX;
+        this.transY = transY;
+    }
+
+    public void set(GestureTransform other) {
+        baseScaleX = other.baseScaleX;
+        baseScaleY = other.baseScaleY;
+        baseTransX = other.baseTransX;
+        baseTransY = other.baseTransY;
+        scale = other.scale;
+        rotation = other.rotation;
+        cos = other.cos;
+        sin = other.sin;
+        transX = other.transX;
+        transY = other.transY;
+        contentWidth = other.contentWidth;
+        contentHeight = other.contentHeight;
+    }
+
+    public void postTranslate(double dx, double dy) {
+        transX += dx;
+        transY += dy;
+    }
+
+    public void postScale(double factor, double px, double py) {
+        scale *= factor;
+        transX = px + (transX - px) * factor;
+        transY = py + (transY - py) * factor;
+    }
+
+    public void postRotate(double degrees, double px, double py) {
+        double rad = Math.toRadians(degrees);
+        double c = Math.cos(rad), s = Math.sin(rad);
+        double tx = transX - px, ty = transY - py;
+        transX = px + tx * c - ty * s;
+        transY = py + tx * s + ty * c;
+        setRotationInternal(rotation + degrees);
+    }
+
+    private void setRotationInternal(double degrees) {
+        rotation = degrees;
+        if (degrees == 0) {
+            cos = 1;
+            sin = 0;
+        } else {
+            double rad = Math.toRadians(degrees);
+            cos = Math.cos(rad);
+            sin = Math.sin(rad);
+        }
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public double getTransX() {
+        return transX;
+    }
+
+    public double getTransY() {
+        return transY;
+    }
+
+    /**
+     * 计算内容在 view 中的显示区域 (变换后的包围盒)
+     * 结果通过 getLeft / getTop / getRight / getBottom 获取
+     */
+    public void mapContentRect() {
+        // base 只有缩放和平移，先得到 base 之后的矩形
+        double l = baseTransX, r = baseTransX + baseScaleX * contentWidth;
+        double t = baseTransY, b = baseTransY + baseScaleY * contentHeight;
+        if (sin == 0) {
+            double sc = scale * cos;
+            double x0 = sc * l + transX, x1 = sc * r + transX;
+            double y0 = sc * t + transY, y1 = sc * b + transY;
+            left = Math.min(x0, x1);
+            right = Math.max(x0, x1);
+            top = Math.min(y0, y1);
+            bottom = Math.max(y0, y1);
+            return;
+        }
+        double a = scale * cos, c = scale * sin;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            double px = (i & 1) == 0 ? l : r;
+            double py = (i & 2) == 0 ? t : b;
+            double x = a * px - c * py + transX;
+            double y = c * px + a * py + transY;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        left = minX;
+        top = minY;
+        right = maxX;
+        bottom = maxY;
+    }
+
+    public double getLeft() {
+        return left;
+    }
+
+    public double getTop() {
+        return top;
+    }
+
+    public double getRight() {
+        return right;
+    }
+
+    public double getBottom() {
+        return bottom;
+    }
+
+    /**
+     * 计算把显示区域修正到 view 内需要的偏移
+     * 内容小于 view 时按 align 对齐，大于 view 时不能留出空白
+     * 结果通过 getBoundaryDeltaX / getBoundaryDeltaY 获取
+     * @return 是否需要修正
+     */
+    public boolean computeBoundaryDelta(double viewWidth, double viewHeight, int align) {
+        mapContentRect();
+        double deltaX = 0, deltaY = 0;
+        double height = bottom - top, width = right - left;
+        if (height <= viewHeight) {
+            switch (align) {
+                case ALIGN_START:
+                    deltaY = -top;
+                    break;
+                case ALIGN_END:
+                    deltaY = viewHeight - height - top;
+                    break;
+                default:
+                    deltaY = (viewHeight - height) / 2 - top;
+                    break;
+            }
+        } else if (top > 0) {
+            deltaY = -top;
+        } else if (bottom < viewHeight) {
+            deltaY = viewHeight - bottom;
+        }
+        if (width <= viewWidth) {
+            switch (align) {
+                case ALIGN_START:
+                    deltaX = -left;
+                    break;
+                case ALIGN_END:
+                    deltaX = viewWidth - width - left;
+                    break;
+                default:
+                    deltaX = (viewWidth - width) / 2 - left;
+                    break;
+            }
+        } else if (left > 0) {
+            deltaX = -left;
+        } else if (right < viewWidth) {
+            deltaX = viewWidth - right;
+        }
+        boundaryDeltaX = deltaX;
+        boundaryDeltaY = deltaY;
+        return deltaX != 0 || deltaY != 0;
+    }
+
+    /**
+     * 修正边界
+     * @return 是否有修正
+     */
+    public boolean fixBoundary(double viewWidth, double viewHeight, int align) {
+        if (computeBoundaryDelta(viewWidth, viewHeight, align)) {
+            postTranslate(boundaryDeltaX, boundaryDeltaY);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 内容坐标经过最终变换 (supp * base) 之后在 view 中的位置
+     * 结果通过 getMappedX / getMappedY 获取
+     */
+    public void mapPoint(double x, double y) {
+        double qx = baseScaleX * x + baseTransX;
+        double qy = baseScaleY * y + baseTransY;
+        double a = scale * cos, c = scale * sin;
+        mappedX = a * qx - c * qy + transX;
+        mappedY = c * qx + a * qy + transY;
+    }
+
+    /**
+     * view 中的点对应的内容坐标，mapPoint 的逆变换
+     * 结果通过 getMappedX / getMappedY 获取
+     */
+    public void invertPoint(double x, double y) {
+        double dx = x - transX, dy = y - transY;
+        double a = cos / scale, c = sin / scale;
+        double qx = a * dx + c * dy;
+        double qy = -c * dx + a * dy;
+        mappedX = baseScaleX == 0 ? 0 : (qx - baseTransX) / baseScaleX;
+        mappedY = baseScaleY == 0 ? 0 : (qy - baseTransY) / baseScaleY;
+    }
+
+    public double getMappedX() {
+        return mappedX;
+    }
+
+    public double getMappedY() {
+        return mappedY;
+    }
+
+    public double getBoundaryDeltaX() {
+        return boundaryDeltaX;
+    }
+
+    public double getBoundaryDeltaY() {
+        return boundaryDeltaY;
+    }
+
+    /**
+     * 输出最终变换 (supp * base)，格式和 android.graphics.Matrix#setValues 一致
+     */
+    public void getValues(float[] values) {
+        double a = scale * cos, c = scale * sin;
+        values[0] = (float) (a * baseScaleX);
+        values[1] = (float) (-c * baseScaleY);
+        values[2] = (float) (a * baseTransX - c * baseTransY + transX);
+        values[3] = (float) (c * baseScaleX);
+        values[4] = (float) (a * baseScaleY);
+        values[5] = (float) (c * baseTransX + a * baseTransY + transY);
+        values[6] = 0;
+        values[7] = 0;
+        values[8] = 1;
+    }
+
+    /**
+     * 输出手势产生的变换 (supp)，格式和 android.graphics.Matrix#setValues 一致
+     */
+    public void getSuppValues(float[] values) {
+        double a = scale * cos, c = scale * sin;
+        values[0] = (float) a;
+        values[1] = (float) -c;
+        values[2] = (float) transX;
+        values[3] = (float) c;
+        values[4] = (float) a;
+        values[5] = (float) transY;
+        values[6] = 0;
+        values[7] = 0;
+        values[8] = 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 固定分桶的延迟直方图，0.25ms 一个桶，最大 200ms，超过的计入最后一个桶
+ * 记录时不分配任何对象
+ */
+public class LatencyHistogram {
+    public static final long BUCKET_NANOS = 250_000L;
+    public static final int BUCKET_COUNT = 800;
+
+    private final long[] counts = new long[BUCKET_COUNT + 1];
+    private long count = 0;
+    private long sumNanos = 0;
+    private long maxNanos = 0;
+
+    public void record(long latencyNanos) {
+        if (latencyNanos < 0) {
+            latencyNanos = 0;
+        }
+        int bucket = (int) Math.min(latencyNanos / BUCKET_NANOS, BUCKET_COUNT);
+        counts[bucket]++;
+        count++;
+        sumNanos += latencyNanos;
+        if (latencyNanos > maxNanos) {
+            maxNanos = latencyNanos;
+        }
+    }
+
+    /**
+     * 合并另一个直方图，可以用来累计多次手势的数据
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sumNanos += other.sumNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    public void reset() {
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sumNanos = 0;
+        maxNanos = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : sumNanos / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @param percentile 0 - 100
+     * @return 所在桶的上界，不超过最大值，超出范围时为最大值
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+        target = Math.max(target, 1);
+        long seen = 0;
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return i == BUCKET_COUNT ? maxNanos : Math.min((i + 1) * BUCKET_NANOS, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public long getP50Nanos() {
+        return getPercentileNanos(50);
+    }
+
+    public long getP95Nanos() {
+        return getPercentileNanos(95);
+    }
+
+    public long getP99Nanos() {
+        return getPercentileNanos(99);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[count=" + count +
+                ", p50=" + getP50Nanos() / 1000 + "us" +
+                ", p95=" + getP95Nanos() / 1000 + "us" +
+                ", p99=" + getP99Nanos() / 1000 + "us" +
+                ", max=" + maxNanos / 1000 + "us]";
+    }
+}
@@ -0,0 +1,71 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 按手势类型记录从输入到绘制的延迟，两次绘制之间的多次变化只记录最早的一次
+ * 手势类型变化时先丢弃还没绘制的变化，再回调上一段手势的延迟分布，
+ * 所以每段回调的直方图里只有这段手势自己的采样
+ * 时间单位都是纳秒，不分配对象
+ */
+public class LatencyRecorder {
+    public interface Reporter {
+        void onReport(int gestureType, LatencyHistogram histogram);
+    }
+
+    private final Reporter reporter;
+    private final LatencyHistogram[] histograms;
+
+    private int currentType = -1;
+    // 还没有绘制的最早的一次变化
+    private boolean pending = false;
+    private long pendingInputNanos = 0;
+
+    public LatencyRecorder(int typeCount, Reporter reporter) {
+        this.reporter = reporter;
+        histograms = new LatencyHistogram[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * 发生了一次变化
+     * @param inputNanos 引起这次变化的输入时间
+     */
+    public void mark(int gestureType, long inputNanos) {
+        if (gestureType != currentType) {
+            // 上一种手势的变化还没有绘制，不计入任何一段
+            pending = false;
+            report();
+            currentType = gestureType;
+        }
+        if (!pending) {
+            pending = true;
+            pendingInputNanos = inputNanos;
+        }
+    }
+
+    /**
+     * 绘制了一帧
+     */
+    public void onDraw(long drawNanos) {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        histograms[currentType].record(drawNanos - pendingInputNanos);
+    }
+
+    /**
+     * 回调当前这段手势的延迟分布，之后重新开始统计
+     */
+    public void report() {
+        if (currentType < 0) {
+            return;
+        }
+        LatencyHistogram histogram = histograms[currentType];
+        if (histogram.getCount() > 0) {
+            reporter.onReport(currentType, histogram);
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 把触摸采样重采样到绘制的帧时间，并按最近的速度向前预测一小段时间
+ * 触摸采样率和屏幕刷新率不一致时，直接使用原始采样每帧的位移会忽大忽小，图片也至少落后手指一帧
+ * 每个 pointer 按 id 保存最近 3 个采样:
+ * 目标时间在最近两个采样之间时线性插值，之后时按速度外推，外推的时间不超过两个采样的间隔，
+ * 某个方向上最近两段位移的方向相反时，这个方向不外推，避免转向时冲过头
+ * 时间单位都是纳秒，不分配对象
+ */
+public class TouchResampler {
+    private static final int HISTORY = 3;
+    /**
+     * 两个采样间隔太小时速度不可靠，不做插值和外推
+     */
+    private static final long MIN_INTERVAL_NANOS = 2_000_000L;
+
+    private final int[] slotIds = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] slotSizes = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] slotHeads = new int[GestureRecognizer.MAX_POINTERS];
+    private final long[] times = new long[GestureRecognizer.MAX_POINTERS * HISTORY];
+    private final float[] xs = new float[GestureRecognizer.MAX_POINTERS * HISTORY];
+    private final float[] ys = new float[GestureRecognizer.MAX_POINTERS * HISTORY];
+
+    private int pointerCount = 0;
+    private final int[] pointerIds = new int[GestureRecognizer.MAX_POINTERS];
+    private long latestTime = 0;
+
+    public void reset() {
+        for (int i = 0; i < slotSizes.length; i++) {
+            slotSizes[i] = 0;
+        }
+        pointerCount = 0;
+    }
+
+    /**
+     * 清空一个 pointer 的历史，POINTER_UP 时调用抬起的 pointer，POINTER_DOWN 时调用新的 pointer，
+     * 复用的 id 不会和之前的采样一起插值
+     */
+    public void removePointer(int id) {
+        int slot = findSlot(id);
+        if (slot >= 0) {
+            slotSizes[slot] = 0;
+        }
+        int count = 0;
+        for (int i = 0; i < pointerCount; i++) {
+            if (pointerIds[i] != id) {
+                pointerIds[count++] = pointerIds[i];
+            }
+        }
+        pointerCount = count;
+    }
+
+    /**
+     * 添加一个原始采样
+     */
+    public void addSample(long timeNanos, int count, int[] ids, float[] sampleXs, float[] sampleYs) {
+        count = Math.min(count, GestureRecognizer.MAX_POINTERS);
+        for (int i = 0; i < count; i++) {
+            int slot = findSlot(ids[i]);
+            if (slot < 0) {
+                slot = allocSlot(ids, count);
+                slotIds[slot] = ids[i];
+                slotSizes[slot] = 0;
+                slotHeads[slot] = 0;
+            }
+            int head = (slotHeads[slot] + 1) % HISTORY;
+            int index = slot * HISTORY + head;
+            times[index] = timeNanos;
+            xs[index] = sampleXs[i];
+            ys[index] = sampleYs[i];
+            slotHeads[slot] = head;
+            slotSizes[slot] = Math.min(slotSizes[slot] + 1, HISTORY);
+            pointerIds[i] = ids[i];
+        }
+        pointerCount = count;
+        latestTime = timeNanos;
+    }
+
+    public boolean isEmpty() {
+        return pointerCount == 0;
+    }
+
+    /**
+     * 最近一个采样的 pointer 数量，重采样的结果也按这个顺序输出
+     */
+    public int getPointerCount() {
+        return pointerCount;
+    }
+
+    public int[] getPointerIds() {
+        return pointerIds;
+    }
+
+    public long getLatestTime() {
+        return latestTime;
+    }
+
+    /**
+     * 最近一个原始采样的位置
+     */
+    public void getLatest(float[] outXs, float[] outYs) {
+        for (int i = 0; i < pointerCount; i++) {
+            int index = newest(findSlot(pointerIds[i]), 0);
+            outXs[i] = xs[index];
+            outYs[i] = ys[index];
+        }
+    }
+
+    /**
+     * @param targetNanos 目标时间，一般是帧时间加上预测的时间
+     */
+    public void resample(long targetNanos, float[] outXs, float[] outYs) {
+        for (int i = 0; i < pointerCount; i++) {
+            int slot = findSlot(pointerIds[i]);
+            int c = newest(slot, 0);
+            outXs[i] = xs[c];
+            outYs[i] = ys[c];
+            if (slotSizes[slot] < 2) {
+                continue;
+            }
+            int b = newest(slot, 1);
+            long dt = times[c] - times[b];
+            if (dt < MIN_INTERVAL_NANOS) {
+                continue;
+            }
+            if (targetNanos <= times[c]) {
+                // 插值，最多回退到上一个采样
+                float alpha = Math.max(0, (targetNanos - times[b]) / (float) dt);
+                outXs[i] = xs[b] + (xs[c] - xs[b]) * alpha;
+                outYs[i] = ys[b] + (ys[c] - ys[b]) * alpha;
+                continue;
+            }
+            float ahead = Math.min(targetNanos - times[c], dt) / (float) dt;
+            boolean hasPrev = slotSizes[slot] >= HISTORY;
+            int a = hasPrev ? newest(slot, 2) : b;
+            float dx = xs[c] - xs[b];
+            float dy = ys[c] - ys[b];
+            if (!hasPrev || dx * (xs[b] - xs[a]) >= 0) {
+                outXs[i] += dx * ahead;
+            }
+            if (!hasPrev || dy * (ys[b] - ys[a]) >= 0) {
+                outYs[i] += dy * ahead;
+            }
+        }
+    }
+
+    private int newest(int slot, int back) {
+        return slot * HISTORY + (slotHeads[slot] - back + HISTORY) % HISTORY;
+    }
+
+    private int findSlot(int id) {
+        for (int s = 0; s < slotIds.length; s++) {
+            if (slotSizes[s] > 0 && slotIds[s] == id) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 找一个空的，或者 pointer 已经抬起的位置
+     */
+    private int allocSlot(int[] ids, int count) {
+        for (int s = 0; s < slotIds.length; s++) {
+            if (slotSizes[s] == 0) {
+                return s;
+            }
+        }
+        for (int s = 0; s < slotIds.length; s++) {
+            boolean inUse = false;
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == slotIds[s]) {
+                    inUse = true;
+                    break;
+                }
+            }
+            if (!inUse) {
+                return s;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 触摸轨迹的二进制格式
+ * <pre>
+ * 文件头: magic "GTRC", version, viewWidth, viewHeight, contentWidth, contentHeight (int, 大端)
+ * 每条记录:
+ *   head        1 字节，低 4 位为 action，FLAG_HISTORICAL 表示是 MotionEvent 中的历史采样
+ *   actionIndex 1 字节，只有 ACTION_POINTER_DOWN / ACTION_POINTER_UP 有
+ *   dt          zigzag varint，和上一条记录的时间差，单位毫秒
+ *   count       1 字节，pointer 数量
+ *   每个 pointer: id (varint), dx, dy (zigzag varint)
+ * </pre>
+ * 坐标按 1/{@link #COORD_SCALE} 像素量化，和上一条记录同一位置、同一 id 的 pointer 做差分，
+ * 否则记录绝对值。一次拖动的每个采样一般只需要 5 - 8 个字节
+ */
+public final class TouchTrace {
+    static final int MAGIC = 0x47545243; // GTRC
+    static final int VERSION = 1;
+    static final int FLAG_HISTORICAL = 0x10;
+    static final int ACTION_MASK = 0x0F;
+
+    /**
+     * 坐标的量化精度，远小于触摸屏的实际精度
+     */
+    public static final int COORD_SCALE = 64;
+
+    private TouchTrace() {}
+
+    static int quantize(float value) {
+        return Math.round(value * COORD_SCALE);
+    }
+
+    static float dequantize(int value) {
+        return value / (float) COORD_SCALE;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static boolean hasActionIndex(int action) {
+        return action == GestureRecognizer.ACTION_POINTER_DOWN ||
+                action == GestureRecognizer.ACTION_POINTER_UP;
+    }
+}
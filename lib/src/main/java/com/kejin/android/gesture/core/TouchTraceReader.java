@@ -0,0 +1,166 @@
+package com.kejin.android.gesture.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取 {@link TouchTrace} 格式的轨迹，每次 {@link #next()} 之后通过 getter 读取当前记录
+ * 返回的数组会被复用
+ */
+public class TouchTraceReader implements Closeable {
+    private final InputStream in;
+    private final int viewWidth, viewHeight;
+    private final int contentWidth, contentHeight;
+
+    private int action = 0;
+    private int actionIndex = 0;
+    private boolean historical = false;
+    private long eventTime = 0;
+    private int pointerCount = 0;
+    private final int[] pointerIds = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] qxs = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] qys = new int[GestureRecognizer.MAX_POINTERS];
+    private final float[] xs = new float[GestureRecognizer.MAX_POINTERS];
+    private final float[] ys = new float[GestureRecognizer.MAX_POINTERS];
+
+    public TouchTraceReader(InputStream in) throws IOException {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        if (readInt() != TouchTrace.MAGIC) {
+            throw new IOException("Not a touch trace");
+        }
+        int version = readInt();
+        if (version != TouchTrace.VERSION) {
+            throw new IOException("Unsupported touch trace version: " + version);
+        }
+        viewWidth = readInt();
+        viewHeight = readInt();
+        contentWidth = readInt();
+        contentHeight = readInt();
+    }
+
+    /**
+     * @return false 表示已经读完
+     */
+    public boolean next() throws IOException {
+        int head = in.read();
+        if (head < 0) {
+            return false;
+        }
+        action = head & TouchTrace.ACTION_MASK;
+        historical = (head & TouchTrace.FLAG_HISTORICAL) != 0;
+        actionIndex = TouchTrace.hasActionIndex(action) ? readByte() : 0;
+        eventTime += TouchTrace.unzigzag(readVarLong());
+        int lastCount = pointerCount;
+        pointerCount = readByte();
+        if (pointerCount > GestureRecognizer.MAX_POINTERS) {
+            throw new IOException("Too many pointers: " + pointerCount);
+        }
+        for (int i = 0; i < pointerCount; i++) {
+            int id = readVarInt();
+            int x = TouchTrace.unzigzag(readVarInt());
+            int y = TouchTrace.unzigzag(readVarInt());
+            if (i < lastCount && pointerIds[i] == id) {
+                x += qxs[i];
+                y += qys[i];
+            }
+            pointerIds[i] = id;
+            qxs[i] = x;
+            qys[i] = y;
+            xs[i] = TouchTrace.dequantize(x);
+            ys[i] = TouchTrace.dequantize(y);
+        }
+        return true;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    public int getContentWidth() {
+        return contentWidth;
+    }
+
+    public int getContentHeight() {
+        return contentHeight;
+    }
+
+    public int getAction() {
+        return action;
+    }
+
+    public int getActionIndex() {
+        return actionIndex;
+    }
+
+    public boolean isHistorical() {
+        return historical;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public int getPointerCount() {
+        return pointerCount;
+    }
+
+    public int[] getPointerIds() {
+        return pointerIds;
+    }
+
+    public float[] getXs() {
+        return xs;
+    }
+
+    public float[] getYs() {
+        return ys;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated touch trace");
+        }
+        return b;
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
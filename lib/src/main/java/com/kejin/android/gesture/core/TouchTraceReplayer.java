@@ -0,0 +1,98 @@
+package com.kejin.android.gesture.core;
+
+import java.io.IOException;
+
+/**
+ * 不依赖 Android 回放 {@link TouchTrace}，按和 GestureDetector 相同的方式把采样交给 {@link GestureRecognizer}
+ * 使用 {@link VirtualGestureClock}，延时任务按轨迹中的事件时间执行，结果是确定的，可以在 JVM 单元测试中使用
+ * fling 只记录启动时的速度，不执行
+ */
+public class TouchTraceReplayer {
+    private final GestureRecognizer recognizer;
+    private boolean historicalSamplesEnable = false;
+
+    private final VirtualGestureHost host = new VirtualGestureHost();
+    private final VirtualGestureClock clock = host.getClock();
+
+    public TouchTraceReplayer(GestureCallback callback) {
+        this.recognizer = new GestureRecognizer(callback, host);
+    }
+
+    /**
+     * 用来设置和录制时一致的阈值
+     */
+    public GestureRecognizer getRecognizer() {
+        return recognizer;
+    }
+
+    /**
+     * 和 GestureDetector#setHistoricalSamplesEnable 一致
+     */
+    public void setHistoricalSamplesEnable(boolean enable) {
+        historicalSamplesEnable = enable;
+    }
+
+    /**
+     * 回放剩下的所有记录，结束后执行所有还没执行的延时任务
+     * @return 回放的记录数
+     */
+    public int replay(TouchTraceReader reader) throws IOException {
+        int count = 0;
+        while (reader.next()) {
+            replayRecord(reader);
+            count++;
+        }
+        flush();
+        return count;
+    }
+
+    /**
+     * 回放当前这一条记录
+     */
+    public void replayRecord(TouchTraceReader reader) {
+        advanceTo(reader.getEventTime());
+        int action = reader.getAction();
+        if (reader.isHistorical()) {
+            if (historicalSamplesEnable) {
+                recognizer.onTouchEvent(action, 0, reader.getEventTime(), reader.getPointerCount(),
+                        reader.getPointerIds(), reader.getXs(), reader.getYs());
+            } else {
+                recognizer.addMovement(reader.getEventTime(), reader.getPointerCount(),
+                        reader.getPointerIds(), reader.getXs(), reader.getYs());
+            }
+            return;
+        }
+        recognizer.onTouchEvent(action, reader.getActionIndex(), reader.getEventTime(),
+                reader.getPointerCount(), reader.getPointerIds(), reader.getXs(), reader.getYs());
+    }
+
+    /**
+     * 执行到期的延时任务
+     */
+    public void advanceTo(long time) {
+        clock.advanceTo(time);
+    }
+
+    /**
+     * 执行所有还没执行的延时任务
+     */
+    public void flush() {
+        clock.flush();
+    }
+
+    public long getCurrentTime() {
+        return clock.now();
+    }
+
+    public int getFlingCount() {
+        return host.getFlingCount();
+    }
+
+    public int getFlingVelocityX() {
+        return host.getFlingVelocityX();
+    }
+
+    public int getFlingVelocityY() {
+        return host.getFlingVelocityY();
+    }
+}
@@ -0,0 +1,101 @@
+package com.kejin.android.gesture.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 把触摸采样写成 {@link TouchTrace} 格式，写入时不分配对象
+ * 不是线程安全的，一般在主线程随触摸事件写入
+ */
+public class TouchTraceWriter implements Closeable {
+    private final OutputStream out;
+    private long lastTime = 0;
+    private int lastCount = 0;
+    private final int[] lastIds = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] lastXs = new int[GestureRecognizer.MAX_POINTERS];
+    private final int[] lastYs = new int[GestureRecognizer.MAX_POINTERS];
+    private int recordCount = 0;
+
+    public TouchTraceWriter(OutputStream out, int viewWidth, int viewHeight,
+                            int contentWidth, int contentHeight) throws IOException {
+        this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out);
+        writeInt(TouchTrace.MAGIC);
+        writeInt(TouchTrace.VERSION);
+        writeInt(viewWidth);
+        writeInt(viewHeight);
+        writeInt(contentWidth);
+        writeInt(contentHeight);
+    }
+
+    /**
+     * 参数和 {@link GestureRecognizer#onTouchEvent(int, int, long, int, int[], float[], float[])} 一致
+     * @param historical 是否是 MotionEvent 中合并的历史采样，回放时和 GestureDetector 一样处理
+     */
+    public void write(int action, int actionIndex, long eventTime, int pointerCount,
+                      int[] pointerIds, float[] xs, float[] ys, boolean historical) throws IOException {
+        pointerCount = Math.min(pointerCount, GestureRecognizer.MAX_POINTERS);
+        out.write((action & TouchTrace.ACTION_MASK) | (historical ? TouchTrace.FLAG_HISTORICAL : 0));
+        if (TouchTrace.hasActionIndex(action)) {
+            out.write(actionIndex);
+        }
+        writeVarLong(TouchTrace.zigzag(eventTime - lastTime));
+        lastTime = eventTime;
+        out.write(pointerCount);
+        for (int i = 0; i < pointerCount; i++) {
+            int id = pointerIds[i];
+            int x = TouchTrace.quantize(xs[i]);
+            int y = TouchTrace.quantize(ys[i]);
+            writeVarInt(id);
+            if (i < lastCount && lastIds[i] == id) {
+                writeVarInt(TouchTrace.zigzag(x - lastXs[i]));
+                writeVarInt(TouchTrace.zigzag(y - lastYs[i]));
+            } else {
+                writeVarInt(TouchTrace.zigzag(x));
+                writeVarInt(TouchTrace.zigzag(y));
+            }
+            lastIds[i] = id;
+            lastXs[i] = x;
+            lastYs[i] = y;
+        }
+        lastCount = pointerCount;
+        recordCount++;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
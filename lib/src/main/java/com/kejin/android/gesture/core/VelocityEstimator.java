@@ -0,0 +1,156 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 纯 Java 的速度估计，替代 android.view.VelocityTracker
+ * 和系统默认的策略一样，对最近 100ms 内的采样做二次最小二乘拟合，取当前时刻的一阶导数
+ * 按 pointer id 记录，所有数据都在固定大小的数组中，不会产生对象分配
+ */
+public class VelocityEstimator {
+    /**
+     * 支持的最大 pointer id (不包含)
+     */
+    public static final int MAX_POINTER_ID = 32;
+
+    private static final int HISTORY_SIZE = 20;
+    private static final long HORIZON_MS = 100;
+    /**
+     * 抬起时距离最后一次移动超过这个时间，认为手指已经停下来了
+     */
+    private static final long ASSUME_STOPPED_MS = 40;
+
+    private final float[] xs = new float[MAX_POINTER_ID * HISTORY_SIZE];
+    private final float[] ys = new float[MAX_POINTER_ID * HISTORY_SIZE];
+    private final long[] times = new long[MAX_POINTER_ID * HISTORY_SIZE];
+    private final int[] heads = new int[MAX_POINTER_ID];
+    private final int[] counts = new int[MAX_POINTER_ID];
+
+    private float xVelocity = 0, yVelocity = 0;
+
+    public void clear() {
+        for (int i = 0; i < MAX_POINTER_ID; i++) {
+            counts[i] = 0;
+            heads[i] = 0;
+        }
+        xVelocity = 0;
+        yVelocity = 0;
+    }
+
+    public void clearPointer(int pointerId) {
+        if (pointerId < 0 || pointerId >= MAX_POINTER_ID) {
+            return;
+        }
+        counts[pointerId] = 0;
+        heads[pointerId] = 0;
+    }
+
+    public void addMovement(int pointerId, float x, float y, long eventTime) {
+        if (pointerId < 0 || pointerId >= MAX_POINTER_ID) {
+            return;
+        }
+        int base = pointerId * HISTORY_SIZE;
+        int count = counts[pointerId];
+        if (count > 0) {
+            int last = base + (heads[pointerId] + HISTORY_SIZE - 1) % HISTORY_SIZE;
+            if (eventTime < times[last]) {
+                // 时间倒退，说明是一个新的序列
+                count = 0;
+                heads[pointerId] = 0;
+            }
+        }
+        int index = base + heads[pointerId];
+        xs[index] = x;
+        ys[index] = y;
+        times[index] = eventTime;
+        heads[pointerId] = (heads[pointerId] + 1) % HISTORY_SIZE;
+        counts[pointerId] = Math.min(count + 1, HISTORY_SIZE);
+    }
+
+    /**
+     * 计算速度，结果通过 {@link #getXVelocity()} {@link #getYVelocity()} 获取
+     * @param pointerId 需要计算的 pointer
+     * @param units 1 表示 px/ms, 1000 表示 px/s
+     * @param eventTime 当前事件的时间，如果距离最后一次采样太久，速度为 0
+     */
+    public void computeVelocity(int pointerId, int units, long eventTime) {
+        xVelocity = 0;
+        yVelocity = 0;
+        if (pointerId < 0 || pointerId >= MAX_POINTER_ID) {
+            return;
+        }
+        int count = counts[pointerId];
+        if (count < 2) {
+            return;
+        }
+        int base = pointerId * HISTORY_SIZE;
+        int newest = base + (heads[pointerId] + HISTORY_SIZE - 1) % HISTORY_SIZE;
+        long newestTime = times[newest];
+        if (eventTime - newestTime > ASSUME_STOPPED_MS) {
+            return;
+        }
+
+        // 以最新的采样为原点，t 的单位为秒，拟合 p = b0 + b1 * t + b2 * t^2
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        double sx = 0, sxt = 0, sxt2 = 0;
+        double sy = 0, syt = 0, syt2 = 0;
+        int n = 0;
+        float x0 = xs[newest], y0 = ys[newest];
+        for (int i = 0; i < count; i++) {
+            int index = base + (heads[pointerId] + HISTORY_SIZE - 1 - i) % HISTORY_SIZE;
+            long age = newestTime - times[index];
+            if (age > HORIZON_MS) {
+                break;
+            }
+            double t = -age / 1000.0;
+            double t2 = t * t;
+            double px = xs[index] - x0;
+            double py = ys[index] - y0;
+            s0 += 1;
+            s1 += t;
+            s2 += t2;
+            s3 += t2 * t;
+            s4 += t2 * t2;
+            sx += px;
+            sxt += px * t;
+            sxt2 += px * t2;
+            sy += py;
+            syt += py * t;
+            syt2 += py * t2;
+            n++;
+        }
+        if (n < 2) {
+            return;
+        }
+
+        double vx, vy;
+        double det3 = n < 3 ? 0 : determinant(s0, s1, s2, s1, s2, s3, s2, s3, s4);
+        if (Math.abs(det3) > 1e-18) {
+            // 二次拟合，Cramer's rule 求 b1
+            vx = determinant(s0, sx, s2, s1, sxt, s3, s2, sxt2, s4) / det3;
+            vy = determinant(s0, sy, s2, s1, syt, s3, s2, syt2, s4) / det3;
+        } else {
+            // 采样太少，退化为线性拟合
+            double det2 = s0 * s2 - s1 * s1;
+            if (Math.abs(det2) < 1e-18) {
+                return;
+            }
+            vx = (s0 * sxt - s1 * sx) / det2;
+            vy = (s0 * syt - s1 * sy) / det2;
+        }
+        xVelocity = (float) (vx * units / 1000.0);
+        yVelocity = (float) (vy * units / 1000.0);
+    }
+
+    public float getXVelocity() {
+        return xVelocity;
+    }
+
+    public float getYVelocity() {
+        return yVelocity;
+    }
+
+    private static double determinant(double a, double b, double c,
+                                      double d, double e, double f,
+                                      double g, double h, double i) {
+        return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+    }
+}
@@ -0,0 +1,70 @@
+package com.kejin.android.gesture.core;
+
+import java.util.ArrayList;
+
+/**
+ * 虚拟帧时钟，只在调用 {@link #doFrame(long)} 时产生一帧，帧间隔由调用方决定
+ * 可以模拟任意刷新率和掉帧，用于测试
+ */
+public class VirtualFrameSource implements FrameSource {
+    private long currentTime = 0;
+    private final ArrayList<Callback> callbacks = new ArrayList<>();
+    private final ArrayList<Callback> running = new ArrayList<>();
+
+    @Override
+    public long nanoTime() {
+        return currentTime;
+    }
+
+    @Override
+    public void postFrameCallback(Callback callback) {
+        callbacks.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(Callback callback) {
+        for (int i = callbacks.size() - 1; i >= 0; i--) {
+            if (callbacks.get(i) == callback) {
+                callbacks.remove(i);
+            }
+        }
+    }
+
+    /**
+     * 时间前进到 frameTimeNanos 并产生一帧，回调中新请求的帧在下一次调用时回调
+     * @return 这一帧回调的数量
+     */
+    public int doFrame(long frameTimeNanos) {
+        currentTime = Math.max(currentTime, frameTimeNanos);
+        running.clear();
+        running.addAll(callbacks);
+        callbacks.clear();
+        for (int i = 0; i < running.size(); i++) {
+            running.get(i).doFrame(currentTime);
+        }
+        int count = running.size();
+        running.clear();
+        return count;
+    }
+
+    /**
+     * 按固定间隔产生帧，直到没有请求或者达到最大帧数
+     * @return 产生的帧数
+     */
+    public int runFrames(long intervalNanos, int maxFrames) {
+        int frames = 0;
+        while (!callbacks.isEmpty() && frames < maxFrames) {
+            doFrame(currentTime + intervalNanos);
+            frames++;
+        }
+        return frames;
+    }
+
+    public void setTime(long timeNanos) {
+        currentTime = timeNanos;
+    }
+
+    public int getPendingCount() {
+        return callbacks.size();
+    }
+}
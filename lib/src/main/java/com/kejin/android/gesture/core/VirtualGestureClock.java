@@ -0,0 +1,72 @@
+package com.kejin.android.gesture.core;
+
+import java.util.ArrayList;
+
+/**
+ * 虚拟时钟，时间只在调用 {@link #advanceTo(long)} 时前进，到期的任务按时间顺序在调用线程执行
+ * 用于回放和测试，几个小时的手势可以在几秒内跑完，结果是确定的
+ */
+public class VirtualGestureClock implements GestureClock {
+    private long currentTime = 0;
+    private final ArrayList<Runnable> actions = new ArrayList<>();
+    private final ArrayList<Long> times = new ArrayList<>();
+
+    @Override
+    public long now() {
+        return currentTime;
+    }
+
+    @Override
+    public void postAt(Runnable action, long timeMillis) {
+        actions.add(action);
+        times.add(timeMillis);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable action) {
+        for (int i = actions.size() - 1; i >= 0; i--) {
+            if (actions.get(i) == action) {
+                actions.remove(i);
+                times.remove(i);
+            }
+        }
+    }
+
+    /**
+     * 时间前进到 time，执行期间到期的任务，任务中新加的到期任务也会执行
+     * time 比当前时间早时不会后退
+     */
+    public void advanceTo(long time) {
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < times.size(); i++) {
+                if (times.get(i) <= time && (next < 0 || times.get(i) < times.get(next))) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            currentTime = Math.max(currentTime, times.remove(next));
+            actions.remove(next).run();
+        }
+        currentTime = Math.max(currentTime, time);
+    }
+
+    /**
+     * 执行所有还没执行的任务
+     */
+    public void flush() {
+        while (!times.isEmpty()) {
+            long last = currentTime;
+            for (long time : times) {
+                last = Math.max(last, time);
+            }
+            advanceTo(last);
+        }
+    }
+
+    public int getPendingCount() {
+        return actions.size();
+    }
+}
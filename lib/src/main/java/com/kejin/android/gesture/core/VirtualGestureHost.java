@@ -0,0 +1,61 @@
+package com.kejin.android.gesture.core;
+
+/**
+ * 基于 {@link VirtualGestureClock} 的 {@link GestureRecognizer.Host}，延时任务由虚拟时钟执行
+ * fling 只记录启动时的速度，不执行，用于回放和 JVM 单元测试
+ */
+public class VirtualGestureHost implements GestureRecognizer.Host {
+    private final VirtualGestureClock clock;
+
+    private int flingCount = 0;
+    private int flingVelocityX = 0, flingVelocityY = 0;
+
+    public VirtualGestureHost() {
+        this(new VirtualGestureClock());
+    }
+
+    public VirtualGestureHost(VirtualGestureClock clock) {
+        this.clock = clock;
+    }
+
+    public VirtualGestureClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public long now() {
+        return clock.now();
+    }
+
+    @Override
+    public void postAt(Runnable action, long timeMillis) {
+        clock.postAt(action, timeMillis);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable action) {
+        clock.removeCallbacks(action);
+    }
+
+    @Override
+    public void startFling(int velocityX, int velocityY, boolean singlePointer) {
+        flingCount++;
+        flingVelocityX = velocityX;
+        flingVelocityY = velocityY;
+    }
+
+    @Override
+    public void cancelFling() {}
+
+    public int getFlingCount() {
+        return flingCount;
+    }
+
+    public int getFlingVelocityX() {
+        return flingVelocityX;
+    }
+
+    public int getFlingVelocityY() {
+        return flingVelocityY;
+    }
+}
@@ -0,0 +1,192 @@
+package com.kejin.android.gesture.image;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按字节数分组，总大小有上限的 Bitmap 复用池，解码时通过 inBitmap 复用不再显示的 Bitmap
+ * 同一个 pool 可以在多个 GestureImageView 之间共享 (比如 ViewPager 的所有页面)
+ * 线程安全
+ */
+public class BitmapPool {
+    /**
+     * 复用的 Bitmap 最多是需要的大小的几倍，避免小图占用大块内存
+     */
+    private static final int MAX_SIZE_MULTIPLE = 2;
+
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+    // 放入的顺序，超过上限时先移除最早放入的
+    private final ArrayDeque<Bitmap> order = new ArrayDeque<>();
+
+    private int maxBytes;
+    private int currentBytes = 0;
+
+    private int hitCount = 0;
+    private int missCount = 0;
+    private int putCount = 0;
+    private int evictionCount = 0;
+    private int reuseFailureCount = 0;
+
+    public BitmapPool(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 取出一个可以复用的 Bitmap，已经 reconfigure 为需要的大小
+     * @return 没有合适的返回 null
+     */
+    @Nullable
+    public synchronized Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        int needBytes = width * height * bytesPerPixel(config);
+        Map.Entry<Integer, ArrayDeque<Bitmap>> entry = buckets.ceilingEntry(needBytes);
+        while (entry != null && entry.getKey() <= needBytes * MAX_SIZE_MULTIPLE) {
+            ArrayDeque<Bitmap> bucket = entry.getValue();
+            Iterator<Bitmap> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                Bitmap bitmap = iterator.next();
+                if (bitmap.getConfig() != config) {
+                    continue;
+                }
+                iterator.remove();
+                if (bucket.isEmpty()) {
+                    buckets.remove(entry.getKey());
+                }
+                order.remove(bitmap);
+                currentBytes -= entry.getKey();
+                hitCount++;
+                bitmap.reconfigure(width, height, config);
+                return bitmap;
+            }
+            entry = buckets.higherEntry(entry.getKey());
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * 放入一个不再使用的 Bitmap，调用之后不能再使用这个 Bitmap
+     */
+    public synchronized void put(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > maxBytes || bitmap.getConfig() == null) {
+            bitmap.recycle();
+            return;
+        }
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.add(bitmap);
+        order.add(bitmap);
+        currentBytes += size;
+        putCount++;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 从 pool 取出的 Bitmap 不能作为 inBitmap 复用时丢弃，不再放回，避免下一次取到同一个再失败一次
+     * 之前的命中改为未命中
+     */
+    public synchronized void discard(@Nullable Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        reuseFailureCount++;
+        if (hitCount > 0) {
+            hitCount--;
+            missCount++;
+        }
+        bitmap.recycle();
+    }
+
+    public synchronized void resize(int maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    private void trimToSize(int size) {
+        while (currentBytes > size && !order.isEmpty()) {
+            Bitmap bitmap = order.poll();
+            int bytes = bitmap.getAllocationByteCount();
+            ArrayDeque<Bitmap> bucket = buckets.get(bytes);
+            if (bucket != null) {
+                bucket.remove(bitmap);
+                if (bucket.isEmpty()) {
+                    buckets.remove(bytes);
+                }
+            }
+            currentBytes -= bytes;
+            evictionCount++;
+            bitmap.recycle();
+        }
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getPutCount() {
+        return putCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 取出之后解码时不能复用而被丢弃的次数
+     */
+    public synchronized int getReuseFailureCount() {
+        return reuseFailureCount;
+    }
+
+    public synchronized int getCurrentSize() {
+        return currentBytes;
+    }
+
+    public synchronized int getMaxSize() {
+        return maxBytes;
+    }
+
+    @NonNull
+    @Override
+    public synchronized String toString() {
+        return "BitmapPool[size=" + currentBytes + "/" + maxBytes +
+                ", hits=" + hitCount + ", misses=" + missCount +
+                ", puts=" + putCount + ", evictions=" + evictionCount +
+                ", reuseFailures=" + reuseFailureCount + "]";
+    }
+
+    private static int bytesPerPixel(@NonNull Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            case RGBA_F16:
+                return 8;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.kejin.android.gesture.image;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.graphics.BitmapRegionDecoder;
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 图片来源，需要能多次打开：先解码一个和 view 大小匹配的预览图，放大之后再按需分块解码原图
+ * 所有方法都在后台线程调用
+ */
+public abstract class ImageSource {
+
+    @WorkerThread
+    @NonNull
+    public abstract InputStream open() throws IOException;
+
+    /**
+     * 图片的唯一标识，内容变化时标识也要变化，用于 {@link PreviewDiskCache}
+     * @return null 表示不缓存
+     */
+    @WorkerThread
+    @Nullable
+    public String getCacheKey() {
+        return null;
+    }
+
+    @WorkerThread
+    @NonNull
+    @SuppressWarnings("deprecation")
+    public BitmapRegionDecoder newRegionDecoder() throws IOException {
+        try (InputStream stream = open()) {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(stream, false);
+            if (decoder == null) {
+                throw new IOException("Unsupported image format");
+            }
+            return decoder;
+        }
+    }
+
+    @NonNull
+    public static ImageSource file(@NonNull String path) {
+        return new ImageSource() {
+            @NonNull
+            @Override
+            public InputStream open() throws FileNotFoundException {
+                return new FileInputStream(path);
+            }
+
+            @Nullable
+            @Override
+            public String getCacheKey() {
+                File file = new File(path);
+                if (!file.exists()) {
+                    return null;
+                }
+                return path + ":" + file.length() + ":" + file.lastModified();
+            }
+
+            @NonNull
+            @Override
+            @SuppressWarnings("deprecation")
+            public BitmapRegionDecoder newRegionDecoder() throws IOException {
+                BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(path, false);
+                if (decoder == null) {
+                    throw new IOException("Unsupported image format: " + path);
+                }
+                return decoder;
+            }
+        };
+    }
+
+    /**
+     * 缓存标识包含 ContentResolver 查询到的大小和修改时间，内容变化时不会用到旧的预览图
+     * 查询不到时只用 uri 作为标识，这时 uri 对应的内容不能变化
+     */
+    @NonNull
+    public static ImageSource uri(@NonNull ContentResolver resolver, @NonNull Uri uri) {
+        return new ImageSource() {
+            @NonNull
+            @Override
+            public InputStream open() throws IOException {
+                InputStream stream = resolver.openInputStream(uri);
+                if (stream == null) {
+                    throw new FileNotFoundException(uri.toString());
+                }
+                return stream;
+            }
+
+            @Nullable
+            @Override
+            public String getCacheKey() {
+                String key = uri.toString();
+                String scheme = uri.getScheme();
+                if (ContentResolver.SCHEME_FILE.equals(scheme) && uri.getPath() != null) {
+                    File file = new File(uri.getPath());
+                    if (!file.exists()) {
+                        return null;
+                    }
+                    return key + ":" + file.length() + ":" + file.lastModified();
+                }
+                if (!ContentResolver.SCHEME_CONTENT.equals(scheme)) {
+                    return key;
+                }
+                try (Cursor cursor = resolver.query(uri, null, null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst()) {
+                        long size = getLong(cursor, OpenableColumns.SIZE);
+                        long modified = getLong(cursor, DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+                        if (modified < 0) {
+                            modified = getLong(cursor, MediaStore.MediaColumns.DATE_MODIFIED);
+                        }
+                        if (size >= 0 || modified >= 0) {
+                            return key + ":" + size + ":" + modified;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // provider 不支持查询，只用 uri
+                }
+                return key;
+            }
+        };
+    }
+
+    /**
+     * @return 没有这一列或者为 null 时返回 -1
+     */
+    private static long getLong(@NonNull Cursor cursor, @NonNull String column) {
+        int index = cursor.getColumnIndex(column);
+        if (index < 0 || cursor.isNull(index)) {
+            return -1;
+        }
+        return cursor.getLong(index);
+    }
+}
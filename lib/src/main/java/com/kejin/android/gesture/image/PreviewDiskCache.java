@@ -0,0 +1,284 @@
+package com.kejin.android.gesture.image;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预览图的磁盘缓存，以 ARGB_8888 原始像素保存，读取时 mmap 之后直接拷贝到 Bitmap，不需要重新解码
+ * 以图片标识和采样率作为 key，总大小有上限，超过时按最近使用的顺序删除
+ * 同一个目录只能有一个实例，线程安全，第一次读写时才扫描目录
+ * 目录中只会管理和删除自己的缓存文件，可以和其它文件共用一个目录
+ */
+public class PreviewDiskCache {
+    private static final String TMP_SUFFIX = ".tmp";
+
+    public interface PixelReader {
+        /**
+         * @param pixels ARGB_8888 的像素，只在回调中有效
+         */
+        void read(int width, int height, boolean hasAlpha, @NonNull ByteBuffer pixels) throws IOException;
+    }
+
+    public interface PixelWriter {
+        /**
+         * 写入 width * height * 4 字节的 ARGB_8888 像素
+         */
+        void write(@NonNull ByteBuffer pixels) throws IOException;
+    }
+
+    private static final int MAGIC = 0x47505256; // GPRV
+    private static final int VERSION = 1;
+    // magic, version, width, height, hasAlpha, keyLength
+    private static final int HEADER_SIZE = 6 * 4;
+    private static final String SUFFIX = ".px";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File directory;
+    private long maxBytes;
+    private long currentBytes = 0;
+    // 文件名 -> 文件大小，按访问顺序排列
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean loaded = false;
+
+    private int hitCount = 0;
+    private int missCount = 0;
+
+    public PreviewDiskCache(@NonNull File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 读取缓存的预览图
+     *
+     * @param pool 不为空时从 pool 中复用 Bitmap
+     * @return 没有缓存返回 null
+     */
+    @WorkerThread
+    @Nullable
+    public Bitmap get(@NonNull String key, int sampleSize, @Nullable BitmapPool pool) {
+        Bitmap[] result = new Bitmap[1];
+        boolean hit = read(key, sampleSize, (width, height, hasAlpha, pixels) -> {
+            Bitmap bitmap = pool != null ? pool.get(width, height, Bitmap.Config.ARGB_8888) : null;
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            }
+            result[0] = bitmap;
+            bitmap.copyPixelsFromBuffer(pixels);
+            bitmap.setHasAlpha(hasAlpha);
+        });
+        if (!hit && result[0] != null && pool != null) {
+            pool.put(result[0]);
+        }
+        return hit ? result[0] : null;
+    }
+
+    /**
+     * 保存预览图，只支持 ARGB_8888
+     */
+    @WorkerThread
+    public void put(@NonNull String key, int sampleSize, @NonNull Bitmap bitmap) {
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888 || bitmap.isRecycled()) {
+            return;
+        }
+        write(key, sampleSize, bitmap.getWidth(), bitmap.getHeight(), bitmap.hasAlpha(),
+                bitmap::copyPixelsToBuffer);
+    }
+
+    /**
+     * 按像素读取，文件 mmap 之后直接交给 reader，不经过中间的拷贝
+     * @return 是否命中，reader 抛出异常时缓存文件会被删除
+     */
+    @WorkerThread
+    public synchronized boolean read(@NonNull String key, int sampleSize, @NonNull PixelReader reader) {
+        loadEntries();
+        String name = fileName(key, sampleSize);
+        // get 会更新访问顺序，containsKey 不会
+        if (entries.get(name) == null) {
+            missCount++;
+            return false;
+        }
+        File file = new File(directory, name);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE ||
+                    buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Invalid preview cache: " + name);
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            boolean hasAlpha = buffer.getInt() != 0;
+            byte[] keyBytes = new byte[buffer.getInt()];
+            buffer.get(keyBytes);
+            if (!Arrays.equals(keyBytes, key.getBytes(UTF_8))) {
+                // 文件名冲突
+                missCount++;
+                return false;
+            }
+            if (buffer.remaining() < width * height * 4) {
+                throw new IOException("Truncated preview cache: " + name);
+            }
+            reader.read(width, height, hasAlpha, buffer);
+        } catch (Throwable e) {
+            removeEntry(name);
+            missCount++;
+            return false;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        hitCount++;
+        return true;
+    }
+
+    /**
+     * 按像素写入，writer 直接写到 mmap 的文件中
+     */
+    @WorkerThread
+    public synchronized void write(@NonNull String key, int sampleSize, int width, int height,
+                                   boolean hasAlpha, @NonNull PixelWriter writer) {
+        loadEntries();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        long size = HEADER_SIZE + keyBytes.length + (long) width * height * 4;
+        if (size > maxBytes) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        String name = fileName(key, sampleSize);
+        File tmp = new File(directory, name + TMP_SUFFIX);
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(width)
+                    .putInt(height)
+                    .putInt(hasAlpha ? 1 : 0)
+                    .putInt(keyBytes.length)
+                    .put(keyBytes);
+            writer.write(buffer);
+        } catch (Throwable e) {
+            tmp.delete();
+            return;
+        }
+        removeEntry(name);
+        if (!tmp.renameTo(new File(directory, name))) {
+            tmp.delete();
+            return;
+        }
+        entries.put(name, size);
+        currentBytes += size;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized void resize(long maxBytes) {
+        this.maxBytes = maxBytes;
+        loadEntries();
+        trimToSize(maxBytes);
+    }
+
+    public synchronized void clear() {
+        loadEntries();
+        trimToSize(0);
+    }
+
+    public synchronized long getCurrentSize() {
+        loadEntries();
+        return currentBytes;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    private void trimToSize(long size) {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (currentBytes > size && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            new File(directory, entry.getKey()).delete();
+            currentBytes -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void removeEntry(@NonNull String name) {
+        Long size = entries.remove(name);
+        if (size != null) {
+            currentBytes -= size;
+            new File(directory, name).delete();
+        }
+    }
+
+    /**
+     * 按最后修改时间恢复访问顺序，读取时会更新最后修改时间
+     */
+    private void loadEntries() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            if (isCacheFile(name)) {
+                entries.put(name, file.length());
+                currentBytes += file.length();
+            } else if (name.endsWith(SUFFIX + TMP_SUFFIX) &&
+                    isCacheFile(name.substring(0, name.length() - TMP_SUFFIX.length()))) {
+                file.delete(); // 没有写完的临时文件
+            }
+        }
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 是否是 fileName 生成的文件名：hash 的十六进制_采样率.px
+     */
+    private static boolean isCacheFile(@NonNull String name) {
+        if (!name.endsWith(SUFFIX)) {
+            return false;
+        }
+        int separator = name.indexOf('_');
+        int end = name.length() - SUFFIX.length();
+        if (separator < 1 || separator > 8 || separator + 1 >= end) {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = name.charAt(i);
+            if (i < separator ? Character.digit(c, 16) < 0 : i > separator && !Character.isDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @NonNull
+    private static String fileName(@NonNull String key, int sampleSize) {
+        return Integer.toHexString(key.hashCode()) + "_" + sampleSize + SUFFIX;
+    }
+}
@@ -0,0 +1,612 @@
+package com.kejin.android.gesture.image;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于 BitmapRegionDecoder 的分块图片
+ * 只解码和显示区域相交的块，采样率和当前缩放匹配，解码在后台线程进行
+ * 解码好的块保存在按字节限制大小的 LRU 缓存中，内存和屏幕大小相关，和图片大小无关
+ * 使用 {@link ImageSource} 时先解码一个和 view 大小匹配的预览图，只有放大超过预览图的分辨率时才创建 decoder
+ * 所有方法都在主线程调用
+ */
+public class TiledImage {
+    /**
+     * 每个块在屏幕上的大小
+     */
+    public static final int TILE_SIZE = 512;
+
+    private static final long BASE_KEY = -1L;
+
+    private static final ExecutorService sDecodeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "TiledImageDecoder");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
+    public interface Listener {
+        /**
+         * 图片大小已知，或者有新的块解码完成，需要重绘
+         */
+        void onTileLoaded(@NonNull TiledImage image);
+    }
+
+    @Nullable
+    private final ImageSource source;
+    // 使用 ImageSource 时在后台线程中按需创建，由 decodeLock 保护
+    private BitmapRegionDecoder decoder;
+    private int width, height;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Object decodeLock = new Object();
+
+    private final TileCache tileCache;
+    // 已经请求还没有解码完成的块，只在主线程访问
+    private long[] pendingTiles = new long[16];
+    private int pendingCount = 0;
+    private volatile int requestGeneration = 0;
+    // 上一次请求时的采样率，和 colStart 等一起判断可见的块是否变化
+    private int requestedSample = 0;
+    private volatile boolean released = false;
+
+    @Nullable
+    private Listener listener = null;
+    @Nullable
+    private volatile BitmapPool bitmapPool = null;
+    @Nullable
+    private volatile PreviewDiskCache previewCache = null;
+
+    // 整张图的底图 (预览图)，分辨率不低于 view，不放在 LRU 中，块没有解码出来之前显示底图
+    private Bitmap baseBitmap = null;
+    private int baseSampleSize = 0;
+
+    // 当前的采样率和可见的块范围
+    private int sampleSize = 1;
+    private int colStart, colEnd, rowStart, rowEnd;
+
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF tempDst = new RectF();
+
+    public TiledImage(@NonNull BitmapRegionDecoder decoder, int cacheBytes) {
+        this.source = null;
+        this.decoder = decoder;
+        this.width = decoder.getWidth();
+        this.height = decoder.getHeight();
+        this.tileCache = new TileCache(cacheBytes);
+    }
+
+    /**
+     * 先在后台读取图片的大小，完成后回调 {@link Listener#onTileLoaded(TiledImage)}
+     * 在这之前 getWidth / getHeight 为 0
+     */
+    public TiledImage(@NonNull ImageSource source, int cacheBytes) {
+        this.source = source;
+        this.decoder = null;
+        this.tileCache = new TileCache(cacheBytes);
+        sDecodeExecutor.execute(() -> {
+            if (released) {
+                return;
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream stream = source.open()) {
+                BitmapFactory.decodeStream(stream, null, options);
+            } catch (Throwable e) {
+                return;
+            }
+            if (options.outWidth > 0 && options.outHeight > 0) {
+                handler.post(() -> onBoundsDecoded(options.outWidth, options.outHeight));
+            }
+        });
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 移出缓存的块和释放时的底图放入 pool，解码时从 pool 中复用
+     */
+    public void setBitmapPool(@Nullable BitmapPool pool) {
+        bitmapPool = pool;
+    }
+
+    /**
+     * 使用 {@link ImageSource} 时，预览图优先从磁盘缓存读取，解码之后写入缓存
+     */
+    public void setPreviewCache(@Nullable PreviewDiskCache cache) {
+        previewCache = cache;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 图片大小是否已知
+     */
+    public boolean isReady() {
+        return width > 0 && height > 0;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setCacheSize(int cacheBytes) {
+        tileCache.resize(Math.max(1, cacheBytes));
+    }
+
+    /**
+     * 清空缓存的块，底图保留
+     */
+    @MainThread
+    public void trimMemory() {
+        tileCache.evictAll();
+        pendingCount = 0;
+        requestGeneration++;
+        requestedSample = 0;
+    }
+
+    /**
+     * 根据图片当前的显示区域，计算采样率和可见的块，请求解码缓存中没有的块
+     *
+     * @param displayRect 图片在 view 中的显示区域
+     * @param viewWidth   view 内容区域的宽
+     * @param viewHeight  view 内容区域的高
+     */
+    @MainThread
+    public void update(@NonNull RectF displayRect, int viewWidth, int viewHeight) {
+        if (released || !isReady() ||
+                viewWidth < 1 || viewHeight < 1 || displayRect.width() < 1) {
+            return;
+        }
+        if (baseSampleSize == 0) {
+            // 底图的分辨率不低于 view，没有放大的时候不需要解码块
+            baseSampleSize = calculateSampleSize(Math.max(
+                    (float) width / viewWidth, (float) height / viewHeight));
+            requestTile(BASE_KEY, 0, 0, width, height, baseSampleSize);
+        }
+
+        // 一个屏幕像素对应多少个图片像素
+        float imagePerScreen = width / displayRect.width();
+        sampleSize = calculateSampleSize(imagePerScreen);
+        if (sampleSize >= baseSampleSize) {
+            colEnd = colStart - 1; // 底图已经足够清晰
+            return;
+        }
+
+        float left = Math.max(0, -displayRect.left * imagePerScreen);
+        float top = Math.max(0, -displayRect.top * imagePerScreen);
+        float right = Math.min(width, (viewWidth - displayRect.left) * imagePerScreen);
+        float bottom = Math.min(height, (viewHeight - displayRect.top) * imagePerScreen);
+        if (right <= left || bottom <= top) {
+            colEnd = colStart - 1;
+            return;
+        }
+        int tileImageSize = TILE_SIZE * sampleSize;
+        int newColStart = (int) (left / tileImageSize);
+        int newColEnd = (int) ((right - 1) / tileImageSize);
+        int newRowStart = (int) (top / tileImageSize);
+        int newRowEnd = (int) ((bottom - 1) / tileImageSize);
+        if (sampleSize != requestedSample || newColStart != colStart || newColEnd != colEnd ||
+                newRowStart != rowStart || newRowEnd != rowEnd) {
+            // 可见的块变化时，之前请求但还没开始解码的块不再解码
+            requestedSample = sampleSize;
+            colStart = newColStart;
+            colEnd = newColEnd;
+            rowStart = newRowStart;
+            rowEnd = newRowEnd;
+            requestGeneration++;
+            pendingCount = 0;
+        }
+
+        // 可见的块没有变化时只请求缓存中被移出的块，已经在解码的不再请求
+        for (int row = rowStart; row <= rowEnd; row++) {
+            for (int col = colStart; col <= colEnd; col++) {
+                long key = tileKey(sampleSize, col, row);
+                if (tileCache.contains(key)) {
+                    continue;
+                }
+                int l = col * tileImageSize;
+                int t = row * tileImageSize;
+                requestTile(key, l, t, Math.min(width, l + tileImageSize),
+                        Math.min(height, t + tileImageSize), sampleSize);
+            }
+        }
+    }
+
+    /**
+     * 先绘制底图，再绘制已经解码的可见块
+     *
+     * @param displayRect 图片在 canvas 中的显示区域
+     */
+    @MainThread
+    public void draw(@NonNull Canvas canvas, @NonNull RectF displayRect) {
+        if (released) {
+            return;
+        }
+        if (baseBitmap != null) {
+            canvas.drawBitmap(baseBitmap, null, displayRect, paint);
+        }
+        if (colEnd < colStart) {
+            return;
+        }
+        float screenPerImage = displayRect.width() / width;
+        int tileImageSize = TILE_SIZE * sampleSize;
+        for (int row = rowStart; row <= rowEnd; row++) {
+            for (int col = colStart; col <= colEnd; col++) {
+                Bitmap bitmap = tileCache.get(tileKey(sampleSize, col, row));
+                if (bitmap == null) {
+                    continue;
+                }
+                int l = col * tileImageSize;
+                int t = row * tileImageSize;
+                int r = Math.min(width, l + tileImageSize);
+                int b = Math.min(height, t + tileImageSize);
+                tempDst.set(displayRect.left + l * screenPerImage,
+                        displayRect.top + t * screenPerImage,
+                        displayRect.left + r * screenPerImage,
+                        displayRect.top + b * screenPerImage);
+                canvas.drawBitmap(bitmap, null, tempDst, paint);
+            }
+        }
+    }
+
+    /**
+     * 释放所有的块和 decoder，之后不能再使用
+     */
+    @MainThread
+    public void release() {
+        released = true;
+        handler.removeCallbacksAndMessages(null);
+        tileCache.evictAll();
+        pendingCount = 0;
+        recycleBitmap(baseBitmap);
+        baseBitmap = null;
+        sDecodeExecutor.execute(() -> {
+            synchronized (decodeLock) {
+                if (decoder != null) {
+                    decoder.recycle();
+                    decoder = null;
+                }
+            }
+        });
+    }
+
+    private void requestTile(long key, int left, int top, int right, int bottom, int sample) {
+        if (!addPending(key)) {
+            return;
+        }
+        final int generation = requestGeneration;
+        final boolean base = key == BASE_KEY;
+        sDecodeExecutor.execute(() -> {
+            if (released || (!base && generation != requestGeneration)) {
+                return;
+            }
+            if (!base && tileCache.contains(key)) {
+                return; // 之前的请求已经解码完成
+            }
+            Bitmap bitmap = base && source != null ?
+                    decodePreview(sample, right, bottom) : decodeRegion(left, top, right, bottom, sample);
+            if (bitmap == null) {
+                return;
+            }
+            handler.post(() -> onTileDecoded(key, bitmap, base));
+        });
+    }
+
+    @WorkerThread
+    @Nullable
+    private Bitmap decodeRegion(int left, int top, int right, int bottom, int sample) {
+        Rect region = new Rect(left, top, right, bottom);
+        BitmapFactory.Options options = newDecodeOptions(sample, right - left, bottom - top);
+        synchronized (decodeLock) {
+            if (released) {
+                return null;
+            }
+            try {
+                if (decoder == null && source != null) {
+                    decoder = source.newRegionDecoder();
+                }
+                if (decoder == null || decoder.isRecycled()) {
+                    return null;
+                }
+                try {
+                    return decoder.decodeRegion(region, options);
+                } catch (IllegalArgumentException e) {
+                    // inBitmap 不能复用时不复用再解码一次
+                    if (options.inBitmap == null) {
+                        throw e;
+                    }
+                    discardBitmap(options.inBitmap);
+                    options.inBitmap = null;
+                    return decoder.decodeRegion(region, options);
+                }
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 预览图直接用 BitmapFactory 降采样解码，不需要创建 decoder
+     */
+    @WorkerThread
+    @Nullable
+    private Bitmap decodePreview(int sample, int width, int height) {
+        PreviewDiskCache cache = previewCache;
+        String cacheKey = cache != null ? source.getCacheKey() : null;
+        if (cacheKey != null) {
+            Bitmap cached = cache.get(cacheKey, sample, bitmapPool);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        BitmapFactory.Options options = newDecodeOptions(sample, width, height);
+        Bitmap bitmap;
+        try {
+            bitmap = decodeStream(options);
+        } catch (IllegalArgumentException e) {
+            if (options.inBitmap == null) {
+                return null;
+            }
+            discardBitmap(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = decodeStream(options);
+        }
+        if (bitmap != null && cacheKey != null) {
+            cache.put(cacheKey, sample, bitmap);
+        }
+        return bitmap;
+    }
+
+    @WorkerThread
+    @Nullable
+    private Bitmap decodeStream(@NonNull BitmapFactory.Options options) {
+        try (InputStream stream = source.open()) {
+            return BitmapFactory.decodeStream(stream, null, options);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 有 pool 的时候从 pool 中取一个大小合适的 Bitmap 作为 inBitmap
+     */
+    @NonNull
+    private BitmapFactory.Options newDecodeOptions(int sample, int regionWidth, int regionHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        BitmapPool pool = bitmapPool;
+        if (pool != null) {
+            options.inMutable = true;
+            options.inBitmap = pool.get((regionWidth + sample - 1) / sample,
+                    (regionHeight + sample - 1) / sample, Bitmap.Config.ARGB_8888);
+        }
+        return options;
+    }
+
+    private void recycleBitmap(@Nullable Bitmap bitmap) {
+        BitmapPool pool = bitmapPool;
+        if (pool != null) {
+            pool.put(bitmap);
+        }
+    }
+
+    /**
+     * 不能作为 inBitmap 复用的 Bitmap 不放回 pool
+     */
+    private void discardBitmap(@NonNull Bitmap bitmap) {
+        BitmapPool pool = bitmapPool;
+        if (pool != null) {
+            pool.discard(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    private void onBoundsDecoded(int width, int height) {
+        if (released) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        if (listener != null) {
+            listener.onTileLoaded(this);
+        }
+    }
+
+    private void onTileDecoded(long key, @NonNull Bitmap bitmap, boolean base) {
+        if (released) {
+            recycleBitmap(bitmap);
+            return;
+        }
+        removePending(key);
+        if (base) {
+            recycleBitmap(baseBitmap);
+            baseBitmap = bitmap;
+        } else {
+            tileCache.put(key, bitmap);
+        }
+        if (listener != null) {
+            listener.onTileLoaded(this);
+        }
+    }
+
+    /**
+     * @return 已经在请求中时返回 false
+     */
+    private boolean addPending(long key) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingTiles[i] == key) {
+                return false;
+            }
+        }
+        if (pendingCount == pendingTiles.length) {
+            long[] keys = new long[pendingCount * 2];
+            System.arraycopy(pendingTiles, 0, keys, 0, pendingCount);
+            pendingTiles = keys;
+        }
+        pendingTiles[pendingCount++] = key;
+        return true;
+    }
+
+    private void removePending(long key) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingTiles[i] == key) {
+                pendingTiles[i] = pendingTiles[--pendingCount];
+                return;
+            }
+        }
+    }
+
+    /**
+     * 不超过 ratio 的最大的 2 的幂
+     */
+    private static int calculateSampleSize(float ratio) {
+        int sample = 1;
+        while (sample * 2 <= ratio) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static long tileKey(int sample, int col, int row) {
+        return ((long) sample << 48) | ((long) col << 24) | row;
+    }
+
+    /**
+     * 按 Bitmap 实际占用的字节数限制大小的 LRU，移出的块放入 pool
+     * 可见的块只有几十个，key 直接保存为 long 数组线性查找，不装箱，不分配对象
+     * 主线程读写，解码线程只通过 contains 查询
+     */
+    private class TileCache {
+        private long[] keys = new long[16];
+        private Bitmap[] values = new Bitmap[16];
+        private long[] lastUse = new long[16];
+        private int size = 0;
+        private long useClock = 0;
+        private int currentBytes = 0;
+        private int maxBytes;
+
+        TileCache(int maxBytes) {
+            this.maxBytes = Math.max(1, maxBytes);
+        }
+
+        @Nullable
+        synchronized Bitmap get(long key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return null;
+            }
+            lastUse[index] = ++useClock;
+            return values[index];
+        }
+
+        /**
+         * 不改变 LRU 的顺序
+         */
+        synchronized boolean contains(long key) {
+            return indexOf(key) >= 0;
+        }
+
+        synchronized void put(long key, @NonNull Bitmap bitmap) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                Bitmap old = values[index];
+                currentBytes -= old.getAllocationByteCount();
+                if (old != bitmap) {
+                    recycleBitmap(old);
+                }
+            } else {
+                if (size == keys.length) {
+                    grow();
+                }
+                index = size++;
+                keys[index] = key;
+            }
+            values[index] = bitmap;
+            lastUse[index] = ++useClock;
+            currentBytes += bitmap.getAllocationByteCount();
+            trimToSize(maxBytes);
+        }
+
+        synchronized void resize(int maxBytes) {
+            this.maxBytes = maxBytes;
+            trimToSize(maxBytes);
+        }
+
+        synchronized void evictAll() {
+            while (size > 0) {
+                removeAt(size - 1);
+            }
+        }
+
+        private void trimToSize(int maxBytes) {
+            while (currentBytes > maxBytes && size > 0) {
+                int eldest = 0;
+                for (int i = 1; i < size; i++) {
+                    if (lastUse[i] < lastUse[eldest]) {
+                        eldest = i;
+                    }
+                }
+                removeAt(eldest);
+            }
+        }
+
+        private void removeAt(int index) {
+            Bitmap bitmap = values[index];
+            currentBytes -= bitmap.getAllocationByteCount();
+            size--;
+            keys[index] = keys[size];
+            values[index] = values[size];
+            lastUse[index] = lastUse[size];
+            values[size] = null;
+            recycleBitmap(bitmap);
+        }
+
+        private int indexOf(long key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void grow() {
+            int capacity = keys.length * 2;
+            long[] newKeys = new long[capacity];
+            Bitmap[] newValues = new Bitmap[capacity];
+            long[] newLastUse = new long[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            System.arraycopy(lastUse, 0, newLastUse, 0, size);
+            keys = newKeys;
+            values = newValues;
+            lastUse = newLastUse;
+        }
+    }
+}
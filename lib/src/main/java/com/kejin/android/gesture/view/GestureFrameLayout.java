@@ -1,9 +1,13 @@
 package com.kejin.android.gesture.view;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
 import android.graphics.RectF;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.Gravity;
+import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
@@ -18,6 +22,69 @@ public class GestureFrameLayout extends FrameLayout {
     private ViewGestureAttacher gestureAttacher;
     private IGestureListener gestureListener;
     private boolean gestureEnable = true;
+    private boolean frameAlignedNotify = false;
+    private ViewGestureAttacherPool attacherPool = null;
+    private int controlWidth = 0, controlHeight = 0;
+    private boolean canvasTransformEnable = false;
+    // 画布模式下子 view 的变换 (layout 坐标) 和它的逆
+    private final Matrix childMatrix = new Matrix();
+    private final Matrix childInverse = new Matrix();
+    private boolean childMatrixValid = false;
+    // 正在分发逆变换之后的事件，layout 自己的手势要换回原来的坐标
+    private boolean transformedDispatch = false;
+    private boolean layerPromotionEnable = false;
+    private ILayerPromotionListener layerPromotionListener = null;
+    // 切换到硬件层的 control view，原来已经有 layer 的不会修改
+    private final ArrayList<View> promotedViews = new ArrayList<>();
+    private boolean layerPromoted = false;
+    private boolean touching = false;
+    private long layerPromoteTime = 0;
+    private int layerFrames = 0;
+    private OnTouchListener touchListener = null;
+    private final OnTouchListener touchDelegate = (v, event) -> {
+        OnTouchListener listener = touchListener;
+        if (listener == null) {
+            return false;
+        }
+        if (transformedDispatch) {
+            event.transform(childMatrix);
+        }
+        onGestureTouch(event.getActionMasked());
+        return listener.onTouch(v, event);
+    };
+    private final IMatrixListener matrixListener = matrix -> {
+        ViewGestureAttacher attacher = gestureAttacher;
+        if (attacher == null || !gestureEnable) {
+            return;
+        }
+        if (layerPromotionEnable && !layerPromoted && (touching || attacher.isAnimating())) {
+            promoteLayers();
+        }
+        if (canvasTransformEnable) {
+            updateChildMatrix(matrix);
+        } else {
+            updateControlViewRect(attacher.getImageWidth(), attacher.getImageHeight(),
+                    attacher.getDisplayRect());
+        }
+        if (layerPromoted) {
+            layerFrames++;
+            if (!touching && !attacher.isAnimating()) {
+                releaseLayers();
+            }
+        }
+    };
+    // 抬手之后每帧检查一次，fling 和回弹动画结束时释放，不依赖最后一次矩阵变化
+    private final Runnable layerSettleCheck = () -> {
+        if (!layerPromoted || touching) {
+            return;
+        }
+        ViewGestureAttacher attacher = gestureAttacher;
+        if (attacher != null && attacher.isAnimating()) {
+            postOnAnimation(this.layerSettleCheck);
+        } else {
+            releaseLayers();
+        }
+    };
 
     public GestureFrameLayout(@NonNull Context context) {
         super(context);
@@ -46,6 +113,78 @@ public class GestureFrameLayout extends FrameLayout {
         gestureEnable = enable;
     }
 
+    /**
+     * @see ViewGestureAttacher#setFrameAlignedNotify(boolean)
+     */
+    public void setFrameAlignedNotify(boolean enable) {
+        frameAlignedNotify = enable;
+        if (gestureAttacher != null) {
+            gestureAttacher.setFrameAlignedNotify(enable);
+        }
+    }
+
+    /**
+     * 开启后不再逐个设置 control view 的 translation / scale，而是在 dispatchDraw 中把显示变换一次性作用到画布，
+     * 触摸事件经过逆变换之后再给子 view 做命中测试；每次矩阵变化只有一次 invalidate，开销和 control view 的数量无关
+     * 开启时所有子 view 都按显示变换绘制，layout 自己的手势仍然使用原来的坐标
+     */
+    public void setCanvasTransformEnable(boolean enable) {
+        if (canvasTransformEnable == enable) {
+            return;
+        }
+        canvasTransformEnable = enable;
+        ViewGestureAttacher attacher = gestureAttacher;
+        if (enable) {
+            for (View view : controlViews) {
+                view.setTranslationX(0);
+                view.setTranslationY(0);
+                view.setScaleX(1);
+                view.setScaleY(1);
+            }
+            if (attacher != null) {
+                updateChildMatrix(attacher.getImageMatrix());
+            }
+        } else {
+            childMatrixValid = false;
+            if (attacher != null) {
+                updateControlViewRect(attacher.getImageWidth(), attacher.getImageHeight(),
+                        attacher.getDisplayRect());
+            }
+            invalidate();
+        }
+    }
+
+    public boolean isCanvasTransformEnable() {
+        return canvasTransformEnable;
+    }
+
+    /**
+     * 开启后拖动，缩放，fling 和回弹动画期间把 control view 放到硬件层，每帧只更新层的变换，
+     * 不再重新录制和光栅化子 view 的内容；手势和动画都结束后恢复正常绘制
+     * 子 view 的内容在这期间变化时整个层会重新绘制，内容经常变化的 view 不适合开启
+     */
+    public void setLayerPromotionEnable(boolean enable) {
+        layerPromotionEnable = enable;
+        if (!enable) {
+            releaseLayers();
+        }
+    }
+
+    public void setLayerPromotionListener(@Nullable ILayerPromotionListener listener) {
+        layerPromotionListener = listener;
+    }
+
+    public boolean isLayerPromoted() {
+        return layerPromoted;
+    }
+
+    /**
+     * @see GestureImageView#setAttacherPool(ViewGestureAttacherPool)
+     */
+    public void setAttacherPool(@Nullable ViewGestureAttacherPool pool) {
+        attacherPool = pool;
+    }
+
     @Nullable
     public ViewGestureAttacher getGestureAttacher() {
         return gestureAttacher;
@@ -59,6 +198,9 @@ public class GestureFrameLayout extends FrameLayout {
 
     public void removeControlView(@NonNull View view) {
         controlViews.remove(view);
+        if (promotedViews.remove(view)) {
+            view.setLayerType(LAYER_TYPE_NONE, null);
+        }
     }
 
     public void startControl(int width, int height) {
@@ -71,28 +213,172 @@ public class GestureFrameLayout extends FrameLayout {
                 view.setLayoutParams(params);
             }
         }
+        controlWidth = width;
+        controlHeight = height;
+        bindGestureAttacher(width, height);
+    }
 
+    private void bindGestureAttacher(int width, int height) {
         if (gestureAttacher != null &&
                 gestureAttacher.isSameImageSize(width, height)) {
             return;
         }
 
-        if (gestureAttacher != null) {
-            gestureAttacher.release();
-            gestureAttacher = null;
-        }
         if (width < 1 || height < 1) {
+            releaseGestureAttacher();
             return;
         }
-        ViewGestureAttacher attacher = new ViewGestureAttacher(this, width, height);
+        if (gestureAttacher != null) {
+            // 大小变化时复用同一个 attacher
+            gestureAttacher.rebind(this, width, height);
+            return;
+        }
+        ViewGestureAttacher attacher = attacherPool != null ?
+                attacherPool.obtain(this, width, height) :
+                new ViewGestureAttacher(this, width, height);
+        gestureAttacher = attacher;
         attacher.setScaleType(ImageView.ScaleType.FIT_CENTER);
-        attacher.setMatrixListener(matrix -> {
-            RectF displayRect = attacher.getDisplayRect();
-            updateControlViewRect(width, height, displayRect);
-        });
+        attacher.setMatrixListener(matrixListener);
         attacher.setGestureListener(gestureListener);
+        attacher.setFrameAlignedNotify(frameAlignedNotify);
         attacher.update();
-        gestureAttacher = attacher;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (attacherPool != null && gestureAttacher == null) {
+            // detach 时放回了 pool，重新取出
+            bindGestureAttacher(controlWidth, controlHeight);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        touching = false;
+        releaseLayers();
+        if (attacherPool != null) {
+            releaseGestureAttacher();
+        }
+    }
+
+    private void releaseGestureAttacher() {
+        if (gestureAttacher == null) {
+            return;
+        }
+        releaseLayers();
+        if (attacherPool != null) {
+            attacherPool.recycle(gestureAttacher);
+        } else {
+            gestureAttacher.release();
+        }
+        gestureAttacher = null;
+        if (childMatrixValid) {
+            childMatrixValid = false;
+            invalidate();
+        }
+    }
+
+    @Override
+    public void setOnTouchListener(OnTouchListener l) {
+        // attacher 注册的监听经过 touchDelegate，画布模式下把事件换回 layout 的坐标
+        touchListener = l;
+        super.setOnTouchListener(l != null ? touchDelegate : null);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (!canvasTransformEnable || !childMatrixValid) {
+            return super.dispatchTouchEvent(ev);
+        }
+        // 事件属于上层，复制一份做逆变换，子 view 按原来的布局位置命中
+        MotionEvent event = MotionEvent.obtain(ev);
+        event.transform(childInverse);
+        transformedDispatch = true;
+        try {
+            return super.dispatchTouchEvent(event);
+        } finally {
+            transformedDispatch = false;
+            event.recycle();
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (!canvasTransformEnable || !childMatrixValid) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+        int saveCount = canvas.save();
+        canvas.concat(childMatrix);
+        super.dispatchDraw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void onGestureTouch(int action) {
+        if (action == MotionEvent.ACTION_DOWN) {
+            touching = true;
+            removeCallbacks(layerSettleCheck);
+        } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            touching = false;
+            if (layerPromoted) {
+                post(layerSettleCheck);
+            }
+        }
+    }
+
+    private void promoteLayers() {
+        if (!isHardwareAccelerated()) {
+            return;
+        }
+        for (int i = 0; i < controlViews.size(); i++) {
+            View view = controlViews.get(i);
+            if (view.getLayerType() == LAYER_TYPE_NONE) {
+                view.setLayerType(LAYER_TYPE_HARDWARE, null);
+                promotedViews.add(view);
+            }
+        }
+        layerPromoted = true;
+        layerPromoteTime = SystemClock.uptimeMillis();
+        layerFrames = 0;
+        if (!touching) {
+            // 不是手势触发的动画
+            postOnAnimation(layerSettleCheck);
+        }
+        if (layerPromotionListener != null) {
+            layerPromotionListener.onLayerPromoted(this, promotedViews.size());
+        }
+    }
+
+    private void releaseLayers() {
+        removeCallbacks(layerSettleCheck);
+        if (!layerPromoted) {
+            return;
+        }
+        int count = promotedViews.size();
+        for (int i = 0; i < count; i++) {
+            promotedViews.get(i).setLayerType(LAYER_TYPE_NONE, null);
+        }
+        promotedViews.clear();
+        layerPromoted = false;
+        if (layerPromotionListener != null) {
+            layerPromotionListener.onLayerReleased(this, count, layerFrames,
+                    SystemClock.uptimeMillis() - layerPromoteTime);
+        }
+    }
+
+    /**
+     * attacher 的矩阵是去掉 padding 之后的坐标，子 view 的布局位置包含 padding
+     */
+    private void updateChildMatrix(@NonNull Matrix matrix) {
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        childMatrix.set(matrix);
+        childMatrix.preTranslate(-left, -top);
+        childMatrix.postTranslate(left, top);
+        childMatrixValid = childMatrix.invert(childInverse);
+        invalidate();
     }
 
     private void updateControlViewRect(float vw, float vh, @NonNull RectF rect) {
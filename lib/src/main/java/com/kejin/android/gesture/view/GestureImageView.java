@@ -1,16 +1,30 @@
 package com.kejin.android.gesture.view;
 
 import android.content.Context;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatImageView;
 
+import com.kejin.android.gesture.image.BitmapPool;
+import com.kejin.android.gesture.image.ImageSource;
+import com.kejin.android.gesture.image.PreviewDiskCache;
+import com.kejin.android.gesture.image.TiledImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * 替换 PhotoView
+ * 超大图片可以通过 {@link #setTiledImage(String)} 分块解码显示
+ * 通过 {@link #setImageSource(ImageSource)} 渐进式加载
  */
 public class GestureImageView extends AppCompatImageView {
 
@@ -18,6 +32,17 @@ public class GestureImageView extends AppCompatImageView {
     private ViewGestureAttacher gestureAttacher = null;
     private ScaleType gestureScaleType = ScaleType.FIT_CENTER;
     private IGestureListener gestureListener = null;
+    private boolean frameAlignedNotify = false;
+    private ViewGestureAttacherPool attacherPool = null;
+    private ViewportCache viewportCache = null;
+    private String viewportId = null;
+    private final ViewportSnapshot viewportSnapshot = new ViewportSnapshot();
+    private ViewportLinkGroup linkGroup = null;
+
+    private TiledImage tiledImage = null;
+    private int tileCacheBytes = 0;
+    private BitmapPool bitmapPool = null;
+    private PreviewDiskCache previewCache = null;
 
     public GestureImageView(Context context) {
         this(context, null);
@@ -46,10 +71,7 @@ public class GestureImageView extends AppCompatImageView {
     public void setGestureEnable(boolean enable) {
         gestureEnable = enable;
         if (!gestureEnable) {
-            if (gestureAttacher != null) {
-                gestureAttacher.release();
-                gestureAttacher = null;
-            }
+            releaseGestureAttacher();
             super.setScaleType(gestureScaleType);
         }
     }
@@ -61,11 +83,235 @@ public class GestureImageView extends AppCompatImageView {
         }
     }
 
+    /**
+     * @see ViewGestureAttacher#setFrameAlignedNotify(boolean)
+     */
+    public void setFrameAlignedNotify(boolean enable) {
+        frameAlignedNotify = enable;
+        if (gestureAttacher != null) {
+            gestureAttacher.setFrameAlignedNotify(enable);
+        }
+    }
+
+    /**
+     * 设置 attacher 复用池，RecyclerView / ViewPager 的所有 item 共享同一个 pool
+     * 设置之后 detach 时 attacher 会放回 pool，再次显示时从 pool 中取出，缩放状态不保留
+     */
+    public void setAttacherPool(@Nullable ViewGestureAttacherPool pool) {
+        attacherPool = pool;
+    }
+
+    /**
+     * 加入联动的 group，group 中所有的 view 共享同一个显示区域，为 null 时退出
+     * @see ViewportLinkGroup
+     */
+    public void setLinkGroup(@Nullable ViewportLinkGroup group) {
+        if (linkGroup == group) {
+            return;
+        }
+        if (linkGroup != null && gestureAttacher != null) {
+            linkGroup.remove(gestureAttacher);
+        }
+        linkGroup = group;
+        if (group != null && gestureAttacher != null) {
+            group.add(gestureAttacher);
+        }
+    }
+
+    /**
+     * 设置显示区域的缓存，和 {@link #setViewportId(String)} 一起使用
+     * 切换图片，detach 或者关闭手势时按 id 保存当前的显示区域，再次显示同一个 id 的图片时直接恢复
+     * 多个页面共享同一个 cache，需要在进程重建之后恢复时可以保存到 onSaveInstanceState 中
+     */
+    public void setViewportCache(@Nullable ViewportCache cache) {
+        viewportCache = cache;
+    }
+
+    /**
+     * 当前图片的 id，需要在设置新的图片之前调用
+     * 先按之前的 id 保存显示区域，再恢复新的 id 的显示区域，没有保存过的回到初始状态
+     */
+    public void setViewportId(@Nullable String id) {
+        if (id == null ? viewportId == null : id.equals(viewportId)) {
+            return;
+        }
+        saveViewport();
+        viewportId = id;
+        if (gestureAttacher != null && !restoreViewport(gestureAttacher)) {
+            gestureAttacher.update();
+        }
+    }
+
+    @Nullable
+    public String getViewportId() {
+        return viewportId;
+    }
+
+    private void saveViewport() {
+        if (viewportCache == null || viewportId == null || gestureAttacher == null) {
+            return;
+        }
+        gestureAttacher.saveViewport(viewportSnapshot);
+        if (viewportSnapshot.isValid()) {
+            viewportCache.put(viewportId, viewportSnapshot);
+        }
+    }
+
+    private boolean restoreViewport(@NonNull ViewGestureAttacher attacher) {
+        if (viewportCache == null || viewportId == null) {
+            return false;
+        }
+        ViewportSnapshot snapshot = viewportCache.get(viewportId);
+        return snapshot != null && attacher.restoreViewport(snapshot);
+    }
+
     @Nullable
     public ViewGestureAttacher getGestureAttacher() {
         return gestureAttacher;
     }
 
+    /**
+     * 分块解码显示图片文件，只解码可见区域，采样率和当前缩放匹配
+     * 需要开启手势
+     */
+    @SuppressWarnings("deprecation")
+    public void setTiledImage(@NonNull String filePath) throws IOException {
+        setTiledImage(BitmapRegionDecoder.newInstance(filePath, false));
+    }
+
+    /**
+     * @see #setTiledImage(String)
+     */
+    @SuppressWarnings("deprecation")
+    public void setTiledImage(@NonNull InputStream stream) throws IOException {
+        setTiledImage(BitmapRegionDecoder.newInstance(stream, false));
+    }
+
+    public void setTiledImage(@NonNull BitmapRegionDecoder decoder) {
+        setImageDrawable(null);
+        tiledImage = new TiledImage(decoder, getTileCacheBytes());
+        tiledImage.setBitmapPool(bitmapPool);
+        tiledImage.setPreviewCache(previewCache);
+        tiledImage.setListener(image -> invalidate());
+        invalidate();
+    }
+
+    /**
+     * 渐进式加载图片：先在后台解码一个和 view 大小匹配的预览图显示，
+     * 放大超过预览图的分辨率之后，再分块解码原图
+     * 需要开启手势
+     */
+    public void setImageSource(@NonNull ImageSource source) {
+        setImageDrawable(null);
+        tiledImage = new TiledImage(source, getTileCacheBytes());
+        tiledImage.setBitmapPool(bitmapPool);
+        tiledImage.setPreviewCache(previewCache);
+        tiledImage.setListener(image -> invalidate());
+        invalidate();
+    }
+
+    /**
+     * @see #setImageSource(ImageSource)
+     */
+    public void setImageSource(@NonNull String filePath) {
+        setImageSource(ImageSource.file(filePath));
+    }
+
+    @Nullable
+    public TiledImage getTiledImage() {
+        return tiledImage;
+    }
+
+    /**
+     * 分块缓存的最大字节数，默认为屏幕大小 ARGB_8888 的 3 倍
+     */
+    public void setTileCacheSize(int bytes) {
+        tileCacheBytes = bytes;
+        if (tiledImage != null) {
+            tiledImage.setCacheSize(bytes);
+        }
+    }
+
+    /**
+     * 设置 Bitmap 复用池，ViewPager 等多页面的场景下所有页面共享同一个 pool，
+     * 页面切换时释放的块和预览图会被后续的解码复用
+     */
+    public void setBitmapPool(@Nullable BitmapPool pool) {
+        bitmapPool = pool;
+        if (tiledImage != null) {
+            tiledImage.setBitmapPool(pool);
+        }
+    }
+
+    /**
+     * 设置预览图的磁盘缓存，再次打开同一张图片时直接读取缓存的像素，不需要重新解码
+     * 只对 {@link #setImageSource(ImageSource)} 有效
+     */
+    public void setPreviewDiskCache(@Nullable PreviewDiskCache cache) {
+        previewCache = cache;
+        if (tiledImage != null) {
+            tiledImage.setPreviewCache(cache);
+        }
+    }
+
+    private int getTileCacheBytes() {
+        if (tileCacheBytes > 0) {
+            return tileCacheBytes;
+        }
+        DisplayMetrics dm = getResources().getDisplayMetrics();
+        return dm.widthPixels * dm.heightPixels * 4 * 3;
+    }
+
+    private void releaseTiledImage() {
+        if (tiledImage != null) {
+            tiledImage.release();
+            tiledImage = null;
+        }
+    }
+
+    @Override
+    public void setImageDrawable(@Nullable Drawable drawable) {
+        releaseTiledImage();
+        super.setImageDrawable(drawable);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (tiledImage != null) {
+            tiledImage.trimMemory();
+        }
+        if (attacherPool != null) {
+            releaseGestureAttacher();
+        } else {
+            saveViewport();
+        }
+    }
+
+    private void releaseGestureAttacher() {
+        if (gestureAttacher == null) {
+            return;
+        }
+        saveViewport();
+        if (attacherPool != null) {
+            attacherPool.recycle(gestureAttacher);
+        } else {
+            gestureAttacher.release();
+        }
+        gestureAttacher = null;
+    }
+
+    private final IMatrixListener matrixListener = this::onMatrixChanged;
+
+    private void onMatrixChanged(@NonNull Matrix matrix) {
+        if (tiledImage != null) {
+            // 分块模式下直接按显示区域绘制，在 onDraw 中更新可见块
+            invalidate();
+        } else {
+            setImageMatrix(matrix);
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         try {
@@ -78,27 +324,58 @@ public class GestureImageView extends AppCompatImageView {
             return;
         }
 
-        Drawable drawable = getDrawable();
-        if (drawable == null) {
-            return;
+        int width, height;
+        if (tiledImage != null) {
+            width = tiledImage.getWidth();
+            height = tiledImage.getHeight();
+        } else {
+            Drawable drawable = getDrawable();
+            if (drawable == null) {
+                return;
+            }
+            width = drawable.getIntrinsicWidth();
+            height = drawable.getIntrinsicHeight();
         }
-        int width = drawable.getIntrinsicWidth();
-        int height = drawable.getIntrinsicHeight();
         if (width < 1 || height < 1) {
             return;
         }
 
-        if (gestureAttacher == null ||
-                !gestureAttacher.isSameImageSize(width, height)) {
-            if (gestureAttacher != null) {
-                gestureAttacher.release();
-            }
+        if (gestureAttacher == null) {
             super.setScaleType(ScaleType.MATRIX);
-            gestureAttacher = new ViewGestureAttacher(this, width, height);
-            gestureAttacher.setMatrixListener(this::setImageMatrix);
+            gestureAttacher = attacherPool != null ?
+                    attacherPool.obtain(this, width, height) :
+                    new ViewGestureAttacher(this, width, height);
+            gestureAttacher.setMatrixListener(matrixListener);
             gestureAttacher.setGestureListener(gestureListener);
             gestureAttacher.setScaleType(gestureScaleType);
-            gestureAttacher.update();
+            gestureAttacher.setFrameAlignedNotify(frameAlignedNotify);
+            // 有保存的显示区域时直接恢复，不会先重置再恢复
+            if (!restoreViewport(gestureAttacher)) {
+                gestureAttacher.update();
+            }
+            if (linkGroup != null) {
+                linkGroup.add(gestureAttacher);
+            }
+        } else if (!gestureAttacher.isSameImageSize(width, height)) {
+            // 图片大小变化时复用同一个 attacher
+            gestureAttacher.rebind(this, width, height);
+        }
+
+        if (tiledImage != null) {
+            drawTiles(canvas);
         }
     }
+
+    private void drawTiles(@NonNull Canvas canvas) {
+        ViewGestureAttacher attacher = gestureAttacher;
+        RectF displayRect = attacher.getDisplayRect();
+        tiledImage.update(displayRect, attacher.getViewWidth(), attacher.getViewHeight());
+
+        int saveCount = canvas.save();
+        canvas.clipRect(getPaddingLeft(), getPaddingTop(),
+                getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        tiledImage.draw(canvas, displayRect);
+        canvas.restoreToCount(saveCount);
+    }
 }
@@ -0,0 +1,67 @@
+package com.kejin.android.gesture.view;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 一次手势的工作量统计，从按下开始，到抬起结束，如果抬起之后有 fling 则到 fling 结束
+ * 对象会被复用，只在 {@link IGestureMetricsListener#onGestureMetrics} 回调中有效
+ */
+public final class GestureMetrics {
+    /**
+     * 开始和结束的时间 uptimeMillis
+     */
+    public long startTime;
+    public long endTime;
+    /**
+     * 处理的 MotionEvent 个数
+     */
+    public int touchEvents;
+    /**
+     * 手势识别回调的次数 (onDrag, onScale, onFling 等)
+     */
+    public int callbacks;
+    /**
+     * 矩阵变化的次数，和实际分发给 IMatrixListener 的次数，开启 frameAlignedNotify 时后者会更少
+     */
+    public int matrixNotifications;
+    public int matrixDispatches;
+    /**
+     * fixBoundary 实际修正边界的次数
+     */
+    public int boundaryCorrections;
+    /**
+     * 启动平移和缩放动画的次数
+     */
+    public int animatorStarts;
+    /**
+     * fling 的帧数
+     */
+    public int flingFrames;
+    public boolean flung;
+
+    public void reset() {
+        startTime = 0;
+        endTime = 0;
+        touchEvents = 0;
+        callbacks = 0;
+        matrixNotifications = 0;
+        matrixDispatches = 0;
+        boundaryCorrections = 0;
+        animatorStarts = 0;
+        flingFrames = 0;
+        flung = false;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "GestureMetrics[duration=" + (endTime - startTime) +
+                ", touchEvents=" + touchEvents +
+                ", callbacks=" + callbacks +
+                ", matrixNotifications=" + matrixNotifications +
+                ", matrixDispatches=" + matrixDispatches +
+                ", boundaryCorrections=" + boundaryCorrections +
+                ", animatorStarts=" + animatorStarts +
+                ", flingFrames=" + flingFrames + "]";
+    }
+}
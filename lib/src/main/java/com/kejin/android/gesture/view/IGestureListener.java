@@ -1,5 +1,6 @@
 package com.kejin.android.gesture.view;
 
+import android.graphics.RectF;
 import android.view.ViewParent;
 
 import androidx.annotation.NonNull;
@@ -30,6 +31,16 @@ public interface IGestureListener {
         return false;
     }
 
+    /**
+     * fling 开始的回调，可以用来提前准备目标区域的内容
+     * @param targetRect 预测的 fling 结束时的显示区域，已经按边界截断，只在回调中有效
+     * @param dx 预测的 x 方向的总距离，已经按边界截断
+     * @param dy 预测的 y 方向的总距离，已经按边界截断
+     * @param duration fling 的时长 ms，被边界截断时会提前停止
+     */
+    default void onFlingStart(@NonNull ViewGestureAttacher attacher,
+                              @NonNull RectF targetRect, float dx, float dy, int duration) {}
+
     /**
      * 向下拖拽超出边界
      * @param dy 垂直距离
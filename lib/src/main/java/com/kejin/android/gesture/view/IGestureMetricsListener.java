@@ -0,0 +1,11 @@
+package com.kejin.android.gesture.view;
+
+import androidx.annotation.NonNull;
+
+public interface IGestureMetricsListener {
+    /**
+     * 每次手势结束时回调，在 onTouchEnd 之后，有 fling 时在 onFlingEnd 之后
+     * @param metrics 会被复用，不能在回调之外持有
+     */
+    void onGestureMetrics(@NonNull ViewGestureAttacher attacher, @NonNull GestureMetrics metrics);
+}
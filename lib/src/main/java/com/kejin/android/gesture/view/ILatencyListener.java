@@ -0,0 +1,26 @@
+package com.kejin.android.gesture.view;
+
+import androidx.annotation.NonNull;
+
+import com.kejin.android.gesture.core.LatencyHistogram;
+
+/**
+ * 输入到绘制的延迟统计
+ * 拖动和缩放从 MotionEvent 的事件时间开始计算，fling 和回弹动画从动画帧的时间开始计算，
+ * 到 UI 线程绘制包含这次变化的那一帧结束
+ */
+public interface ILatencyListener {
+    int GESTURE_DRAG = 0;
+    int GESTURE_SCALE = 1;
+    int GESTURE_FLING = 2;
+    int GESTURE_SETTLE = 3;
+    int GESTURE_TYPE_COUNT = 4;
+
+    /**
+     * 一段手势结束 (手势类型变化，或者新的触摸开始) 时回调这段手势的延迟分布
+     * @param gestureType GESTURE_DRAG / GESTURE_SCALE / GESTURE_FLING / GESTURE_SETTLE
+     * @param histogram 回调结束之后会被重置，需要保留数据时用 {@link LatencyHistogram#add} 合并
+     */
+    void onLatencyReport(@NonNull ViewGestureAttacher attacher,
+                         int gestureType, @NonNull LatencyHistogram histogram);
+}
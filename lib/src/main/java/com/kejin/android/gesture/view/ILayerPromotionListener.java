@@ -0,0 +1,22 @@
+package com.kejin.android.gesture.view;
+
+import androidx.annotation.NonNull;
+
+/**
+ * GestureFrameLayout 硬件层切换的回调，用于统计硬件层策略的效果
+ */
+public interface ILayerPromotionListener {
+    /**
+     * 手势或者动画开始改变矩阵，control view 切换到硬件层
+     * @param viewCount 切换到硬件层的 view 数量，原来已经有 layer 的 view 不计算在内
+     */
+    default void onLayerPromoted(@NonNull GestureFrameLayout layout, int viewCount) {}
+
+    /**
+     * 手势，fling 和回弹动画都结束，恢复正常绘制
+     * @param frames 硬件层期间矩阵变化的次数，每次只更新层的变换
+     * @param durationMillis 保持硬件层的时长 ms
+     */
+    default void onLayerReleased(@NonNull GestureFrameLayout layout, int viewCount,
+                                 int frames, long durationMillis) {}
+}
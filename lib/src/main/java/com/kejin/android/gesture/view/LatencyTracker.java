@@ -0,0 +1,41 @@
+package com.kejin.android.gesture.view;
+
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+
+import com.kejin.android.gesture.core.LatencyRecorder;
+
+/**
+ * 记录每一帧从输入到绘制的延迟，只在设置了 ILatencyListener 时创建
+ * MotionEvent 的事件时间和动画的帧时间 (换算为毫秒) 都是 uptimeMillis，
+ * 和 System.nanoTime 一样基于 CLOCK_MONOTONIC，可以直接相减
+ */
+class LatencyTracker implements ViewTreeObserver.OnDrawListener {
+    private final LatencyRecorder mRecorder;
+
+    LatencyTracker(@NonNull ViewGestureAttacher attacher, @NonNull ILatencyListener listener) {
+        mRecorder = new LatencyRecorder(ILatencyListener.GESTURE_TYPE_COUNT,
+                (gestureType, histogram) -> listener.onLatencyReport(attacher, gestureType, histogram));
+    }
+
+    /**
+     * 矩阵发生了变化
+     * @param inputTimeMillis 引起这次变化的输入时间 (uptimeMillis)
+     */
+    void mark(int gestureType, long inputTimeMillis) {
+        mRecorder.mark(gestureType, inputTimeMillis * 1_000_000L);
+    }
+
+    @Override
+    public void onDraw() {
+        mRecorder.onDraw(System.nanoTime());
+    }
+
+    /**
+     * 回调当前这段手势的延迟分布
+     */
+    void report() {
+        mRecorder.report();
+    }
+}
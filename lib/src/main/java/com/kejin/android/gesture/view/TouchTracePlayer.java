@@ -0,0 +1,110 @@
+package com.kejin.android.gesture.view;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.TouchTraceReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * 把录制的轨迹重新组装成 MotionEvent，交给 ViewGestureAttacher 处理，历史采样合并回同一个 ACTION_MOVE
+ * 在主线程同步执行，UP 之后的 fling 和回弹动画需要调用方等待
+ */
+public final class TouchTracePlayer {
+    private final MotionEvent.PointerProperties[] mProps =
+            new MotionEvent.PointerProperties[GestureRecognizer.MAX_POINTERS];
+    private final ArrayList<MotionEvent.PointerCoords[]> mHistoryCoords = new ArrayList<>();
+    private final ArrayList<Long> mHistoryTimes = new ArrayList<>();
+    private long mDownTime = 0;
+
+    private TouchTracePlayer() {
+        for (int i = 0; i < mProps.length; i++) {
+            mProps[i] = new MotionEvent.PointerProperties();
+            mProps[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+        }
+    }
+
+    /**
+     * @return 分发的 MotionEvent 个数
+     */
+    public static int replay(@NonNull TouchTraceReader reader,
+                             @NonNull ViewGestureAttacher attacher,
+                             @NonNull View view) throws IOException {
+        return new TouchTracePlayer().play(reader, attacher, view);
+    }
+
+    private int play(@NonNull TouchTraceReader reader,
+                     @NonNull ViewGestureAttacher attacher,
+                     @NonNull View view) throws IOException {
+        int count = 0;
+        while (reader.next()) {
+            if (reader.isHistorical()) {
+                mHistoryCoords.add(copyCoords(reader));
+                mHistoryTimes.add(reader.getEventTime());
+                continue;
+            }
+            MotionEvent event = obtain(reader);
+            try {
+                attacher.onTouch(view, event);
+            } finally {
+                event.recycle();
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @NonNull
+    private MotionEvent obtain(@NonNull TouchTraceReader reader) {
+        int action = reader.getAction();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mDownTime = reader.getEventTime();
+        }
+        int pointerCount = reader.getPointerCount();
+        int[] ids = reader.getPointerIds();
+        for (int i = 0; i < pointerCount; i++) {
+            mProps[i].id = ids[i];
+        }
+        MotionEvent.PointerCoords[] coords = copyCoords(reader);
+        int fullAction = action | (reader.getActionIndex() << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+
+        MotionEvent event;
+        // 历史采样的 pointer 数量必须和当前事件一致
+        boolean batch = !mHistoryCoords.isEmpty() && mHistoryCoords.get(0).length == pointerCount;
+        if (batch) {
+            event = MotionEvent.obtain(mDownTime, mHistoryTimes.get(0), fullAction,
+                    pointerCount, mProps, mHistoryCoords.get(0), 0, 0, 1, 1, 0, 0, 0, 0);
+            for (int h = 1; h < mHistoryCoords.size(); h++) {
+                event.addBatch(mHistoryTimes.get(h), mHistoryCoords.get(h), 0);
+            }
+            event.addBatch(reader.getEventTime(), coords, 0);
+        } else {
+            event = MotionEvent.obtain(mDownTime, reader.getEventTime(), fullAction,
+                    pointerCount, mProps, coords, 0, 0, 1, 1, 0, 0, 0, 0);
+        }
+        mHistoryCoords.clear();
+        mHistoryTimes.clear();
+        return event;
+    }
+
+    @NonNull
+    private static MotionEvent.PointerCoords[] copyCoords(@NonNull TouchTraceReader reader) {
+        int pointerCount = reader.getPointerCount();
+        float[] xs = reader.getXs();
+        float[] ys = reader.getYs();
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = xs[i];
+            coords[i].y = ys[i];
+            coords[i].pressure = 1;
+            coords[i].size = 1;
+        }
+        return coords;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kejin.android.gesture.view;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.TouchTraceWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 录制 ViewGestureAttacher 收到的所有 MotionEvent，包括所有 pointer 和历史采样
+ * 通过 {@link ViewGestureAttacher#setTouchTraceRecorder} 设置，之后可以用 {@link TouchTracePlayer}
+ * 或者 {@link com.kejin.android.gesture.core.TouchTraceReplayer} 回放
+ * 写入出错后停止录制，不会影响手势处理
+ */
+public class TouchTraceRecorder implements Closeable {
+    private final OutputStream mOut;
+    private TouchTraceWriter mWriter = null;
+    private IOException mError = null;
+
+    private final int[] mPointerIds = new int[GestureRecognizer.MAX_POINTERS];
+    private final float[] mPointerXs = new float[GestureRecognizer.MAX_POINTERS];
+    private final float[] mPointerYs = new float[GestureRecognizer.MAX_POINTERS];
+
+    public TouchTraceRecorder(@NonNull OutputStream out) {
+        mOut = out;
+    }
+
+    void record(@NonNull ViewGestureAttacher attacher, @NonNull MotionEvent event) {
+        if (mError != null) {
+            return;
+        }
+        try {
+            if (mWriter == null) {
+                // 第一个事件时 view 已经 layout，记录当时的尺寸
+                mWriter = new TouchTraceWriter(mOut,
+                        attacher.getViewWidth(), attacher.getViewHeight(),
+                        attacher.getImageWidth(), attacher.getImageHeight());
+            }
+            write(event);
+        } catch (IOException e) {
+            mError = e;
+        }
+    }
+
+    private void write(@NonNull MotionEvent event) throws IOException {
+        int action = event.getActionMasked();
+        int pointerCount = Math.min(event.getPointerCount(), GestureRecognizer.MAX_POINTERS);
+        for (int i = 0; i < pointerCount; i++) {
+            mPointerIds[i] = event.getPointerId(i);
+        }
+        int historySize = action == MotionEvent.ACTION_MOVE ? event.getHistorySize() : 0;
+        for (int h = 0; h < historySize; h++) {
+            for (int i = 0; i < pointerCount; i++) {
+                mPointerXs[i] = event.getHistoricalX(i, h);
+                mPointerYs[i] = event.getHistoricalY(i, h);
+            }
+            mWriter.write(action, 0, event.getHistoricalEventTime(h),
+                    pointerCount, mPointerIds, mPointerXs, mPointerYs, true);
+        }
+        for (int i = 0; i < pointerCount; i++) {
+            mPointerXs[i] = event.getX(i);
+            mPointerYs[i] = event.getY(i);
+        }
+        mWriter.write(action, event.getActionIndex(), event.getEventTime(),
+                pointerCount, mPointerIds, mPointerXs, mPointerYs, false);
+    }
+
+    /**
+     * 录制过程中的写入错误
+     */
+    @Nullable
+    public IOException getError() {
+        return mError;
+    }
+
+    public int getRecordCount() {
+        return mWriter != null ? mWriter.getRecordCount() : 0;
+    }
+
+    public void flush() throws IOException {
+        if (mWriter != null) {
+            mWriter.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mWriter != null) {
+            mWriter.close();
+        } else {
+            mOut.close();
+        }
+    }
+}
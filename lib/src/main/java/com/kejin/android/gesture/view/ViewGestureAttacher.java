@@ -1,21 +1,23 @@
 package com.kejin.android.gesture.view;
 
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Matrix;
-import android.graphics.Matrix.ScaleToFit;
-import android.graphics.PointF;
 import android.graphics.RectF;
+import android.os.SystemClock;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView.ScaleType;
 
 import androidx.annotation.NonNull;
-import androidx.interpolator.view.animation.FastOutSlowInInterpolator;
+import androidx.annotation.Nullable;
 
 import com.kejin.android.gesture.GestureDetector;
 import com.kejin.android.gesture.GestureListener;
+import com.kejin.android.gesture.core.FrameSource;
+import com.kejin.android.gesture.core.GestureAnimator;
+import com.kejin.android.gesture.core.GestureTransform;
 
 public class ViewGestureAttacher implements
         View.OnTouchListener, View.OnLayoutChangeListener, GestureListener {
@@ -23,17 +25,20 @@ public class ViewGestureAttacher implements
     private final static float DEFAULT_MIN_SCALE = 1.0f;
     private final static int DEFAULT_ANIM_DURATION = 200;
 
-    private final View mImageView;
-    private final int mImageWidth, mImageHeight;
+    // 复用时通过 rebind 更换
+    private View mImageView;
+    private int mImageWidth, mImageHeight;
+    private boolean mReleased = false;
 
     // Gesture Detectors
     private final GestureDetector mGestureDetector;
 
+    // 变换状态用 double 保存，只在分发的时候生成 Matrix
+    private final GestureTransform mTransform = new GestureTransform();
     // These are set so we don't keep allocating them on the heap
-    private final Matrix mBaseMatrix = new Matrix();
     private final Matrix mDrawMatrix = new Matrix();
-    private final Matrix mSuppMatrix = new Matrix();
     private final RectF mDisplayRect = new RectF();
+    private final RectF mFlingTargetRect = new RectF();
     private final float[] mMatrixValues = new float[9];
 
     private float mMinScale = DEFAULT_MIN_SCALE;
@@ -49,13 +54,70 @@ public class ViewGestureAttacher implements
     private IParentInterceptHandler mInterceptHandler;
     private OverDragDownHandler mOverDragHandler;
 
-    private ValueAnimator mTransAnimator = null;
-    private ValueAnimator mScaleAnimator = null;
+    // 平移，缩放，fling 都在 detector 的同一个动画引擎上执行，每帧只修正一次边界，分发一次矩阵变化
+    private final GestureAnimator mAnimator;
+    private final GestureAnimator.Target mAnimationTarget = this::onAnimationFrame;
+
+    // 每帧只分发一次矩阵变化
+    private boolean mFrameAlignedNotify = false;
+    // 调用方设置的值，加入 ViewportLinkGroup 期间始终开启
+    private boolean mFrameAlignedRequested = false;
+    private boolean mMatrixDirty = false;
+    private ViewTreeObserver mObserver = null;
+    private final ViewTreeObserver.OnPreDrawListener mPreDrawListener = () -> {
+        flushMatrixChanged();
+        return true;
+    };
+
+    // 输入到绘制的延迟统计，没有设置 ILatencyListener 时为 null
+    private LatencyTracker mLatencyTracker = null;
+    private ViewTreeObserver mDrawObserver = null;
+    private long mInputEventTime = 0;
+
+    // 每次手势的统计，没有设置 IGestureMetricsListener 时为 null
+    private GestureMetrics mMetrics = null;
+    private IGestureMetricsListener mMetricsListener = null;
+    // 抬起时还在 fling，等 fling 结束再回调
+    private boolean mMetricsWaitFling = false;
+    private boolean mFlingRunning = false;
+
+    private TouchTraceRecorder mTraceRecorder = null;
+
+    private float mFlingOverscroll = 0;
+
+    // 联动的 group，自己的矩阵变化会同步给 group 中的其它 attacher
+    private ViewportLinkGroup mLinkGroup = null;
+
+    // 等待在下一次计算初始变换时恢复的显示区域
+    private ViewportSnapshot mPendingViewport = null;
+    private boolean mViewportPending = false;
+
+    private boolean mAttachListenerAdded = false;
+    private final View.OnAttachStateChangeListener mAttachListener =
+            new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(@NonNull View v) {
+            if (mFrameAlignedNotify) {
+                registerPreDraw();
+            }
+            if (mLatencyTracker != null) {
+                registerDrawListener();
+            }
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(@NonNull View v) {
+            unregisterPreDraw();
+            unregisterDrawListener();
+            flushMatrixChanged();
+        }
+    };
 
     public ViewGestureAttacher(@NonNull View imageView, int imageWdth, int imageHeight) {
         this.mImageView = imageView;
         this.mImageWidth = imageWdth;
         this.mImageHeight = imageHeight;
+        this.mTransform.setContentSize(imageWdth, imageHeight);
         int threshold = dp2px(10);
         this.mInterceptHandler = new ParentInterceptHandler(threshold);
         this.mOverDragHandler = new OverDragDownHandler(threshold);
@@ -63,28 +125,247 @@ public class ViewGestureAttacher implements
         imageView.setOnTouchListener(this);
         imageView.addOnLayoutChangeListener(this);
 
-        int vw = getViewWidth();
-        int vh = getViewHeight();
-        float minSize = Math.min(vw, vh);
-        if (minSize < 1) {
-            minSize = 1080;
-        }
-        this.mMaxScale = Math.max(Math.max(imageWdth, imageHeight) / minSize, 5.0f);
+        this.mMaxScale = computeMaxScale();
 
         Context context = imageView.getContext();
         this.mGestureDetector = new GestureDetector(context, this);
         this.mGestureDetector.setDoubleClickEnable(true);
+        this.mAnimator = mGestureDetector.getAnimator();
+        this.mAnimator.setTransform(mTransform);
+        this.mAnimator.setTarget(mAnimationTarget);
     }
 
     public void release() {
-        mImageView.setOnClickListener(null);
+        if (mReleased) {
+            return;
+        }
+        mReleased = true;
+        // 停止 fling，动画和等待中的点击，不再修改矩阵和刷新之前的 view
+        resetGestureState();
+        if (mLinkGroup != null) {
+            mLinkGroup.remove(this);
+        }
+        unbindView();
+    }
+
+    private void unbindView() {
+        mImageView.setOnTouchListener(null);
         mImageView.removeOnLayoutChangeListener(this);
+        mImageView.removeOnAttachStateChangeListener(mAttachListener);
+        mAttachListenerAdded = false;
+        unregisterPreDraw();
+        unregisterDrawListener();
+    }
+
+    /**
+     * 复用到新的 view 和图片大小，GestureDetector，动画，矩阵等对象都不重新创建
+     * 停止当前的动画和 fling，丢弃触摸状态，缩放范围按新的大小重新计算，变换回到初始状态
+     * listener，ViewportLinkGroup 和其它设置保持不变，view 不变时只更新图片大小
+     */
+    public void rebind(@NonNull View imageView, int imageWidth, int imageHeight) {
+        rebind(imageView, imageWidth, imageHeight, true);
+    }
+
+    /**
+     * @param update 是否立即计算初始变换，为 false 时和新建的 attacher 一样，
+     *               由调用方设置完之后调用 {@link #update()} 或者 {@link #restoreViewport(ViewportSnapshot)}，只计算一次
+     */
+    void rebind(@NonNull View imageView, int imageWidth, int imageHeight, boolean update) {
+        resetGestureState();
+
+        if (imageView != mImageView || mReleased) {
+            if (!mReleased) {
+                unbindView();
+            }
+            mImageView = imageView;
+            mReleased = false;
+            imageView.setOnTouchListener(this);
+            imageView.addOnLayoutChangeListener(this);
+            updateAttachListener();
+            if (imageView.isAttachedToWindow()) {
+                if (mFrameAlignedNotify) {
+                    registerPreDraw();
+                }
+                if (mLatencyTracker != null) {
+                    registerDrawListener();
+                }
+            }
+        }
+
+        mImageWidth = imageWidth;
+        mImageHeight = imageHeight;
+        mTransform.setContentSize(imageWidth, imageHeight);
+        mMinScale = DEFAULT_MIN_SCALE;
+        mMaxScale = computeMaxScale();
+        if (update) {
+            update();
+        } else {
+            mTransform.setBase(1, 1, 0, 0);
+            mTransform.reset();
+        }
+    }
+
+    /**
+     * 放回复用池之前清除所有 listener 和录制，避免持有之前的页面
+     */
+    void clearListeners() {
+        mViewportPending = false;
+        setLatencyListener(null);
+        setMetricsListener(null);
+        mGestureListener = null;
+        mMatrixListener = null;
+        mTraceRecorder = null;
+    }
+
+    /**
+     * 停止动画和 fling，丢弃触摸状态和等待中的点击，不产生回调
+     */
+    private void resetGestureState() {
+        mGestureDetector.reset();
+        mMetricsWaitFling = false;
+        mFlingRunning = false;
+        if (mOverDragHandler != null) {
+            mOverDragHandler.exitHandle();
+        }
+        if (mInterceptHandler != null) {
+            mInterceptHandler.onTouchEnd();
+        }
+        mCurPointerCount = 0;
+        needNotifyMatrixChange = false;
+        mMatrixDirty = false;
+    }
+
+    private float computeMaxScale() {
+        float minSize = Math.min(getViewWidth(), getViewHeight());
+        if (minSize < 1) {
+            minSize = 1080;
+        }
+        return Math.max(Math.max(mImageWidth, mImageHeight) / minSize, 5.0f);
+    }
+
+    private void cancelAnimations() {
+        mAnimator.cancel(GestureAnimator.CHANNEL_TRANSLATE | GestureAnimator.CHANNEL_SCALE);
     }
 
     public void setDoubleClickEnable(boolean enable) {
         mGestureDetector.setDoubleClickEnable(enable);
     }
 
+    /**
+     * @see GestureDetector#setHistoricalSamplesEnable(boolean)
+     */
+    public void setHistoricalSamplesEnable(boolean enable) {
+        mGestureDetector.setHistoricalSamplesEnable(enable);
+    }
+
+    /**
+     * fling 到达边界时回弹的最大距离 px，0 表示到达边界时直接停止
+     */
+    public void setFlingOverscroll(float distance) {
+        mFlingOverscroll = Math.max(distance, 0);
+        mGestureDetector.getFlingPhysics().setMaxOverscroll(mFlingOverscroll);
+    }
+
+    /**
+     * 替换动画的帧来源，为 null 时使用 Choreographer，测试时可以用 VirtualFrameSource 驱动
+     */
+    public void setFrameSource(@Nullable FrameSource source) {
+        mGestureDetector.setFrameSource(source);
+    }
+
+    /**
+     * @see GestureDetector#setTouchResampleEnable(boolean)
+     */
+    public void setTouchResampleEnable(boolean enable) {
+        mGestureDetector.setTouchResampleEnable(enable);
+    }
+
+    /**
+     * @see GestureDetector#setTouchPrediction(float)
+     */
+    public void setTouchPrediction(float millis) {
+        mGestureDetector.setTouchPrediction(millis);
+    }
+
+    /**
+     * 开启后矩阵的变化只做标记，在下一帧绘制之前统一分发一次 onMatrixChanged
+     * 触摸事件的频率高于屏幕刷新率，或者多个动画同时进行时，可以减少 IMatrixListener 的调用次数
+     * 没有 attach 到 window 时，仍然立即分发
+     * 加入 {@link ViewportLinkGroup} 期间始终开启，移除之后恢复这里设置的值
+     */
+    public void setFrameAlignedNotify(boolean enable) {
+        mFrameAlignedRequested = enable;
+        updateFrameAlignedNotify();
+    }
+
+    public boolean isFrameAlignedNotify() {
+        return mFrameAlignedNotify;
+    }
+
+    private void updateFrameAlignedNotify() {
+        boolean enable = mFrameAlignedRequested || mLinkGroup != null;
+        if (mFrameAlignedNotify == enable) {
+            return;
+        }
+        mFrameAlignedNotify = enable;
+        updateAttachListener();
+        if (enable) {
+            if (mImageView.isAttachedToWindow()) {
+                registerPreDraw();
+            }
+        } else {
+            unregisterPreDraw();
+            flushMatrixChanged();
+        }
+    }
+
+    /**
+     * 统计输入到绘制的延迟，按手势类型回调延迟分布
+     * 为 null 时关闭统计，不会有任何额外的开销
+     */
+    public void setLatencyListener(@Nullable ILatencyListener listener) {
+        if (mLatencyTracker != null) {
+            mLatencyTracker.report();
+            unregisterDrawListener();
+        }
+        mLatencyTracker = listener != null ? new LatencyTracker(this, listener) : null;
+        updateAttachListener();
+        if (mLatencyTracker != null && mImageView.isAttachedToWindow()) {
+            registerDrawListener();
+        }
+    }
+
+    /**
+     * 立即回调当前还没有回调的延迟分布
+     */
+    public void flushLatencyReport() {
+        if (mLatencyTracker != null) {
+            mLatencyTracker.report();
+        }
+    }
+
+    /**
+     * 统计每次手势处理的事件数，回调数，矩阵通知数，边界修正数，动画启动数和 fling 帧数
+     * 在 onTouchEnd 之后回调，有 fling 时在 onFlingEnd 之后回调，统计对象会被复用
+     * 为 null 时关闭统计
+     */
+    public void setMetricsListener(@Nullable IGestureMetricsListener listener) {
+        mMetricsListener = listener;
+        mMetricsWaitFling = false;
+        if (listener == null) {
+            mMetrics = null;
+        } else if (mMetrics == null) {
+            mMetrics = new GestureMetrics();
+        }
+    }
+
+    /**
+     * 录制之后收到的所有触摸事件，为 null 时停止录制，recorder 需要调用方关闭
+     */
+    public void setTouchTraceRecorder(@Nullable TouchTraceRecorder recorder) {
+        mTraceRecorder = recorder;
+    }
+
     public void setGestureListener(IGestureListener listener) {
         mGestureListener = listener;
     }
@@ -119,6 +400,20 @@ public class ViewGestureAttacher implements
     @Override
     public boolean onTouch(@NonNull View v, @NonNull MotionEvent ev) {
         mCurPointerCount = ev.getPointerCount();
+        if (mTraceRecorder != null) {
+            mTraceRecorder.record(this, ev);
+        }
+        if (mLatencyTracker != null) {
+            // 合并在一起的历史采样中最早的那个
+            mInputEventTime = ev.getHistorySize() > 0 ?
+                    ev.getHistoricalEventTime(0) : ev.getEventTime();
+        }
+        if (mMetrics != null) {
+            if (ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+                beginMetrics(ev.getEventTime());
+            }
+            mMetrics.touchEvents++;
+        }
         mGestureDetector.onTouchEvent(v, ev);
         needNotifyMatrixChange = false;
         return true;
@@ -126,6 +421,7 @@ public class ViewGestureAttacher implements
 
     @Override
     public void onTouchBeg(@NonNull MotionEvent e) {
+        flushLatencyReport();
         ViewParent parent = mImageView.getParent();
         if (parent != null) {
             if (mInterceptHandler != null) {
@@ -141,6 +437,7 @@ public class ViewGestureAttacher implements
 
     @Override
     public void onClick(float x, float y) {
+        countCallback();
         if (mGestureListener != null) {
             RectF rect = getDisplayRect();
             boolean insideImage = rect.contains(x, y);
@@ -150,6 +447,7 @@ public class ViewGestureAttacher implements
 
     @Override
     public void onDoubleClick(float x, float y) {
+        countCallback();
         if (mGestureListener != null &&
                 mGestureListener.onDoubleClick(this, x, y)) {
             return;
@@ -165,6 +463,7 @@ public class ViewGestureAttacher implements
     @Override
     public void onDrag(float x, float y, float dx, float dy,
                        float sumDx, float sumDy, boolean singlePointer) {
+        countCallback();
         if (hasRunningAnimation()) {
             return; // 有动画执行时禁止拖动
         }
@@ -192,15 +491,17 @@ public class ViewGestureAttacher implements
             return;
         }
 
-        mSuppMatrix.postTranslate(dx, dy);
+        mTransform.postTranslate(dx, dy);
 
         fixBoundary(false);
         needNotifyMatrixChange = true;
+        markLatency(ILatencyListener.GESTURE_DRAG, mInputEventTime);
     }
 
     @Override
     public boolean onDragEnd(float sumDx, float sumDy,
                              int velocityX, int velocityY, boolean singlePointer) {
+        countCallback();
         if (mOverDragHandler != null && mOverDragHandler.isHandling()) {
             return true;
         }
@@ -211,16 +512,78 @@ public class ViewGestureAttacher implements
         return hasRunningAnimation();
     }
 
+    /**
+     * fling 的范围和 fixBoundary 的规则一致，到达边界的方向会停止，不会每帧移动之后再被修正回来
+     */
     @Override
-    public boolean onFling(float dx, float dy, boolean singlePointer) {
-        mSuppMatrix.postTranslate(dx, dy);
+    public boolean getFlingBounds(float[] outBounds) {
+        RectF rect = getDisplayRect();
+        setFlingRange(outBounds, 0, rect.left, rect.right, getViewWidth());
+        setFlingRange(outBounds, 2, rect.top, rect.bottom, getViewHeight());
+        return true;
+    }
+
+    private static void setFlingRange(float[] out, int offset, float start, float end, int viewSize) {
+        if (end - start <= viewSize) {
+            // 内容比 view 小时会被修正到对齐的位置
+            out[offset] = 0;
+            out[offset + 1] = 0;
+        } else {
+            out[offset] = Math.min(0, viewSize - end);
+            out[offset + 1] = Math.max(0, -start);
+        }
+    }
 
-        fixBoundary(true);
+    @Override
+    public void onFlingStart(float finalDx, float finalDy, int duration, boolean singlePointer) {
+        mFlingRunning = true;
+        if (mMetrics != null) {
+            mMetrics.callbacks++;
+            mMetrics.flung = true;
+        }
+        if (mGestureListener == null) {
+            return;
+        }
+        mFlingTargetRect.set(getDisplayRect());
+        mFlingTargetRect.offset(finalDx, finalDy);
+        mGestureListener.onFlingStart(this, mFlingTargetRect, finalDx, finalDy, duration);
+    }
+
+    @Override
+    public boolean onFling(float dx, float dy, boolean singlePointer) {
+        if (mMetrics != null) {
+            mMetrics.callbacks++;
+            mMetrics.flingFrames++;
+        }
+        // 边界修正和矩阵分发在这一帧所有动画都推进之后在 onAnimationFrame 中统一做一次
+        mTransform.postTranslate(dx, dy);
         return false;
     }
 
+    private void onAnimationFrame(long frameTimeNanos, int channels, boolean fixBound) {
+        boolean fling = (channels & GestureAnimator.CHANNEL_FLING) != 0;
+        // 回弹时允许短暂超出边界
+        if (fixBound || (fling && mFlingOverscroll <= 0)) {
+            fixBoundary(false);
+        }
+        notifyMatrixChanged();
+        // 帧时间和 uptimeMillis 是同一个时钟
+        markLatency(fling ? ILatencyListener.GESTURE_FLING : ILatencyListener.GESTURE_SETTLE,
+                frameTimeNanos / 1_000_000L);
+    }
+
+    @Override
+    public void onFlingEnd(boolean singlePointer) {
+        mFlingRunning = false;
+        countCallback();
+        if (mMetricsWaitFling) {
+            deliverMetrics(SystemClock.uptimeMillis());
+        }
+    }
+
     @Override
     public void onScale(float focusX, float focusY, float scaleFactor, boolean singlePointer) {
+        countCallback();
         if (mOverDragHandler != null && mOverDragHandler.isHandling()) {
             return;
         }
@@ -246,13 +609,15 @@ public class ViewGestureAttacher implements
             scaleFactor = 1 - (1 - scaleFactor) * factor;
         }
 
-        mSuppMatrix.postScale(scaleFactor, scaleFactor, focusX, focusY);
+        mTransform.postScale(scaleFactor, focusX, focusY);
         fixBoundary(false);
         needNotifyMatrixChange = true;
+        markLatency(ILatencyListener.GESTURE_SCALE, mInputEventTime);
     }
 
     @Override
     public void onScaleEnd(float cx, float cy, boolean singlePointer) {
+        countCallback();
         if (mOverDragHandler != null && mOverDragHandler.isHandling()) {
             return;
         }
@@ -266,6 +631,24 @@ public class ViewGestureAttacher implements
             notifyMatrixChanged();
         }
         GestureListener.super.onTouchEventAfter(e);
+        if (mMetrics != null) {
+            int action = e.getActionMasked();
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                if (mFlingRunning) {
+                    mMetricsWaitFling = true;
+                } else {
+                    deliverMetrics(e.getEventTime());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onResampledFrame(long frameTimeNanos) {
+        if (needNotifyMatrixChange) {
+            needNotifyMatrixChange = false;
+            notifyMatrixChanged();
+        }
     }
 
     @Override
@@ -293,7 +676,7 @@ public class ViewGestureAttacher implements
         }
 
         fixBoundaryAnimated();
-        if (mScaleAnimator == null || !mScaleAnimator.isRunning()) {
+        if (!mAnimator.isRunning(GestureAnimator.CHANNEL_SCALE)) {
             fixScaleAnimated(false);
         }
     }
@@ -341,10 +724,7 @@ public class ViewGestureAttacher implements
     }
 
     private boolean hasRunningAnimation() {
-        if (mTransAnimator != null && mTransAnimator.isRunning()) {
-            return true;
-        }
-        return mScaleAnimator != null && mScaleAnimator.isRunning();
+        return mAnimator.isRunning(GestureAnimator.CHANNEL_TRANSLATE | GestureAnimator.CHANNEL_SCALE);
     }
 
     /**
@@ -381,29 +761,14 @@ public class ViewGestureAttacher implements
             return;
         }
 
-        if (mTransAnimator != null) {
-            mTransAnimator.cancel();
-            mTransAnimator = null;
-        }
-        mTransAnimator = ValueAnimator.ofFloat(0, 1);
-        mTransAnimator.setInterpolator(new FastOutSlowInInterpolator());
-        mTransAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            float lastp = 0;
-            @Override
-            public void onAnimationUpdate(@NonNull ValueAnimator animation) {
-                float p = (float) animation.getAnimatedValue();
-                float ddx = dx * (p - lastp);
-                float ddy = dy * (p - lastp);
-                lastp = p;
-                postTranslate(ddx, ddy, fixBound);
-            }
-        });
-        mTransAnimator.setDuration(DEFAULT_ANIM_DURATION);
-        mTransAnimator.start();
+        mAnimator.animateTranslate(dx, dy, DEFAULT_ANIM_DURATION, fixBound);
+        if (mMetrics != null) {
+            mMetrics.animatorStarts++;
+        }
     }
 
     void postTranslate(float dx, float dy, boolean fixBound) {
-        mSuppMatrix.postTranslate(dx, dy);
+        mTransform.postTranslate(dx, dy);
         if (fixBound) {
             fixBoundary(false);
         }
@@ -411,7 +776,7 @@ public class ViewGestureAttacher implements
     }
 
     void postTranslateScale(float dx, float dy, float scaleFactor, boolean fixBound) {
-        mSuppMatrix.postTranslate(dx, dy);
+        mTransform.postTranslate(dx, dy);
         postScale(scaleFactor, fixBound);
     }
 
@@ -446,19 +811,10 @@ public class ViewGestureAttacher implements
             return;
         }
 
-        if (mScaleAnimator != null) {
-            mScaleAnimator.cancel();
-            mScaleAnimator = null;
+        mAnimator.animateScale(curScale, dstScale, focalX, focalY, DEFAULT_ANIM_DURATION, fixBound);
+        if (mMetrics != null) {
+            mMetrics.animatorStarts++;
         }
-        mScaleAnimator = ValueAnimator.ofFloat(curScale, dstScale);
-        mScaleAnimator.setInterpolator(new FastOutSlowInInterpolator());
-        mScaleAnimator.addUpdateListener(animation -> {
-            float scale = (float) animation.getAnimatedValue();
-            float scaleFactor = scale / getScale();
-            postScale(scaleFactor, focalX, focalY, fixBound);
-        });
-        mScaleAnimator.setDuration(DEFAULT_ANIM_DURATION);
-        mScaleAnimator.start();
     }
 
     void postScale(float scaleFactor, boolean fixBound) {
@@ -468,10 +824,12 @@ public class ViewGestureAttacher implements
     void postScale(float scaleFactor, float focalX, float focalY, boolean fixBound) {
         boolean centerScale = focalX == Float.MAX_VALUE || focalY == Float.MAX_VALUE;
         if (centerScale) {
-            RectF rect = getDisplayRect();
-            mSuppMatrix.postScale(scaleFactor, scaleFactor, rect.centerX(), rect.centerY());
+            mTransform.mapContentRect();
+            mTransform.postScale(scaleFactor,
+                    (mTransform.getLeft() + mTransform.getRight()) / 2,
+                    (mTransform.getTop() + mTransform.getBottom()) / 2);
         } else {
-            mSuppMatrix.postScale(scaleFactor, scaleFactor, focalX, focalY);
+            mTransform.postScale(scaleFactor, focalX, focalY);
         }
         if (fixBound) {
             fixBoundary(false);
@@ -480,17 +838,20 @@ public class ViewGestureAttacher implements
     }
 
     public void fixBoundaryAnimated() {
-        PointF deltaXY = getBoundaryDeltaXY();
-        if (deltaXY.x == 0 && deltaXY.y == 0) {
+        if (!mTransform.computeBoundaryDelta(getViewWidth(), getViewHeight(), getBoundaryAlign())) {
             return;
         }
-        postTranslate(deltaXY.x, deltaXY.y, false, true);
+        if (mMetrics != null) {
+            mMetrics.boundaryCorrections++;
+        }
+        postTranslate((float) mTransform.getBoundaryDeltaX(),
+                (float) mTransform.getBoundaryDeltaY(), false, true);
     }
 
     public void fixBoundary(boolean forceNotify) {
-        PointF deltaXY = getBoundaryDeltaXY();
-        if (deltaXY.x != 0 || deltaXY.y != 0) {
-            mSuppMatrix.postTranslate(deltaXY.x, deltaXY.y);
+        if (mTransform.fixBoundary(getViewWidth(), getViewHeight(), getBoundaryAlign()) &&
+                mMetrics != null) {
+            mMetrics.boundaryCorrections++;
         }
         if (forceNotify) {
             notifyMatrixChanged();
@@ -527,20 +888,18 @@ public class ViewGestureAttacher implements
 
     @NonNull
     public RectF getDisplayRect() {
-        return getDisplayRect(getDrawMatrix());
+        mTransform.mapContentRect();
+        mDisplayRect.set((float) mTransform.getLeft(), (float) mTransform.getTop(),
+                (float) mTransform.getRight(), (float) mTransform.getBottom());
+        return mDisplayRect;
     }
 
     /**
-     * Helper method that maps the supplied Matrix to the current Drawable
-     *
-     * @param matrix - Matrix to map Drawable against
-     * @return RectF - Displayed Rectangle
+     * 双精度的变换状态，拖动，缩放，边界修正都直接在这上面计算
      */
     @NonNull
-    private RectF getDisplayRect(@NonNull Matrix matrix) {
-        mDisplayRect.set(0, 0, mImageWidth, mImageHeight);
-        matrix.mapRect(mDisplayRect);
-        return mDisplayRect;
+    public GestureTransform getTransform() {
+        return mTransform;
     }
 
     public float getMinimumScale() {
@@ -552,15 +911,20 @@ public class ViewGestureAttacher implements
     }
 
     public float getScale() {
-        return (float) Math.sqrt(
-                (float) Math.pow(getValue(mSuppMatrix, Matrix.MSCALE_X), 2) +
-                        (float) Math.pow(getValue(mSuppMatrix, Matrix.MSKEW_Y), 2));
+        return (float) mTransform.getScale();
     }
 
     public int getCurPointerCount() {
         return mCurPointerCount;
     }
 
+    /**
+     * 平移，缩放动画或者 fling 是否还在进行
+     */
+    public boolean isAnimating() {
+        return mAnimator.isRunning();
+    }
+
     public ScaleType getScaleType() {
         return mScaleType;
     }
@@ -599,37 +963,145 @@ public class ViewGestureAttacher implements
      * Get the current support matrix
      */
     public void getSuppMatrix(@NonNull Matrix matrix) {
-        matrix.set(mSuppMatrix);
+        mTransform.getSuppValues(mMatrixValues);
+        matrix.setValues(mMatrixValues);
     }
 
+    /**
+     * 只在需要的时候由 mTransform 生成 Matrix
+     */
     @NonNull
     private Matrix getDrawMatrix() {
-        mDrawMatrix.set(mBaseMatrix);
-        mDrawMatrix.postConcat(mSuppMatrix);
+        mTransform.getValues(mMatrixValues);
+        mDrawMatrix.setValues(mMatrixValues);
         return mDrawMatrix;
     }
 
     public Matrix getImageMatrix() {
-        return mDrawMatrix;
+        return getDrawMatrix();
     }
 
     /**
-     * Helper method that 'unpacks' a Matrix and returns the required value
-     *
-     * @param matrix     Matrix to unpack
-     * @param whichValue Which value from Matrix.M* to return
-     * @return returned value
+     * 保存当前的显示区域，不分配对象，view 还没有大小时 out 为无效
+     */
+    public void saveViewport(@NonNull ViewportSnapshot out) {
+        int vw = getViewWidth();
+        int vh = getViewHeight();
+        if (vw < 1 || vh < 1) {
+            out.clear();
+            return;
+        }
+        mTransform.invertPoint(vw / 2.0, vh / 2.0);
+        out.set(mImageWidth, mImageHeight, vw, vh, mScaleType.ordinal(),
+                mTransform.getScale(), mTransform.getRotation(),
+                mTransform.getTransX(), mTransform.getTransY(),
+                mTransform.getMappedX(), mTransform.getMappedY());
+    }
+
+    /**
+     * 恢复保存的显示区域，代替计算初始变换之后的重置，只分发一次矩阵变化
+     * 图片大小和当前一致并且 view 已经有大小时立即恢复，否则等到下一次计算初始变换时
+     * (rebind 或者 layout 之后) 再恢复，那时图片大小不一致则忽略
+     * @return snapshot 是否有效
+     */
+    public boolean restoreViewport(@NonNull ViewportSnapshot snapshot) {
+        if (!snapshot.isValid()) {
+            return false;
+        }
+        if (mPendingViewport == null) {
+            mPendingViewport = new ViewportSnapshot();
+        }
+        mPendingViewport.set(snapshot);
+        mViewportPending = true;
+        if (isSameImageSize(snapshot.getImageWidth(), snapshot.getImageHeight()) &&
+                getViewWidth() >= 1 && getViewHeight() >= 1) {
+            cancelAnimations();
+            updateBaseMatrix();
+        }
+        return true;
+    }
+
+    /**
+     * view 大小和 ScaleType 不变时直接恢复 supp，否则保持缩放和旋转，把原来 view 中心的内容移到中心
+     * @return 是否有恢复
+     */
+    private boolean applyPendingViewport(double viewWidth, double viewHeight) {
+        if (!mViewportPending) {
+            return false;
+        }
+        mViewportPending = false;
+        ViewportSnapshot snapshot = mPendingViewport;
+        if (!isSameImageSize(snapshot.getImageWidth(), snapshot.getImageHeight())) {
+            return false;
+        }
+        if (snapshot.getViewWidth() == viewWidth && snapshot.getViewHeight() == viewHeight &&
+                snapshot.getScaleType() == mScaleType.ordinal()) {
+            mTransform.set(snapshot.getScale(), snapshot.getRotation(),
+                    snapshot.getTransX(), snapshot.getTransY());
+            return true;
+        }
+        setViewportCentered(snapshot.getScale(), snapshot.getRotation(),
+                snapshot.getFocusX(), snapshot.getFocusY(), viewWidth, viewHeight);
+        mTransform.fixBoundary(viewWidth, viewHeight, getBoundaryAlign());
+        return true;
+    }
+
+    /**
+     * 设置缩放和旋转，并把内容坐标 (focusX, focusY) 移到 view 的中心
+     */
+    private void setViewportCentered(double scale, double rotation, double focusX, double focusY,
+                                     double viewWidth, double viewHeight) {
+        mTransform.set(scale, rotation, 0, 0);
+        mTransform.mapPoint(focusX, focusY);
+        mTransform.postTranslate(viewWidth / 2 - mTransform.getMappedX(),
+                viewHeight / 2 - mTransform.getMappedY());
+    }
+
+    @Nullable
+    public ViewportLinkGroup getLinkGroup() {
+        return mLinkGroup;
+    }
+
+    void setLinkGroup(@Nullable ViewportLinkGroup group) {
+        mLinkGroup = group;
+        updateFrameAlignedNotify();
+    }
+
+    /**
+     * 按 group 的显示区域设置变换：缩放和旋转相同，view 中心对应的内容位置按图片大小归一化
+     * 缩放限制在自己的范围内，并按自己的边界修正，宽高比不同时不会露出空白
+     * 直接分发给自己的 IMatrixListener，不再传回 group
+     * @return 是否有设置
+     */
+    boolean applyLinkedViewport(@NonNull ViewportSnapshot source) {
+        int vw = getViewWidth();
+        int vh = getViewHeight();
+        if (vw < 1 || vh < 1 || source.getImageWidth() < 1 || source.getImageHeight() < 1) {
+            return false;
+        }
+        double focusX = source.getFocusX() / source.getImageWidth() * mImageWidth;
+        double focusY = source.getFocusY() / source.getImageHeight() * mImageHeight;
+        double scale = Math.max(mMinScale, Math.min(mMaxScale, source.getScale()));
+        setViewportCentered(scale, source.getRotation(), focusX, focusY, vw, vh);
+        mTransform.fixBoundary(vw, vh, getBoundaryAlign());
+        mMatrixDirty = false;
+        dispatchMatrixChangedToListener();
+        return true;
+    }
+
+    /**
+     * 其它 attacher 开始驱动时停止自己的动画和 fling，避免互相覆盖
      */
-    private float getValue(@NonNull Matrix matrix, int whichValue) {
-        matrix.getValues(mMatrixValues);
-        return mMatrixValues[whichValue];
+    void stopLinkedAnimations() {
+        mAnimator.cancel(GestureAnimator.CHANNEL_TRANSLATE | GestureAnimator.CHANNEL_SCALE |
+                GestureAnimator.CHANNEL_FLING);
     }
 
     /**
      * Resets the Matrix back to FIT_CENTER, and then displays its contents
      */
     private void resetMatrix() {
-        mSuppMatrix.reset();
+        mTransform.reset();
         notifyMatrixChanged();
     }
 
@@ -637,30 +1109,140 @@ public class ViewGestureAttacher implements
      * Helper method that simply checks the Matrix, and then displays the result
      */
     private void notifyMatrixChanged() {
+        if (mMetrics != null) {
+            mMetrics.matrixNotifications++;
+        }
+        if (mFrameAlignedNotify && mObserver != null) {
+            mMatrixDirty = true;
+            mImageView.invalidate();
+            return;
+        }
+        dispatchMatrixChanged();
+    }
+
+    /**
+     * 立即分发还没有分发的矩阵变化
+     */
+    public void flushMatrixChanged() {
+        if (mMatrixDirty) {
+            mMatrixDirty = false;
+            dispatchMatrixChanged();
+        }
+    }
+
+    private void dispatchMatrixChanged() {
+        dispatchMatrixChangedToListener();
+        if (mLinkGroup != null) {
+            mLinkGroup.onMatrixChanged(this);
+        }
+    }
+
+    private void dispatchMatrixChangedToListener() {
+        if (mMetrics != null) {
+            mMetrics.matrixDispatches++;
+        }
         if (mMatrixListener != null) {
             mMatrixListener.onMatrixChanged(getDrawMatrix());
         }
     }
 
     /**
-     * Calculate Matrix for FIT_CENTER
+     * OnPreDrawListener 一直保持注册，避免每帧增删 listener 的分配
+     */
+    private void registerPreDraw() {
+        if (mObserver != null) {
+            return;
+        }
+        mObserver = mImageView.getViewTreeObserver();
+        mObserver.addOnPreDrawListener(mPreDrawListener);
+    }
+
+    private void countCallback() {
+        if (mMetrics != null) {
+            mMetrics.callbacks++;
+        }
+    }
+
+    /**
+     * 新的手势开始，上一次手势如果还在等 fling 结束，先回调
+     */
+    private void beginMetrics(long eventTime) {
+        if (mMetricsWaitFling) {
+            deliverMetrics(eventTime);
+        }
+        mMetrics.reset();
+        mMetrics.startTime = eventTime;
+    }
+
+    private void deliverMetrics(long endTime) {
+        mMetricsWaitFling = false;
+        mMetrics.endTime = endTime;
+        mMetricsListener.onGestureMetrics(this, mMetrics);
+    }
+
+    private void markLatency(int gestureType, long inputTimeMillis) {
+        if (mLatencyTracker != null) {
+            mLatencyTracker.mark(gestureType, inputTimeMillis);
+        }
+    }
+
+    private void updateAttachListener() {
+        boolean need = mFrameAlignedNotify || mLatencyTracker != null;
+        if (need && !mAttachListenerAdded) {
+            mImageView.addOnAttachStateChangeListener(mAttachListener);
+        } else if (!need && mAttachListenerAdded) {
+            mImageView.removeOnAttachStateChangeListener(mAttachListener);
+        }
+        mAttachListenerAdded = need;
+    }
+
+    private void registerDrawListener() {
+        if (mDrawObserver != null || mLatencyTracker == null) {
+            return;
+        }
+        mDrawObserver = mImageView.getViewTreeObserver();
+        mDrawObserver.addOnDrawListener(mLatencyTracker);
+    }
+
+    private void unregisterDrawListener() {
+        if (mDrawObserver == null) {
+            return;
+        }
+        if (mDrawObserver.isAlive() && mLatencyTracker != null) {
+            mDrawObserver.removeOnDrawListener(mLatencyTracker);
+        }
+        mDrawObserver = null;
+    }
+
+    private void unregisterPreDraw() {
+        if (mObserver == null) {
+            return;
+        }
+        if (mObserver.isAlive()) {
+            mObserver.removeOnPreDrawListener(mPreDrawListener);
+        }
+        mObserver = null;
+    }
+
+    /**
+     * Calculate base transform for the scale type
      */
     private void updateBaseMatrix() {
-        float drawableWidth = mImageWidth;
-        float drawableHeight = mImageHeight;
-        final float viewWidth = getViewWidth();
-        final float viewHeight = getViewHeight();
-        mBaseMatrix.reset();
+        final double drawableWidth = mImageWidth;
+        final double drawableHeight = mImageHeight;
+        final double viewWidth = getViewWidth();
+        final double viewHeight = getViewHeight();
+        mTransform.setBase(1, 1, 0, 0);
         if (viewWidth < 1 || viewHeight < 1) {
             return;
         }
-        final float widthScale = viewWidth / drawableWidth;
-        final float heightScale = viewHeight / drawableHeight;
+        final double widthScale = viewWidth / drawableWidth;
+        final double heightScale = viewHeight / drawableHeight;
 
         if (widthScale > heightScale) {
-            mDoubleScale = widthScale / heightScale;
+            mDoubleScale = (float) (widthScale / heightScale);
         } else {
-            mDoubleScale = heightScale / widthScale;
+            mDoubleScale = (float) (heightScale / widthScale);
         }
 
         mDoubleScale = Math.min(mDoubleScale, mMaxScale);
@@ -668,87 +1250,62 @@ public class ViewGestureAttacher implements
             mDoubleScale = 2.0f;
         }
 
-        if (mScaleType == ScaleType.CENTER) {
-            mBaseMatrix.postTranslate((viewWidth - drawableWidth) / 2F,
-                    (viewHeight - drawableHeight) / 2F);
-
-        } else if (mScaleType == ScaleType.CENTER_CROP) {
-            float scale = Math.max(widthScale, heightScale);
-            mBaseMatrix.postScale(scale, scale);
-            mBaseMatrix.postTranslate((viewWidth - drawableWidth * scale) / 2F,
-                    (viewHeight - drawableHeight * scale) / 2F);
-
-        } else if (mScaleType == ScaleType.CENTER_INSIDE) {
-            float scale = Math.min(1.0f, Math.min(widthScale, heightScale));
-            mBaseMatrix.postScale(scale, scale);
-            mBaseMatrix.postTranslate((viewWidth - drawableWidth * scale) / 2F,
-                    (viewHeight - drawableHeight * scale) / 2F);
-        } else {
-            RectF mTempSrc = new RectF(0, 0, drawableWidth, drawableHeight);
-            RectF mTempDst = new RectF(0, 0, viewWidth, viewHeight);
-            switch (mScaleType) {
-                case FIT_CENTER:
-                    mBaseMatrix.setRectToRect(mTempSrc, mTempDst, ScaleToFit.CENTER);
-                    break;
-                case FIT_START:
-                    mBaseMatrix.setRectToRect(mTempSrc, mTempDst, ScaleToFit.START);
-                    break;
-                case FIT_END:
-                    mBaseMatrix.setRectToRect(mTempSrc, mTempDst, ScaleToFit.END);
-                    break;
-                case FIT_XY:
-                    mBaseMatrix.setRectToRect(mTempSrc, mTempDst, ScaleToFit.FILL);
-                    break;
-                default:
-                    break;
-            }
+        double scale;
+        switch (mScaleType) {
+            case CENTER:
+                mTransform.setBase(1, 1, (viewWidth - drawableWidth) / 2,
+                        (viewHeight - drawableHeight) / 2);
+                break;
+            case CENTER_CROP:
+                scale = Math.max(widthScale, heightScale);
+                mTransform.setBase(scale, scale, (viewWidth - drawableWidth * scale) / 2,
+                        (viewHeight - drawableHeight * scale) / 2);
+                break;
+            case CENTER_INSIDE:
+                scale = Math.min(1.0, Math.min(widthScale, heightScale));
+                mTransform.setBase(scale, scale, (viewWidth - drawableWidth * scale) / 2,
+                        (viewHeight - drawableHeight * scale) / 2);
+                break;
+            case FIT_CENTER:
+                scale = Math.min(widthScale, heightScale);
+                mTransform.setBase(scale, scale, (viewWidth - drawableWidth * scale) / 2,
+                        (viewHeight - drawableHeight * scale) / 2);
+                break;
+            case FIT_START:
+                scale = Math.min(widthScale, heightScale);
+                mTransform.setBase(scale, scale, 0, 0);
+                break;
+            case FIT_END:
+                scale = Math.min(widthScale, heightScale);
+                mTransform.setBase(scale, scale, viewWidth - drawableWidth * scale,
+                        viewHeight - drawableHeight * scale);
+                break;
+            case FIT_XY:
+                mTransform.setBase(widthScale, heightScale, 0, 0);
+                break;
+            default:
+                break;
+        }
+        if (applyPendingViewport(viewWidth, viewHeight)) {
+            notifyMatrixChanged();
+        } else if (mLinkGroup == null || !mLinkGroup.syncMember(this)) {
+            // 联动时跟随 group 当前的显示区域
+            resetMatrix();
         }
-        resetMatrix();
     }
 
-    @NonNull
-    private PointF getBoundaryDeltaXY() {
-        final RectF rect = getDisplayRect(getDrawMatrix());
-
-        float deltaX = 0, deltaY = 0;
-        final int viewHeight = getViewHeight();
-        final float height = rect.height(), width = rect.width();
-        if (height <= viewHeight) {
-            switch (mScaleType) {
-                case FIT_START:
-                    deltaY = -rect.top;
-                    break;
-                case FIT_END:
-                    deltaY = viewHeight - height - rect.top;
-                    break;
-                default:
-                    deltaY = (viewHeight - height) / 2 - rect.top;
-                    break;
-            }
-        } else if (rect.top > 0) {
-            deltaY = -rect.top;
-        } else if (rect.bottom < viewHeight) {
-            deltaY = viewHeight - rect.bottom;
-        }
-        final int viewWidth = getViewWidth();
-        if (width <= viewWidth) {
-            switch (mScaleType) {
-                case FIT_START:
-                    deltaX = -rect.left;
-                    break;
-                case FIT_END:
-                    deltaX = viewWidth - width - rect.left;
-                    break;
-                default:
-                    deltaX = (viewWidth - width) / 2 - rect.left;
-                    break;
-            }
-        } else if (rect.left > 0) {
-            deltaX = -rect.left;
-        } else if (rect.right < viewWidth) {
-            deltaX = viewWidth - rect.right;
+    /**
+     * 内容小于 view 时的对齐方式
+     */
+    private int getBoundaryAlign() {
+        switch (mScaleType) {
+            case FIT_START:
+                return GestureTransform.ALIGN_START;
+            case FIT_END:
+                return GestureTransform.ALIGN_END;
+            default:
+                return GestureTransform.ALIGN_CENTER;
         }
-        return new PointF(deltaX, deltaY);
     }
 
     public int getImageWidth() {
@@ -0,0 +1,92 @@
+package com.kejin.android.gesture.view;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+/**
+ * ViewGestureAttacher 复用池，RecyclerView / ViewPager 的所有 item 共享同一个 pool，
+ * 绑定回收的 item 时通过 {@link ViewGestureAttacher#rebind(View, int, int)} 复用之前的 attacher，
+ * 不再创建 GestureDetector，Handler，动画和矩阵等对象
+ * 放回的 attacher 仍然引用之前的 view 和它的 Context，pool 的生命周期超过页面时
+ * (例如 pool 是静态的或者跨 Activity 共享)，页面销毁时需要调用 {@link #clear()}
+ * 只能在主线程使用
+ */
+public class ViewGestureAttacherPool {
+    private final ViewGestureAttacher[] attachers;
+    private int size = 0;
+
+    private int hitCount = 0;
+    private int missCount = 0;
+
+    /**
+     * @param maxSize 最多保存的 attacher 数量，一般为同时可见的 item 数量加上预加载的数量
+     */
+    public ViewGestureAttacherPool(int maxSize) {
+        attachers = new ViewGestureAttacher[Math.max(maxSize, 1)];
+    }
+
+    /**
+     * 取出一个 attacher 并绑定到 view，没有可以复用的时创建新的
+     * 复用的 attacher 没有任何 listener，其它设置保持放回之前的状态，需要按需重新设置
+     * 和新建的 attacher 一样还没有计算初始变换，设置完之后调用 {@link ViewGestureAttacher#update()}
+     * 或者 {@link ViewGestureAttacher#restoreViewport(ViewportSnapshot)}，初始变换只计算一次
+     */
+    @NonNull
+    public ViewGestureAttacher obtain(@NonNull View view, int imageWidth, int imageHeight) {
+        if (size > 0) {
+            ViewGestureAttacher attacher = attachers[--size];
+            attachers[size] = null;
+            hitCount++;
+            attacher.rebind(view, imageWidth, imageHeight, false);
+            return attacher;
+        }
+        missCount++;
+        return new ViewGestureAttacher(view, imageWidth, imageHeight);
+    }
+
+    /**
+     * 从 view 上解除并放回，停止动画和 fling，清除所有 listener，放回之后不能再使用，超过上限时直接丢弃
+     */
+    public void recycle(@NonNull ViewGestureAttacher attacher) {
+        attacher.release();
+        attacher.clearListeners();
+        for (int i = 0; i < size; i++) {
+            if (attachers[i] == attacher) {
+                return;
+            }
+        }
+        if (size < attachers.length) {
+            attachers[size++] = attacher;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            attachers[i] = null;
+        }
+        size = 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return attachers.length;
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ViewGestureAttacherPool[size=" + size + "/" + attachers.length +
+                ", hit=" + hitCount + ", miss=" + missCount + "]";
+    }
+}
@@ -0,0 +1,110 @@
+package com.kejin.android.gesture.view;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按图片 id 保存显示区域的 LRU 缓存，超过上限时移除最久没有访问的，移除的快照对象会被复用
+ * 可以 Parcelable 保存到 onSaveInstanceState 中，进程重建之后恢复
+ * 只能在主线程使用
+ */
+public class ViewportCache implements Parcelable {
+    private final int maxSize;
+    // 按访问顺序排列
+    private final LinkedHashMap<String, ViewportSnapshot> entries;
+
+    public ViewportCache(int maxSize) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return 返回的对象属于 cache，只能读取，没有返回 null
+     */
+    @Nullable
+    public ViewportSnapshot get(@NonNull String id) {
+        ViewportSnapshot snapshot = entries.get(id);
+        return snapshot != null && snapshot.isValid() ? snapshot : null;
+    }
+
+    /**
+     * 复制一份保存，已经存在时直接覆盖
+     */
+    public void put(@NonNull String id, @NonNull ViewportSnapshot snapshot) {
+        ViewportSnapshot saved = entries.get(id);
+        if (saved == null) {
+            if (entries.size() >= maxSize) {
+                Iterator<Map.Entry<String, ViewportSnapshot>> iterator = entries.entrySet().iterator();
+                saved = iterator.next().getValue();
+                iterator.remove();
+            } else {
+                saved = new ViewportSnapshot();
+            }
+            entries.put(id, saved);
+        }
+        saved.set(snapshot);
+    }
+
+    public void remove(@NonNull String id) {
+        entries.remove(id);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * 按访问顺序写入，恢复之后的顺序不变
+     */
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        dest.writeInt(maxSize);
+        dest.writeInt(entries.size());
+        for (Map.Entry<String, ViewportSnapshot> entry : entries.entrySet()) {
+            dest.writeString(entry.getKey());
+            entry.getValue().writeToParcel(dest, flags);
+        }
+    }
+
+    public static final Creator<ViewportCache> CREATOR = new Creator<ViewportCache>() {
+        @Override
+        public ViewportCache createFromParcel(Parcel source) {
+            ViewportCache cache = new ViewportCache(source.readInt());
+            int size = source.readInt();
+            for (int i = 0; i < size; i++) {
+                String id = source.readString();
+                ViewportSnapshot snapshot = new ViewportSnapshot();
+                snapshot.readFromParcel(source);
+                if (id != null) {
+                    cache.entries.put(id, snapshot);
+                }
+            }
+            return cache;
+        }
+
+        @Override
+        public ViewportCache[] newArray(int size) {
+            return new ViewportCache[size];
+        }
+    };
+}
@@ -0,0 +1,111 @@
+package com.kejin.android.gesture.view;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * 多个 ViewGestureAttacher 共享同一个显示区域，用于并排对比 (处理前后，多个图层)
+ * 任意一个 attacher 因为手势或者动画改变矩阵时作为驱动方，只计算一次归一化的显示区域
+ * (缩放，旋转，view 中心对应的内容位置按图片大小归一化)，直接设置到其它 attacher 并分发它们自己的矩阵变化，
+ * 其它 attacher 的变化不会再传回 group，不会来回通知
+ * 加入期间始终开启 {@link ViewGestureAttacher#setFrameAlignedNotify(boolean)}，移除之后恢复原来的设置，
+ * 驱动方每帧只分发一次，所以每帧只同步一次，每个成员的开销是固定的几次浮点运算和一次 onMatrixChanged
+ * 只能在主线程使用，不分配对象
+ */
+public class ViewportLinkGroup {
+    private final ArrayList<ViewGestureAttacher> members = new ArrayList<>();
+    private final ViewportSnapshot current = new ViewportSnapshot();
+    private ViewGestureAttacher driver = null;
+    private boolean syncing = false;
+
+    /**
+     * 加入之后立即跟随 group 当前的显示区域，已经在其它 group 中时先移除
+     */
+    public void add(@NonNull ViewGestureAttacher attacher) {
+        if (members.contains(attacher)) {
+            return;
+        }
+        ViewportLinkGroup old = attacher.getLinkGroup();
+        if (old != null) {
+            old.remove(attacher);
+        }
+        members.add(attacher);
+        attacher.setLinkGroup(this);
+        syncMember(attacher);
+    }
+
+    public void remove(@NonNull ViewGestureAttacher attacher) {
+        if (!members.remove(attacher)) {
+            return;
+        }
+        attacher.setLinkGroup(null);
+        if (driver == attacher) {
+            driver = null;
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < members.size(); i++) {
+            members.get(i).setLinkGroup(null);
+        }
+        members.clear();
+        driver = null;
+        current.clear();
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * 当前的显示区域，按最近一次驱动的 attacher 保存
+     */
+    @NonNull
+    public ViewportSnapshot getViewport() {
+        return current;
+    }
+
+    /**
+     * 驱动方的矩阵已经分发，同步给其它成员
+     * 驱动方变化时先停止其它成员的动画和 fling
+     */
+    void onMatrixChanged(@NonNull ViewGestureAttacher source) {
+        if (syncing) {
+            return;
+        }
+        source.saveViewport(current);
+        if (!current.isValid()) {
+            return;
+        }
+        boolean driverChanged = source != driver;
+        driver = source;
+        syncing = true;
+        for (int i = 0; i < members.size(); i++) {
+            ViewGestureAttacher member = members.get(i);
+            if (member == source) {
+                continue;
+            }
+            if (driverChanged) {
+                member.stopLinkedAnimations();
+            }
+            member.applyLinkedViewport(current);
+        }
+        syncing = false;
+    }
+
+    /**
+     * 成员重新计算初始变换之后 (layout 或者图片大小变化) 跟随当前的显示区域，而不是把重置同步给所有成员
+     * @return 是否有同步
+     */
+    boolean syncMember(@NonNull ViewGestureAttacher member) {
+        if (!current.isValid()) {
+            return false;
+        }
+        boolean oldSyncing = syncing;
+        syncing = true;
+        boolean applied = member.applyLinkedViewport(current);
+        syncing = oldSyncing;
+        return applied;
+    }
+}
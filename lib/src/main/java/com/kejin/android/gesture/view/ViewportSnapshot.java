@@ -0,0 +1,160 @@
+package com.kejin.android.gesture.view;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+
+/**
+ * ViewGestureAttacher 的显示区域快照：手势产生的变换 (supp)，ScaleType，view 和图片大小，
+ * 以及 view 中心对应的内容坐标，view 大小或者 ScaleType 变化时按中心点恢复
+ * 读写都不分配对象，可以 Parcelable 保存到 onSaveInstanceState 中
+ */
+public class ViewportSnapshot implements Parcelable {
+    private boolean valid = false;
+    private int imageWidth = 0, imageHeight = 0;
+    private int viewWidth = 0, viewHeight = 0;
+    private int scaleType = -1; // ScaleType.ordinal()
+    private double scale = 1;
+    private double rotation = 0;
+    private double transX = 0, transY = 0;
+    private double focusX = 0, focusY = 0;
+
+    public ViewportSnapshot() {
+    }
+
+    void set(int imageWidth, int imageHeight, int viewWidth, int viewHeight, int scaleType,
+             double scale, double rotation, double transX, double transY,
+             double focusX, double focusY) {
+        this.valid = true;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.scaleType = scaleType;
+        this.scale = scale;
+        this.rotation = rotation;
+        this.transX = transX;
+        this.transY = transY;
+        this.focusX = focusX;
+        this.focusY = focusY;
+    }
+
+    public void set(@NonNull ViewportSnapshot other) {
+        set(other.imageWidth, other.imageHeight, other.viewWidth, other.viewHeight,
+                other.scaleType, other.scale, other.rotation, other.transX, other.transY,
+                other.focusX, other.focusY);
+        valid = other.valid;
+    }
+
+    public void clear() {
+        valid = false;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    public int getScaleType() {
+        return scaleType;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public double getTransX() {
+        return transX;
+    }
+
+    public double getTransY() {
+        return transY;
+    }
+
+    /**
+     * view 中心对应的内容 x 坐标
+     */
+    public double getFocusX() {
+        return focusX;
+    }
+
+    /**
+     * view 中心对应的内容 y 坐标
+     */
+    public double getFocusY() {
+        return focusY;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        dest.writeInt(valid ? 1 : 0);
+        dest.writeInt(imageWidth);
+        dest.writeInt(imageHeight);
+        dest.writeInt(viewWidth);
+        dest.writeInt(viewHeight);
+        dest.writeInt(scaleType);
+        dest.writeDouble(scale);
+        dest.writeDouble(rotation);
+        dest.writeDouble(transX);
+        dest.writeDouble(transY);
+        dest.writeDouble(focusX);
+        dest.writeDouble(focusY);
+    }
+
+    void readFromParcel(@NonNull Parcel source) {
+        boolean valid = source.readInt() != 0;
+        set(source.readInt(), source.readInt(), source.readInt(), source.readInt(),
+                source.readInt(), source.readDouble(), source.readDouble(),
+                source.readDouble(), source.readDouble(),
+                source.readDouble(), source.readDouble());
+        this.valid = valid;
+    }
+
+    public static final Creator<ViewportSnapshot> CREATOR = new Creator<ViewportSnapshot>() {
+        @Override
+        public ViewportSnapshot createFromParcel(Parcel source) {
+            ViewportSnapshot snapshot = new ViewportSnapshot();
+            snapshot.readFromParcel(source);
+            return snapshot;
+        }
+
+        @Override
+        public ViewportSnapshot[] newArray(int size) {
+            return new ViewportSnapshot[size];
+        }
+    };
+
+    @Override
+    public String toString() {
+        return "ViewportSnapshot[valid=" + valid +
+                ", image=" + imageWidth + "x" + imageHeight +
+                ", view=" + viewWidth + "x" + viewHeight +
+                ", scale=" + scale + ", rotation=" + rotation +
+                ", focus=(" + focusX + ", " + focusY + ")]";
+    }
+}
@@ -0,0 +1,187 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.FlingPhysics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用假时钟驱动，位置只和时间有关
+ */
+public class FlingPhysicsTest {
+    private static final long MS = 1_000_000L;
+    private static final long START = 5_000 * MS;
+
+    @Test
+    public void flingEndsAtPredictedFinalPosition() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 3000, -4000);
+        float finalX = physics.getFinalX();
+        float finalY = physics.getFinalY();
+        int duration = physics.getDuration();
+        assertTrue(finalX > 0 && finalY < 0);
+        assertEquals(-4f / 3, finalY / finalX, 1e-4);
+
+        float sumX = 0, sumY = 0;
+        long t = START;
+        int frames = 0;
+        boolean running = true;
+        while (running) {
+            t += 16 * MS;
+            running = physics.update(t);
+            sumX += physics.getDeltaX();
+            sumY += physics.getDeltaY();
+            frames++;
+        }
+        assertEquals(finalX, sumX, 0.05f);
+        assertEquals(finalY, sumY, 0.05f);
+        assertEquals(duration / 16.0, frames, 1.5);
+        assertTrue(physics.isFinished());
+    }
+
+    @Test
+    public void positionDependsOnlyOnFrameTime() {
+        FlingPhysics regular = new FlingPhysics();
+        FlingPhysics jank = new FlingPhysics();
+        regular.fling(START, 2500, 0);
+        jank.fling(START, 2500, 0);
+
+        for (int i = 1; i <= 30; i++) {
+            regular.update(START + i * 8 * MS);
+        }
+        // 卡顿时只收到少量不均匀的帧
+        jank.update(START + 9 * MS);
+        jank.update(START + 100 * MS);
+        jank.update(START + 240 * MS);
+        assertEquals(regular.getX(), jank.getX(), 1e-3f);
+        assertEquals(regular.getVelocityX(), jank.getVelocityX(), 1e-2f);
+    }
+
+    @Test
+    public void frameBeforeStartDoesNotMove() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 2000, 2000);
+        assertTrue(physics.update(START - 4 * MS));
+        assertEquals(0, physics.getX(), 0);
+        assertEquals(0, physics.getDeltaY(), 0);
+    }
+
+    @Test
+    public void slowFlingDoesNotStart() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 10, 10);
+        assertTrue(physics.isFinished());
+        assertFalse(physics.update(START + 16 * MS));
+        assertEquals(0, physics.getFinalX(), 0);
+    }
+
+    @Test
+    public void higherFrictionStopsSooner() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 3000, 0);
+        float normal = physics.getFinalX();
+        physics.setFriction(3);
+        physics.fling(START, 3000, 0);
+        assertTrue(physics.getFinalX() < normal);
+    }
+
+    @Test
+    public void springSettlesWithoutOscillation() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.spring(START, 120, -60, 0, 0);
+        assertEquals(-120, physics.getFinalX(), 0);
+
+        long t = START;
+        float offsetX = 120;
+        boolean running = true;
+        while (running) {
+            t += 16 * MS;
+            running = physics.update(t);
+            float next = 120 + physics.getX();
+            // 从静止开始的临界阻尼弹簧单调回到 0
+            assertTrue(next <= offsetX && next >= 0);
+            offsetX = next;
+            assertTrue("spring too slow", t - START < 2000 * MS);
+        }
+        assertEquals(-120, physics.getX(), 0);
+        assertEquals(60, physics.getY(), 0);
+    }
+
+    @Test
+    public void cancelKeepsLastPosition() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 3000, 0);
+        physics.update(START + 50 * MS);
+        float x = physics.getX();
+        physics.cancel();
+        assertFalse(physics.update(START + 100 * MS));
+        assertEquals(x, physics.getX(), 0);
+        assertEquals(0, physics.getDeltaX(), 0);
+    }
+
+    @Test
+    public void flingStopsWhenBothAxesArePinned() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.fling(START, 3000, 3000);
+        int freeDuration = physics.getDuration();
+
+        physics.setBounds(-500, 100, -500, 200);
+        physics.fling(START, 3000, 3000);
+        assertEquals(100, physics.getFinalX(), 1e-3f);
+        assertEquals(200, physics.getFinalY(), 1e-3f);
+        int duration = physics.getDuration();
+        assertTrue(duration < freeDuration / 3);
+
+        long t = START;
+        float maxX = 0;
+        while (physics.update(t += 8 * MS)) {
+            maxX = Math.max(maxX, physics.getX());
+        }
+        assertTrue(maxX <= 100);
+        assertEquals(200, physics.getY(), 1e-3f);
+        // 两个方向都到达边界之后立即结束，不会空转到自然停止
+        assertEquals(duration, (t - START) / MS, 8);
+    }
+
+    @Test
+    public void pinnedAxisDoesNotBlockOtherAxis() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.setBounds(0, 0, -10000, 10000);
+        physics.fling(START, 2000, 2000);
+        assertEquals(0, physics.getFinalX(), 0);
+        assertTrue(physics.getFinalY() > 100);
+        physics.update(START + 100 * MS);
+        assertEquals(0, physics.getX(), 0);
+        assertTrue(physics.getY() > 0);
+    }
+
+    @Test
+    public void flingAtBoundaryDoesNotStart() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.setBounds(-300, 0, 0, 0);
+        physics.fling(START, 3000, -1000);
+        assertTrue(physics.isFinished());
+        assertEquals(0, physics.getDuration());
+    }
+
+    @Test
+    public void overscrollBouncesBackToBoundary() {
+        FlingPhysics physics = new FlingPhysics();
+        physics.setMaxOverscroll(40);
+        physics.setBounds(-1000, 100, 0, 0);
+        physics.fling(START, 4000, 0);
+        assertEquals(100, physics.getFinalX(), 1e-3f);
+
+        long t = START;
+        float maxX = 0;
+        while (physics.update(t += 8 * MS)) {
+            maxX = Math.max(maxX, physics.getX());
+            assertTrue("bounce too slow", t - START < 2000 * MS);
+        }
+        assertTrue("overscroll " + maxX, maxX > 100 && maxX <= 140.01f);
+        assertEquals(100, physics.getX(), 1e-3f);
+    }
+}
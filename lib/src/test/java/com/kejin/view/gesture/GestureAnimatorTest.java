@@ -0,0 +1,155 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureAnimator;
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureTransform;
+import com.kejin.android.gesture.core.VirtualFrameSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用虚拟帧时钟驱动，所有通道每帧只回调一次 Target
+ */
+public class GestureAnimatorTest {
+    private static final long MS = 1_000_000L;
+    private static final long FRAME_60 = 16_666_667L;
+    private static final long FRAME_120 = 8_333_333L;
+
+    private final VirtualFrameSource frames = new VirtualFrameSource();
+    private final GestureTransform transform = new GestureTransform();
+    private int targetCalls = 0;
+    private int lastChannels = 0;
+    private int flingFrames = 0;
+    private int flingStarts = 0;
+    private int flingEnds = 0;
+    // onFlingEnd 时 target 的回调次数
+    private int targetCallsAtFlingEnd = -1;
+    private float flingSumX = 0;
+
+    private final GestureAnimator animator = new GestureAnimator(frames, new GestureCallback() {
+        @Override
+        public void onFlingStart(float finalDx, float finalDy, int duration, boolean singlePointer) {
+            flingStarts++;
+        }
+
+        @Override
+        public boolean onFling(float dx, float dy, boolean singlePointer) {
+            flingFrames++;
+            flingSumX += dx;
+            transform.postTranslate(dx, dy);
+            return false;
+        }
+
+        @Override
+        public void onFlingEnd(boolean singlePointer) {
+            flingEnds++;
+            targetCallsAtFlingEnd = targetCalls;
+        }
+    });
+
+    {
+        transform.setContentSize(1000, 1000);
+        animator.setTransform(transform);
+        animator.setTarget((frameTimeNanos, channels, fixBound) -> {
+            targetCalls++;
+            lastChannels = channels;
+        });
+    }
+
+    @Test
+    public void translateReachesTargetAtAnyRefreshRate() {
+        for (long interval : new long[]{FRAME_60, FRAME_120, 11_111_111L}) {
+            transform.reset();
+            targetCalls = 0;
+            animator.animateTranslate(300, -120, 200, false);
+            int count = frames.runFrames(interval, 1000);
+            assertEquals(300, transform.getTransX(), 1e-6);
+            assertEquals(-120, transform.getTransY(), 1e-6);
+            assertEquals(count, targetCalls);
+            // 200ms 的动画，第一帧就开始推进，不会多出一帧
+            assertTrue("frames " + count, count <= 200 * MS / interval + 1);
+            assertFalse(animator.isRunning());
+        }
+    }
+
+    @Test
+    public void frameIntervalAdaptsToRefreshRate() {
+        for (int i = 0; i < 3; i++) {
+            animator.animateTranslate(100, 0, 200, false);
+            frames.runFrames(FRAME_120, 1000);
+        }
+        assertEquals(FRAME_120, animator.getFrameIntervalNanos(), 0.2 * MS);
+
+        // 第一帧已经推进了一个帧间隔
+        transform.reset();
+        animator.animateTranslate(100, 0, 200, false);
+        frames.doFrame(frames.nanoTime() + FRAME_120);
+        assertTrue(transform.getTransX() > 0);
+    }
+
+    @Test
+    public void allChannelsShareOneFrame() {
+        transform.setBase(1, 1, 0, 0);
+        animator.animateTranslate(100, 50, 200, true);
+        animator.animateScale(1, 2, 500, 500, 200, true);
+        animator.startFling(3000, 0, true);
+        assertEquals(1, flingStarts);
+        assertEquals(1, frames.getPendingCount());
+
+        frames.doFrame(frames.nanoTime() + FRAME_60);
+        assertEquals(1, targetCalls);
+        assertEquals(GestureAnimator.CHANNEL_TRANSLATE | GestureAnimator.CHANNEL_SCALE |
+                GestureAnimator.CHANNEL_FLING, lastChannels);
+        assertEquals(1, frames.getPendingCount());
+
+        int count = 1 + frames.runFrames(FRAME_60, 1000);
+        assertEquals(count, targetCalls);
+        assertEquals(2, transform.getScale(), 1e-9);
+        assertEquals(1, flingEnds);
+        // 最后一帧的变化分发之后才回调 onFlingEnd
+        assertEquals(targetCalls, targetCallsAtFlingEnd);
+        assertEquals(animator.getFlingPhysics().getFinalX(), flingSumX, 0.05f);
+    }
+
+    @Test
+    public void cancelFlingEndsOnce() {
+        animator.startFling(5000, 5000, false);
+        frames.doFrame(frames.nanoTime() + FRAME_60);
+        assertTrue(flingFrames > 0);
+        animator.cancelFling();
+        animator.cancelFling();
+        assertEquals(1, flingEnds);
+        assertEquals(0, frames.getPendingCount());
+
+        // reset 不回调
+        animator.startFling(5000, 5000, false);
+        animator.reset();
+        assertEquals(1, flingEnds);
+        assertEquals(0, frames.getPendingCount());
+    }
+
+    @Test
+    public void finishedFlingDoesNotStart() {
+        // 低于最小速度
+        animator.startFling(10, 0, true);
+        assertFalse(animator.isRunning());
+        assertEquals(0, frames.getPendingCount());
+        assertEquals(0, flingStarts);
+        assertEquals(0, flingEnds);
+    }
+
+    @Test
+    public void replacedAnimationKeepsSingleFrameRequest() {
+        animator.animateTranslate(100, 0, 200, false);
+        animator.animateTranslate(-100, 0, 200, false);
+        animator.animateScale(1, 1.5, Float.MAX_VALUE, Float.MAX_VALUE, 100, false);
+        assertEquals(1, frames.getPendingCount());
+        animator.cancel(GestureAnimator.CHANNEL_TRANSLATE | GestureAnimator.CHANNEL_SCALE);
+        assertEquals(0, frames.getPendingCount());
+        assertFalse(animator.isRunning());
+    }
+}
@@ -0,0 +1,107 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.VirtualGestureClock;
+import com.kejin.android.gesture.core.VirtualGestureHost;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 点击，双击，长按只依赖事件时间，用虚拟时钟驱动
+ */
+public class GestureClockTest {
+    private final VirtualGestureClock clock = new VirtualGestureClock();
+    private int clicks = 0;
+    private int doubleClicks = 0;
+    private int longClicks = 0;
+
+    private final GestureRecognizer recognizer = new GestureRecognizer(new GestureCallback() {
+        @Override
+        public void onClick(float x, float y) {
+            clicks++;
+        }
+
+        @Override
+        public void onDoubleClick(float x, float y) {
+            doubleClicks++;
+        }
+
+        @Override
+        public void onLongClick(float x, float y) {
+            longClicks++;
+        }
+    }, new VirtualGestureHost(clock));
+
+    @Test
+    public void tapIsConfirmedAfterDoubleClickTimeout() {
+        recognizer.setDoubleClickEnable(true);
+        tap(1000, 80);
+        clock.advanceTo(1080 + GestureRecognizer.DOUBLE_CLICK_TIMEOUT - 1);
+        assertEquals(0, clicks);
+        clock.advanceTo(1080 + GestureRecognizer.DOUBLE_CLICK_TIMEOUT);
+        assertEquals(1, clicks);
+    }
+
+    @Test
+    public void doubleTapUsesEventTime() {
+        recognizer.setDoubleClickEnable(true);
+        tap(1000, 80);
+        tap(1200, 60);
+        clock.flush();
+        assertEquals(1, doubleClicks);
+        assertEquals(0, clicks);
+    }
+
+    @Test
+    public void lateDeliveredTapsAreNotMergedIntoDoubleTap() {
+        recognizer.setDoubleClickEnable(true);
+        // 主线程卡住，两次点击一起到达，时钟还没来得及执行第一次的单击
+        deliver(1000, 80);
+        deliver(1500, 80);
+        assertEquals(1, clicks);
+        clock.flush();
+        assertEquals(2, clicks);
+        assertEquals(0, doubleClicks);
+    }
+
+    @Test
+    public void pressDurationUsesEventTime() {
+        tap(1000, GestureRecognizer.CLICK_TIMEOUT - 1);
+        tap(2000, GestureRecognizer.LONG_CLICK_TIMEOUT);
+        tap(4000, GestureRecognizer.CLICK_TIMEOUT + 50);
+        assertEquals(1, clicks);
+        assertEquals(1, longClicks);
+    }
+
+    @Test
+    public void hoursOfTapsReplayInstantly() {
+        recognizer.setDoubleClickEnable(true);
+        long t = 0;
+        int taps = 36_000; // 一秒一次，十个小时
+        for (int i = 0; i < taps; i++) {
+            tap(t, 50);
+            t += 1000;
+        }
+        clock.flush();
+        assertEquals(taps, clicks);
+        assertEquals(0, doubleClicks);
+    }
+
+    private void tap(long downTime, long duration) {
+        clock.advanceTo(downTime);
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_DOWN, 0, 100, 100, downTime);
+        clock.advanceTo(downTime + duration);
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_UP, 0, 100, 100, downTime + duration);
+    }
+
+    /**
+     * 只分发事件，时钟不前进
+     */
+    private void deliver(long downTime, long duration) {
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_DOWN, 0, 100, 100, downTime);
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_UP, 0, 100, 100, downTime + duration);
+    }
+}
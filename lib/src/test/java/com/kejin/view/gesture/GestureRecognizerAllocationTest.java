@@ -0,0 +1,105 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureRecognizer;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回放手势，如果识别过程中有对象分配就失败
+ */
+public class GestureRecognizerAllocationTest {
+    private static final int WARMUP_ROUNDS = 5000;
+    private static final int ROUNDS = 500;
+    /**
+     * 测量本身可能会有少量的分配，每个事件哪怕只分配一个对象，总量也会远超这个值
+     */
+    private static final long TOLERANCE_BYTES = 1024;
+
+    private final int[] ids = new int[]{0, 1};
+    private final float[] xs = new float[2];
+    private final float[] ys = new float[2];
+
+    private final GestureRecognizer.Host host = new GestureRecognizer.Host() {
+        @Override
+        public long now() {
+            return 0;
+        }
+
+        @Override
+        public void postAt(Runnable action, long timeMillis) {}
+
+        @Override
+        public void removeCallbacks(Runnable action) {}
+
+        @Override
+        public void startFling(int velocityX, int velocityY, boolean singlePointer) {}
+
+        @Override
+        public void cancelFling() {}
+    };
+
+    @Test
+    public void dragAndFlingDoNotAllocate() {
+        GestureRecognizer recognizer = new GestureRecognizer(new GestureCallback() {}, host);
+        assertNoAllocation(recognizer, false);
+    }
+
+    @Test
+    public void pinchAndRotateDoNotAllocate() {
+        GestureRecognizer recognizer = new GestureRecognizer(new GestureCallback() {}, host);
+        assertNoAllocation(recognizer, true);
+    }
+
+    private void assertNoAllocation(GestureRecognizer recognizer, boolean multiPointer) {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            replay(recognizer, multiPointer);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            replay(recognizer, multiPointer);
+        }
+        long allocated = allocatedBytes() - before;
+        assertTrue("replayed gesture allocated " + allocated + " bytes",
+                allocated < TOLERANCE_BYTES);
+    }
+
+    private void replay(GestureRecognizer recognizer, boolean multiPointer) {
+        long t = 0;
+        xs[0] = 100;
+        ys[0] = 100;
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_DOWN, 0, t, 1, ids, xs, ys);
+        if (multiPointer) {
+            xs[1] = 300;
+            ys[1] = 300;
+            recognizer.onTouchEvent(GestureRecognizer.ACTION_POINTER_DOWN, 1, t, 2, ids, xs, ys);
+        }
+        for (int i = 0; i < 60; i++) {
+            t += 8;
+            xs[0] += 6;
+            ys[0] -= 3;
+            if (multiPointer) {
+                xs[1] += 2;
+                ys[1] += 7;
+            }
+            recognizer.onTouchEvent(GestureRecognizer.ACTION_MOVE, 0, t,
+                    multiPointer ? 2 : 1, ids, xs, ys);
+        }
+        if (multiPointer) {
+            recognizer.onTouchEvent(GestureRecognizer.ACTION_POINTER_UP, 1, t, 2, ids, xs, ys);
+        }
+        recognizer.onTouchEvent(GestureRecognizer.ACTION_UP, 0, t + 2, 1, ids, xs, ys);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,144 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureTransform;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 和手算的结果比较
+ */
+public class GestureTransformTest {
+    private static final double EPS = 1e-9;
+    private static final float FLOAT_EPS = 1e-4f;
+
+    private final GestureTransform transform = new GestureTransform();
+
+    @Test
+    public void mapContentRectWithoutRotation() {
+        transform.setContentSize(100, 50);
+        transform.setBase(2, 2, 10, 20);
+        transform.set(1.5, 0, 5, -5);
+        transform.mapContentRect();
+        // base 之后为 (10, 20) - (210, 120)
+        assertRect(20, 25, 320, 175);
+    }
+
+    @Test
+    public void mapContentRectWithRotation() {
+        transform.setContentSize(100, 50);
+        transform.setBase(2, 2, 10, 20);
+        transform.set(1, 90, 0, 0);
+        transform.mapContentRect();
+        // 旋转 90 度: (x, y) -> (-y, x)
+        assertRect(-120, 10, -20, 210);
+    }
+
+    @Test
+    public void boundaryDeltaAlignsSmallContent() {
+        transform.setContentSize(100, 50);
+        transform.set(1, 0, 30, 40);
+
+        assertTrue(transform.computeBoundaryDelta(400, 200, GestureTransform.ALIGN_START));
+        assertEquals(-30, transform.getBoundaryDeltaX(), EPS);
+        assertEquals(-40, transform.getBoundaryDeltaY(), EPS);
+
+        assertTrue(transform.computeBoundaryDelta(400, 200, GestureTransform.ALIGN_CENTER));
+        assertEquals(120, transform.getBoundaryDeltaX(), EPS);
+        assertEquals(35, transform.getBoundaryDeltaY(), EPS);
+
+        assertTrue(transform.computeBoundaryDelta(400, 200, GestureTransform.ALIGN_END));
+        assertEquals(270, transform.getBoundaryDeltaX(), EPS);
+        assertEquals(110, transform.getBoundaryDeltaY(), EPS);
+
+        assertTrue(transform.fixBoundary(400, 200, GestureTransform.ALIGN_END));
+        assertFalse(transform.fixBoundary(400, 200, GestureTransform.ALIGN_END));
+        assertEquals(300, transform.getTransX(), EPS);
+        assertEquals(150, transform.getTransY(), EPS);
+    }
+
+    @Test
+    public void boundaryDeltaLeavesNoBlankForLargeContent() {
+        transform.setContentSize(100, 50);
+        // (-10, 20) - (490, 270)，x 方向盖住了 view，上面留了空白
+        transform.set(5, 0, -10, 20);
+        for (int align = GestureTransform.ALIGN_START; align <= GestureTransform.ALIGN_END; align++) {
+            assertTrue(transform.computeBoundaryDelta(400, 200, align));
+            assertEquals(0, transform.getBoundaryDeltaX(), EPS);
+            assertEquals(-20, transform.getBoundaryDeltaY(), EPS);
+        }
+        // (-200, -100) - (300, 150)，右边和下面留了空白
+        transform.set(5, 0, -200, -100);
+        assertTrue(transform.computeBoundaryDelta(400, 200, GestureTransform.ALIGN_CENTER));
+        assertEquals(100, transform.getBoundaryDeltaX(), EPS);
+        assertEquals(50, transform.getBoundaryDeltaY(), EPS);
+    }
+
+    @Test
+    public void getValuesIsSuppTimesBase() {
+        transform.setBase(2, 3, 10, 20);
+        transform.set(2, 90, 5, 7);
+        float[] values = new float[9];
+        transform.getValues(values);
+        float[] expected = new float[]{0, -6, -35, 4, 0, 27, 0, 0, 1};
+        for (int i = 0; i < 9; i++) {
+            assertEquals("values[" + i + "]", expected[i], values[i], FLOAT_EPS);
+        }
+        transform.mapPoint(1, 1);
+        assertEquals(-6 - 35, transform.getMappedX(), EPS);
+        assertEquals(4 + 27, transform.getMappedY(), EPS);
+    }
+
+    @Test
+    public void postScaleKeepsPivot() {
+        transform.set(1, 0, 10, 20);
+        transform.postScale(2, 50, 60);
+        assertEquals(2, transform.getScale(), EPS);
+        assertEquals(-30, transform.getTransX(), EPS);
+        assertEquals(-20, transform.getTransY(), EPS);
+        // 缩放前在 (50, 60) 的点
+        transform.mapPoint(40, 40);
+        assertEquals(50, transform.getMappedX(), EPS);
+        assertEquals(60, transform.getMappedY(), EPS);
+    }
+
+    @Test
+    public void postRotateKeepsPivot() {
+        transform.set(1, 0, 10, 20);
+        transform.postRotate(90, 50, 60);
+        assertEquals(90, transform.getRotation(), EPS);
+        assertEquals(90, transform.getTransX(), EPS);
+        assertEquals(20, transform.getTransY(), EPS);
+        transform.mapPoint(40, 40);
+        assertEquals(50, transform.getMappedX(), EPS);
+        assertEquals(60, transform.getMappedY(), EPS);
+    }
+
+    @Test
+    public void invertPointUndoesMapPoint() {
+        transform.setBase(2, 3, 10, 20);
+        transform.set(2, 90, 5, 7);
+        transform.invertPoint(-41, 31);
+        assertEquals(1, transform.getMappedX(), EPS);
+        assertEquals(1, transform.getMappedY(), EPS);
+        // supp 的平移点对应 base 的平移点的逆
+        transform.invertPoint(5, 7);
+        assertEquals(-5, transform.getMappedX(), EPS);
+        assertEquals(-20 / 3.0, transform.getMappedY(), EPS);
+
+        transform.setBase(0, 0, 0, 0);
+        transform.invertPoint(100, 100);
+        assertEquals(0, transform.getMappedX(), EPS);
+        assertEquals(0, transform.getMappedY(), EPS);
+    }
+
+    private void assertRect(double left, double top, double right, double bottom) {
+        assertEquals(left, transform.getLeft(), EPS);
+        assertEquals(top, transform.getTop(), EPS);
+        assertEquals(right, transform.getRight(), EPS);
+        assertEquals(bottom, transform.getBottom(), EPS);
+    }
+}
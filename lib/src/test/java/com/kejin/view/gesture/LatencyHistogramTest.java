@@ -0,0 +1,49 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.LatencyHistogram;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentilesFollowRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MS);
+        }
+        assertEquals(100, histogram.getCount());
+        // 结果为所在桶的上界
+        assertEquals(50 * MS + LatencyHistogram.BUCKET_NANOS, histogram.getP50Nanos());
+        assertEquals(95 * MS + LatencyHistogram.BUCKET_NANOS, histogram.getP95Nanos());
+        assertEquals(99 * MS + LatencyHistogram.BUCKET_NANOS, histogram.getP99Nanos());
+        assertEquals(100 * MS, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void overflowIsClampedToMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2 * MS);
+        histogram.record(500 * MS);
+        assertEquals(500 * MS, histogram.getPercentileNanos(100));
+        assertTrue(histogram.getP50Nanos() <= 2 * MS + LatencyHistogram.BUCKET_NANOS);
+    }
+
+    @Test
+    public void addAndReset() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10 * MS);
+        b.record(30 * MS);
+        a.add(b);
+        assertEquals(2, a.getCount());
+        assertEquals(20 * MS, a.getMeanNanos());
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.getP99Nanos());
+    }
+}
@@ -0,0 +1,58 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.LatencyHistogram;
+import com.kejin.android.gesture.core.LatencyRecorder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyRecorderTest {
+    private static final long MS = 1_000_000L;
+    private static final int DRAG = 0, SCALE = 1;
+
+    private final List<long[]> reports = new ArrayList<>();
+    private final LatencyRecorder recorder = new LatencyRecorder(2, (gestureType, histogram) ->
+            reports.add(new long[]{gestureType, histogram.getCount(), histogram.getMaxNanos()}));
+
+    @Test
+    public void onlyEarliestChangeBeforeDrawIsRecorded() {
+        recorder.mark(DRAG, 0);
+        recorder.mark(DRAG, 4 * MS);
+        recorder.onDraw(10 * MS);
+        recorder.onDraw(20 * MS);
+        recorder.report();
+        assertEquals(1, reports.size());
+        assertEquals(1, reports.get(0)[1]);
+        assertEquals(10 * MS, reports.get(0)[2]);
+    }
+
+    @Test
+    public void undrawnChangeIsDroppedOnTypeSwitch() {
+        recorder.mark(DRAG, 0);
+        recorder.onDraw(8 * MS);
+        // 还没有绘制就变成了缩放
+        recorder.mark(DRAG, 100 * MS);
+        recorder.mark(SCALE, 101 * MS);
+        assertEquals(1, reports.size());
+        assertEquals(DRAG, reports.get(0)[0]);
+        assertEquals(1, reports.get(0)[1]);
+
+        recorder.onDraw(110 * MS);
+        recorder.mark(DRAG, 200 * MS);
+        assertEquals(2, reports.size());
+        assertEquals(SCALE, reports.get(1)[0]);
+        assertEquals(9 * MS, reports.get(1)[2]);
+
+        // 拖动的直方图已经重新开始，之前没有绘制的那次变化不会混进来
+        recorder.onDraw(205 * MS);
+        recorder.report();
+        assertEquals(3, reports.size());
+        assertEquals(DRAG, reports.get(2)[0]);
+        assertEquals(1, reports.get(2)[1]);
+        assertEquals(5 * MS, reports.get(2)[2]);
+    }
+}
@@ -0,0 +1,162 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.VirtualGestureClock;
+import com.kejin.android.gesture.core.VirtualGestureHost;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多指操作按 pointer id 计算重心，平均距离和平均角度
+ */
+public class MultiPointerGestureTest {
+    private static final float CX = 540, CY = 960;
+
+    private final VirtualGestureClock clock = new VirtualGestureClock();
+    private final int[] ids = new int[]{0, 1, 2, 3};
+    private final float[] xs = new float[4];
+    private final float[] ys = new float[4];
+    private long time = 0;
+
+    private double scale = 1;
+    private double degrees = 0;
+    private float maxDragStep = 0;
+    private float sumDx = 0;
+    private int scaleStarts = 0;
+
+    private final GestureRecognizer recognizer = new GestureRecognizer(new GestureCallback() {
+        @Override
+        public void onDrag(float x, float y, float dx, float dy,
+                           float sumX, float sumY, boolean singlePointer) {
+            maxDragStep = Math.max(maxDragStep, Math.max(Math.abs(dx), Math.abs(dy)));
+            sumDx += dx;
+        }
+
+        @Override
+        public void onScaleStart(boolean singlePointer) {
+            scaleStarts++;
+        }
+
+        @Override
+        public void onScale(float cx, float cy, float deltaScale, boolean singlePointer) {
+            scale *= deltaScale;
+        }
+
+        @Override
+        public void onRotate(float cx, float cy, float deltaDegrees, boolean singlePointer) {
+            degrees += deltaDegrees;
+        }
+    }, new VirtualGestureHost(clock));
+
+    @Test
+    public void twoPointerPinchMatchesDistanceRatio() {
+        recognizer.setRotateThreshold(90);
+        down(2, 100, 0);
+        // 超过阈值之前不回调，之后每次的比例连乘等于距离的比例
+        float startRadius = 0;
+        for (int i = 1; i <= 40; i++) {
+            float radius = 100 + i * 5;
+            if (startRadius == 0 && scaleStarts > 0) {
+                startRadius = radius - 5;
+            }
+            move(2, radius, 0);
+        }
+        assertEquals(1, scaleStarts);
+        assertEquals(300 / startRadius, scale, 1e-3);
+    }
+
+    @Test
+    public void thirdPointerContributesToScale() {
+        recognizer.setRotateThreshold(90);
+        down(3, 100, 0);
+        // 只有第三个手指向外移动，原来只看前两个手指时没有缩放
+        for (int i = 1; i <= 30; i++) {
+            placeRing(3, 100, 0);
+            xs[2] = CX + (100 + i * 8) * (float) Math.cos(Math.toRadians(240));
+            ys[2] = CY + (100 + i * 8) * (float) Math.sin(Math.toRadians(240));
+            dispatch(GestureRecognizer.ACTION_MOVE, 0, 3);
+        }
+        assertTrue("scale " + scale, scale > 1.2);
+    }
+
+    @Test
+    public void fourPointerRotation() {
+        recognizer.setScaleThreshold(10);
+        down(4, 200, 0);
+        for (int i = 1; i <= 30; i++) {
+            move(4, 200, i * 2);
+        }
+        // 3 度之后开始，之后的角度连加
+        assertEquals(60 - 4, degrees, 0.5);
+    }
+
+    @Test
+    public void liftingPointerDoesNotJump() {
+        recognizer.setScaleThreshold(10);
+        recognizer.setRotateThreshold(90);
+        // 三指一起向右拖动，中途抬起第一个手指
+        down(3, 150, 0);
+        float offset = 0;
+        for (int i = 0; i < 20; i++) {
+            offset += 5;
+            placeRing(3, 150, 0);
+            shift(3, offset);
+            dispatch(GestureRecognizer.ACTION_MOVE, 0, 3);
+        }
+        dispatch(GestureRecognizer.ACTION_POINTER_UP, 0, 3);
+        // 抬起之后 id 1, 2 的下标变为 0, 1
+        ids[0] = 1;
+        ids[1] = 2;
+        xs[0] = xs[1];
+        ys[0] = ys[1];
+        xs[1] = xs[2];
+        ys[1] = ys[2];
+        for (int i = 0; i < 20; i++) {
+            xs[0] += 5;
+            xs[1] += 5;
+            dispatch(GestureRecognizer.ACTION_MOVE, 0, 2);
+        }
+        assertEquals(5, maxDragStep, 1e-3);
+        assertTrue(sumDx > 150);
+    }
+
+    private void down(int count, float radius, float angle) {
+        placeRing(count, radius, angle);
+        dispatch(GestureRecognizer.ACTION_DOWN, 0, 1);
+        for (int i = 1; i < count; i++) {
+            dispatch(GestureRecognizer.ACTION_POINTER_DOWN, i, i + 1);
+        }
+        dispatch(GestureRecognizer.ACTION_MOVE, 0, count);
+    }
+
+    private void move(int count, float radius, float angle) {
+        placeRing(count, radius, angle);
+        dispatch(GestureRecognizer.ACTION_MOVE, 0, count);
+    }
+
+    /**
+     * pointer 均匀分布在以 (CX, CY) 为中心的圆上
+     */
+    private void placeRing(int count, float radius, float angle) {
+        for (int i = 0; i < count; i++) {
+            double a = Math.toRadians(angle + 360.0 * i / count);
+            xs[i] = CX + radius * (float) Math.cos(a);
+            ys[i] = CY + radius * (float) Math.sin(a);
+        }
+    }
+
+    private void shift(int count, float dx) {
+        for (int i = 0; i < count; i++) {
+            xs[i] += dx;
+        }
+    }
+
+    private void dispatch(int action, int actionIndex, int count) {
+        time += 8;
+        recognizer.onTouchEvent(action, actionIndex, time, count, ids, xs, ys);
+    }
+}
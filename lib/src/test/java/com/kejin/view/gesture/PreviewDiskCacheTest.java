@@ -0,0 +1,121 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.image.PreviewDiskCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预览图磁盘缓存的读写，按字节数的 LRU，文件名冲突
+ */
+public class PreviewDiskCacheTest {
+    private static final int WIDTH = 16, HEIGHT = 8;
+    // 一个 16x8 的预览图加上文件头和 key 的大小
+    private static final int ENTRY_BYTES = 6 * 4 + 1 + WIDTH * HEIGHT * 4;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("preview").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void pixelsSurviveRoundTrip() {
+        PreviewDiskCache cache = new PreviewDiskCache(directory, 1 << 20);
+        write(cache, "a", 2, 7);
+
+        int[] header = new int[3];
+        byte[] pixels = new byte[WIDTH * HEIGHT * 4];
+        // 新的实例从目录中恢复
+        PreviewDiskCache reopened = new PreviewDiskCache(directory, 1 << 20);
+        assertTrue(reopened.read("a", 2, (width, height, hasAlpha, buffer) -> {
+            header[0] = width;
+            header[1] = height;
+            header[2] = hasAlpha ? 1 : 0;
+            buffer.get(pixels);
+        }));
+        assertEquals(WIDTH, header[0]);
+        assertEquals(HEIGHT, header[1]);
+        assertEquals(1, header[2]);
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals((byte) (i * 7), pixels[i]);
+        }
+        assertFalse(reopened.read("a", 4, (width, height, hasAlpha, buffer) -> {}));
+        assertEquals(1, reopened.getHitCount());
+        assertEquals(1, reopened.getMissCount());
+    }
+
+    @Test
+    public void trimsLeastRecentlyUsedToByteLimit() {
+        PreviewDiskCache cache = new PreviewDiskCache(directory, ENTRY_BYTES * 2);
+        write(cache, "a", 1, 1);
+        write(cache, "b", 1, 2);
+        assertTrue(cache.read("a", 1, (width, height, hasAlpha, buffer) -> {}));
+        write(cache, "c", 1, 3);
+
+        assertEquals(ENTRY_BYTES * 2, cache.getCurrentSize());
+        assertTrue(cache.read("a", 1, (width, height, hasAlpha, buffer) -> {}));
+        assertFalse(cache.read("b", 1, (width, height, hasAlpha, buffer) -> {}));
+        assertTrue(cache.read("c", 1, (width, height, hasAlpha, buffer) -> {}));
+
+        cache.resize(ENTRY_BYTES);
+        assertEquals(ENTRY_BYTES, cache.getCurrentSize());
+        assertTrue(cache.read("c", 1, (width, height, hasAlpha, buffer) -> {}));
+    }
+
+    @Test
+    public void hashCollisionIsRejectedByStoredKey() {
+        // "Aa" 和 "BB" 的 hashCode 相同，文件名相同
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PreviewDiskCache cache = new PreviewDiskCache(directory, 1 << 20);
+        write(cache, "Aa", 1, 1);
+        assertFalse(cache.read("BB", 1, (width, height, hasAlpha, buffer) -> {}));
+        assertTrue(cache.read("Aa", 1, (width, height, hasAlpha, buffer) -> {}));
+    }
+
+    @Test
+    public void leavesForeignFilesAlone() throws IOException {
+        File foreign = new File(directory, "http_cache.bin");
+        File foreignPx = new File(directory, "image.px");
+        assertTrue(foreign.createNewFile());
+        assertTrue(foreignPx.createNewFile());
+        File leftover = new File(directory, Integer.toHexString("a".hashCode()) + "_1.px.tmp");
+        assertTrue(leftover.createNewFile());
+
+        PreviewDiskCache cache = new PreviewDiskCache(directory, 1 << 20);
+        cache.clear();
+
+        assertTrue(foreign.exists());
+        assertTrue(foreignPx.exists());
+        assertFalse(leftover.exists());
+    }
+
+    private static void write(PreviewDiskCache cache, String key, int sampleSize, int seed) {
+        cache.write(key, sampleSize, WIDTH, HEIGHT, true, buffer -> {
+            for (int i = 0; i < WIDTH * HEIGHT * 4; i++) {
+                buffer.put((byte) (i * seed));
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.TouchResampler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TouchResamplerTest {
+    private static final long MS = 1_000_000L;
+    private static final float EPS = 1e-3f;
+
+    private final TouchResampler resampler = new TouchResampler();
+    private final int[] ids = new int[]{3, 7};
+    private final float[] xs = new float[2];
+    private final float[] ys = new float[2];
+    private final float[] outXs = new float[2];
+    private final float[] outYs = new float[2];
+
+    @Test
+    public void interpolatesBetweenSamples() {
+        add(0, 0, 0);
+        add(8, 80, 40);
+        resampler.resample(4 * MS, outXs, outYs);
+        assertEquals(40, outXs[0], EPS);
+        assertEquals(20, outYs[0], EPS);
+    }
+
+    @Test
+    public void extrapolationIsLimitedToSampleInterval() {
+        add(0, 0, 0);
+        add(8, 80, 0);
+        resampler.resample(12 * MS, outXs, outYs);
+        assertEquals(120, outXs[0], EPS);
+        // 最多外推一个采样间隔
+        resampler.resample(100 * MS, outXs, outYs);
+        assertEquals(160, outXs[0], EPS);
+    }
+
+    @Test
+    public void noOvershootOnDirectionChange() {
+        add(0, 0, 0);
+        add(8, 80, 80);
+        add(16, 40, 160);
+        resampler.resample(20 * MS, outXs, outYs);
+        // x 方向刚刚反向，停在最近的采样；y 方向继续外推
+        assertEquals(40, outXs[0], EPS);
+        assertEquals(200, outYs[0], EPS);
+    }
+
+    @Test
+    public void pointersAreTrackedById() {
+        xs[0] = 0;
+        xs[1] = 100;
+        resampler.addSample(0, 2, ids, xs, ys);
+        // 交换顺序，按 id 对应
+        int[] swapped = new int[]{7, 3};
+        xs[0] = 120;
+        xs[1] = 10;
+        resampler.addSample(10 * MS, 2, swapped, xs, ys);
+        resampler.resample(5 * MS, outXs, outYs);
+        assertEquals(110, outXs[0], EPS);
+        assertEquals(5, outXs[1], EPS);
+        assertEquals(7, resampler.getPointerIds()[0]);
+    }
+
+    @Test
+    public void closeSamplesAreNotExtrapolated() {
+        add(0, 0, 0);
+        add(1, 10, 0);
+        resampler.resample(8 * MS, outXs, outYs);
+        assertEquals(10, outXs[0], EPS);
+    }
+
+    @Test
+    public void reusedPointerIdStartsWithEmptyHistory() {
+        add(0, 0, 0);
+        add(8, 80, 0);
+        // 抬起后同一个 id 在别的位置按下
+        resampler.removePointer(3);
+        assertEquals(0, resampler.getPointerCount());
+        resampler.removePointer(3);
+        add(100, 500, 0);
+        resampler.resample(104 * MS, outXs, outYs);
+        assertEquals(500, outXs[0], EPS);
+        add(108, 580, 0);
+        resampler.resample(104 * MS, outXs, outYs);
+        assertEquals(540, outXs[0], EPS);
+    }
+
+    private void add(long timeMs, float x, float y) {
+        xs[0] = x;
+        ys[0] = y;
+        resampler.addSample(timeMs * MS, 1, ids, xs, ys);
+    }
+}
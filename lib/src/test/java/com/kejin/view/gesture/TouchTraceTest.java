@@ -0,0 +1,187 @@
+package com.kejin.view.gesture;
+
+import com.kejin.android.gesture.core.GestureCallback;
+import com.kejin.android.gesture.core.GestureRecognizer;
+import com.kejin.android.gesture.core.GestureTransform;
+import com.kejin.android.gesture.core.TouchTrace;
+import com.kejin.android.gesture.core.TouchTraceReader;
+import com.kejin.android.gesture.core.TouchTraceReplayer;
+import com.kejin.android.gesture.core.TouchTraceWriter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TouchTraceTest {
+    private static final float EPS = 1f / TouchTrace.COORD_SCALE;
+    private static final int MOVES = 40;
+
+    private final int[] ids = new int[]{0, 1};
+    private final float[] xs = new float[2];
+    private final float[] ys = new float[2];
+
+    @Test
+    public void recordsRoundTrip() throws IOException {
+        byte[] trace = buildPinch();
+        TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(trace));
+        assertEquals(1080, reader.getViewWidth());
+        assertEquals(3000, reader.getContentHeight());
+
+        assertTrue(reader.next());
+        assertEquals(GestureRecognizer.ACTION_DOWN, reader.getAction());
+        assertEquals(1, reader.getPointerCount());
+        assertEquals(1000, reader.getEventTime());
+
+        assertTrue(reader.next());
+        assertEquals(GestureRecognizer.ACTION_POINTER_DOWN, reader.getAction());
+        assertEquals(1, reader.getActionIndex());
+        assertEquals(2, reader.getPointerCount());
+        assertEquals(1, reader.getPointerIds()[1]);
+        assertEquals(640, reader.getXs()[1], EPS);
+
+        assertTrue(reader.next());
+        assertTrue(reader.isHistorical());
+        assertEquals(GestureRecognizer.ACTION_MOVE, reader.getAction());
+        assertEquals(1004, reader.getEventTime());
+        assertEquals(437.5f, reader.getXs()[0], EPS);
+        assertEquals(642.5f, reader.getXs()[1], EPS);
+
+        int records = 3;
+        while (reader.next()) {
+            records++;
+        }
+        assertEquals(4 + MOVES * 2, records);
+    }
+
+    @Test
+    public void traceIsCompact() throws IOException {
+        byte[] trace = buildDrag();
+        // 文件头 24 字节，之后每个采样不超过 8 字节
+        assertTrue("trace size " + trace.length, trace.length < 24 + (2 + MOVES * 3) * 8);
+    }
+
+    @Test
+    public void dragReplayIsDeterministic() throws IOException {
+        byte[] trace = buildDrag();
+        float[] sumDx = new float[1];
+        GestureTransform first = replay(trace, sumDx);
+        GestureTransform second = replay(trace, null);
+
+        assertEquals(first.getTransX(), second.getTransX(), 0);
+        assertEquals(first.getTransY(), second.getTransY(), 0);
+        // 拖动超过阈值之后才开始，平移和 onDragEnd 报告的总距离一致
+        assertEquals(sumDx[0], first.getTransX(), 1e-3);
+        assertTrue(first.getTransX() < -MOVES * 3 * 4 + 30);
+    }
+
+    @Test
+    public void pinchReplayScalesTransform() throws IOException {
+        byte[] trace = buildPinch();
+        GestureTransform first = replay(trace, null);
+        GestureTransform second = replay(trace, null);
+
+        assertTrue("scale " + first.getScale(), first.getScale() > 1.5);
+        assertEquals(first.getScale(), second.getScale(), 0);
+        assertEquals(first.getTransX(), second.getTransX(), 0);
+    }
+
+    @Test
+    public void flingVelocityIsReplayed() throws IOException {
+        TouchTraceReplayer replayer = new TouchTraceReplayer(new GestureCallback() {});
+        replayer.setHistoricalSamplesEnable(true);
+        replayer.replay(new TouchTraceReader(new ByteArrayInputStream(buildDrag())));
+        assertEquals(1, replayer.getFlingCount());
+        assertTrue(replayer.getFlingVelocityX() < 0);
+        assertFalse(replayer.getFlingVelocityY() < 0);
+    }
+
+    private static GestureTransform replay(byte[] trace, float[] sumDx) throws IOException {
+        TouchTraceReader reader = new TouchTraceReader(new ByteArrayInputStream(trace));
+        GestureTransform transform = new GestureTransform();
+        transform.setContentSize(reader.getContentWidth(), reader.getContentHeight());
+        TouchTraceReplayer replayer = new TouchTraceReplayer(new GestureCallback() {
+            @Override
+            public void onDrag(float x, float y, float dx, float dy,
+                               float sumX, float sumY, boolean singlePointer) {
+                transform.postTranslate(dx, dy);
+            }
+
+            @Override
+            public boolean onDragEnd(float sumX, float sumY,
+                                     int velocityX, int velocityY, boolean singlePointer) {
+                if (sumDx != null) {
+                    sumDx[0] = sumX;
+                }
+                return false;
+            }
+
+            @Override
+            public void onScale(float cx, float cy, float deltaScale, boolean singlePointer) {
+                transform.postScale(deltaScale, cx, cy);
+            }
+        });
+        replayer.setHistoricalSamplesEnable(true);
+        replayer.replay(reader);
+        return transform;
+    }
+
+    /**
+     * 单指向左拖动，每个 ACTION_MOVE 带两个历史采样
+     */
+    private byte[] buildDrag() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TouchTraceWriter writer = new TouchTraceWriter(out, 1080, 1920, 4000, 3000);
+        long t = 1000;
+        xs[0] = 540;
+        ys[0] = 960;
+        writer.write(GestureRecognizer.ACTION_DOWN, 0, t, 1, ids, xs, ys, false);
+        for (int i = 0; i < MOVES; i++) {
+            for (int h = 0; h < 3; h++) {
+                t += 4;
+                xs[0] -= 4;
+                writer.write(GestureRecognizer.ACTION_MOVE, 0, t, 1, ids, xs, ys, h < 2);
+            }
+        }
+        writer.write(GestureRecognizer.ACTION_UP, 0, t, 1, ids, xs, ys, false);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 双指张开，每个 ACTION_MOVE 带一个历史采样
+     */
+    private byte[] buildPinch() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TouchTraceWriter writer = new TouchTraceWriter(out, 1080, 1920, 4000, 3000);
+        long t = 1000;
+        float radius = 100;
+        setPinch(radius);
+        writer.write(GestureRecognizer.ACTION_DOWN, 0, t, 1, ids, xs, ys, false);
+        writer.write(GestureRecognizer.ACTION_POINTER_DOWN, 1, t, 2, ids, xs, ys, false);
+        for (int i = 0; i < MOVES; i++) {
+            for (int h = 0; h < 2; h++) {
+                t += 4;
+                radius += 2.5f;
+                setPinch(radius);
+                writer.write(GestureRecognizer.ACTION_MOVE, 0, t, 2, ids, xs, ys, h == 0);
+            }
+        }
+        writer.write(GestureRecognizer.ACTION_POINTER_UP, 1, t, 2, ids, xs, ys, false);
+        writer.write(GestureRecognizer.ACTION_UP, 0, t, 1, ids, xs, ys, false);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private void setPinch(float radius) {
+        xs[0] = 540 - radius;
+        ys[0] = 960;
+        xs[1] = 540 + radius;
+        ys[1] = 960;
+    }
+}